@@ -11,6 +11,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
+import java.util.Map;
 
 import javax.swing.JComponent;
 import javax.swing.JFrame;
@@ -18,12 +19,19 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
 import com.cburch.logisim.analyze.model.AnalyzerModel;
+import com.cburch.logisim.analyze.model.Entry;
+import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.gui.generic.LFrame;
 import com.cburch.logisim.gui.menu.LogisimMenuBar;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.util.LocaleListener;
 import com.cburch.logisim.util.LocaleManager;
 
@@ -194,6 +202,33 @@ public class Analyzer extends LFrame {
 	public AnalyzerModel getModel() {
 		return model;
 	}
+
+	/** Fills the truth table by simulating the circuit in the background,
+	 * showing the progress in the table tab. */
+	public void computeTable(Project proj, Circuit circuit,
+			final Map<Instance, String> pinLabels) {
+		final Analyze.TableProgress progress = truthTablePanel.startProgress();
+		final CircuitState[] states = Analyze.createTableStates(proj, circuit,
+				pinLabels);
+		Thread thread = new Thread("Truth table computation") {
+			@Override
+			public void run() {
+				final Entry[][] columns = Analyze.computeTableColumns(states,
+						pinLabels, progress);
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						truthTablePanel.endProgress(progress);
+						// cancelled or superseded after its rows were done
+						if (columns != null && !progress.isCancelled()) {
+							Analyze.setTableColumns(model, pinLabels, columns);
+						}
+					}
+				});
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
 	
 	public void setSelectedTab(int index) {
 		Object found = tabbedPane.getComponentAt(index);
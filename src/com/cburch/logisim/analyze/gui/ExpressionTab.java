@@ -81,6 +81,8 @@ class ExpressionTab extends AnalyzerTab implements TabInterface {
 		}
 
 		public void expressionChanged(OutputExpressionsEvent event) {
+			// a hidden tab catches up in updateTab when it is selected
+			if (!isShowing()) return;
 			if (event.getType() == OutputExpressionsEvent.OUTPUT_EXPRESSION) {
 				String output = event.getVariable();
 				if (output.equals(getCurrentVariable())) {
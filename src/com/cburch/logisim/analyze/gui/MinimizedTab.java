@@ -81,6 +81,8 @@ class MinimizedTab extends AnalyzerTab {
 	private class MyListener
 			implements OutputExpressionsListener, ActionListener, ItemListener {
 		public void expressionChanged(OutputExpressionsEvent event) {
+			// a hidden tab catches up in updateTab when it is selected
+			if (!isShowing()) return;
 			String output = getCurrentVariable();
 			if (event.getType() == OutputExpressionsEvent.OUTPUT_MINIMAL
 					&& event.getVariable().equals(output)) {
@@ -9,15 +9,22 @@ import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 
+import javax.swing.JButton;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollBar;
+import javax.swing.SwingUtilities;
 
 import com.cburch.logisim.analyze.model.Entry;
 import com.cburch.logisim.analyze.model.TruthTable;
 import com.cburch.logisim.analyze.model.TruthTableEvent;
 import com.cburch.logisim.analyze.model.TruthTableListener;
+import com.cburch.logisim.circuit.Analyze;
 import com.cburch.logisim.util.GraphicsUtil;
 
 class TableTab extends JPanel implements TruthTablePanel, TabInterface {
@@ -36,7 +43,42 @@ class TableTab extends JPanel implements TruthTablePanel, TabInterface {
 		}
 	}
 	
+	private class ProgressPanel extends JPanel
+			implements Analyze.TableProgress, ActionListener {
+		private JLabel label = new JLabel(Strings.get("tableComputingLabel"));
+		private JProgressBar bar = new JProgressBar();
+		private JButton cancel = new JButton(Strings.get("tableCancelButton"));
+		private volatile boolean cancelled = false;
+
+		ProgressPanel() {
+			bar.setStringPainted(true);
+			cancel.addActionListener(this);
+			add(label);
+			add(bar);
+			add(cancel);
+		}
+
+		public void rowsComputed(final int rowsDone, final int rowCount) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					bar.setMaximum(rowCount);
+					bar.setValue(rowsDone);
+				}
+			});
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		public void actionPerformed(ActionEvent event) {
+			cancelled = true;
+			cancel.setEnabled(false);
+		}
+	}
+	
 	private MyListener myListener = new MyListener();
+	private ProgressPanel progress = null;
 	private TruthTable table;
 	private int cellWidth = 25; // reasonable start values
 	private int cellHeight = 15;
@@ -68,6 +110,30 @@ class TableTab extends JPanel implements TruthTablePanel, TabInterface {
 		computePreferredSize();
 		repaint();
 	}
+
+	/** Replaces the table with a progress bar and a button for cancelling,
+	 * until endProgress is called with the returned object. Any earlier
+	 * computation still in progress is cancelled. */
+	public Analyze.TableProgress startProgress() {
+		if (progress != null) {
+			progress.cancelled = true;
+			remove(progress);
+		}
+		progress = new ProgressPanel();
+		add(progress);
+		revalidate();
+		repaint();
+		return progress;
+	}
+
+	public void endProgress(Analyze.TableProgress value) {
+		if (progress != null && progress == value) {
+			remove(progress);
+			progress = null;
+			revalidate();
+			repaint();
+		}
+	}
 	
 	public int getColumn(MouseEvent event) {
 		int x = event.getX() - (getWidth() - tableWidth) / 2;
@@ -121,6 +187,7 @@ class TableTab extends JPanel implements TruthTablePanel, TabInterface {
 	@Override
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
+		if (progress != null) return;
 		
 		caret.paintBackground(g);
 		
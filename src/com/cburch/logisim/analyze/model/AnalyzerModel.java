@@ -9,8 +9,10 @@ import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.proj.Project;
 
 public class AnalyzerModel {
-	public static final int MAX_INPUTS = 12;
+	public static final int MAX_INPUTS = 20;
 	public static final int MAX_OUTPUTS = 12;
+	// minimization grows exponentially, so larger tables have no minimal form
+	public static final int MAX_MINIMIZED_INPUTS = 12;
 	
 	public static final int FORMAT_SUM_OF_PRODUCTS = 0;
 	public static final int FORMAT_PRODUCT_OF_SUMS = 1;
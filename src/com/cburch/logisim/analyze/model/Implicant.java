@@ -144,6 +144,7 @@ public class Implicant implements Comparable<Implicant> {
 		TruthTable table = model.getTruthTable();
 		int column = model.getOutputs().indexOf(variable);
 		if (column < 0) return Collections.emptyList();
+		if (table.getInputColumnCount() > AnalyzerModel.MAX_MINIMIZED_INPUTS) return null;
 		
 		Entry desired = format == AnalyzerModel.FORMAT_SUM_OF_PRODUCTS
 			? Entry.ONE : Entry.ZERO;
@@ -17,34 +17,49 @@ public class OutputExpressions {
 		String exprString = null;
 		List<Implicant> minimalImplicants = null;
 		Expression minimalExpr = null;
+		// minimizing a large table is slow, so changes only mark the
+		// minimal form stale, and it is recomputed when next asked for
+		boolean stale = true;
 		
 		OutputData(String output) {
 			this.output = output;
-			invalidate(true, false);
+		}
+		
+		private void validate() {
+			if (stale) invalidate(true, false);
+		}
+		
+		private void markStale() {
+			stale = true;
+			fireModelChanged(OutputExpressionsEvent.OUTPUT_EXPRESSION, output);
+			fireModelChanged(OutputExpressionsEvent.OUTPUT_MINIMAL, output);
 		}
 		
 		boolean isExpressionMinimal() {
+			validate();
 			return expr == minimalExpr;
 		}
 		
 		Expression getExpression() {
+			validate();
 			return expr;
 		}
 		
 		String getExpressionString() {
+			validate();
 			if (exprString == null) {
-				if (expr == null) invalidate(false, false);
 				exprString = expr == null ? "" : expr.toString();
 			}
 			return exprString;
 		}
 		
 		Expression getMinimalExpression() {
-			if (minimalExpr == null) invalidate(false, false);
+			validate();
 			return minimalExpr;
 		}
 		
 		List<Implicant> getMinimalImplicants() {
+			validate();
 			return minimalImplicants;
 		}
 		
@@ -63,7 +78,7 @@ public class OutputExpressions {
 			expr = newExpr;
 			exprString = newExprString;
 
-			if (expr != minimalExpr) { // for efficiency to avoid recomputation
+			if (stale || expr != minimalExpr) { // for efficiency to avoid recomputation
 				Entry[] values = computeColumn(model.getTruthTable(), expr);
 				int outputColumn = model.getOutputs().indexOf(output);
 				updatingTable = true;
@@ -79,52 +94,35 @@ public class OutputExpressions {
 		}
 
 		private void removeInput(String input) {
-			Expression oldMinExpr = minimalExpr;
-			minimalImplicants = null;
-			minimalExpr = null;
-			
-			if (exprString != null) {
-				exprString = null; // invalidate it so it recomputes
-			}
+			exprString = null; // invalidate it so it recomputes
 			if (expr != null) {
-				Expression oldExpr = expr;
-				Expression newExpr;
-				if (oldExpr == oldMinExpr) {
-					newExpr = getMinimalExpression();
-					expr = newExpr;
-				} else {
-					newExpr = expr.removeVariable(input);
-				}
-				if (newExpr == null || !newExpr.equals(oldExpr)) {
-					expr = newExpr;
-					fireModelChanged(OutputExpressionsEvent.OUTPUT_EXPRESSION, output, expr);
-				}
+				// a minimal expression is replaced by the new minimal one
+				expr = expr == minimalExpr ? null : expr.removeVariable(input);
 			}
-			fireModelChanged(OutputExpressionsEvent.OUTPUT_MINIMAL, output, minimalExpr);
+			minimalImplicants = null;
+			minimalExpr = null;
+			markStale();
 		}
 		
 		private void replaceInput(String input, String newName) {
-			minimalExpr = null;
-
 			if (exprString != null) {
 				exprString = Parser.replaceVariable(exprString, input, newName);
 			}
-			if (expr != null) {
-				Expression newExpr = expr.replaceVariable(input, newName);
-				if (!newExpr.equals(expr)) {
-					expr = newExpr;
-					fireModelChanged(OutputExpressionsEvent.OUTPUT_EXPRESSION, output);
-				}
-			} else {
-				fireModelChanged(OutputExpressionsEvent.OUTPUT_EXPRESSION, output);
+			if (expr != null && expr == minimalExpr) {
+				// recomputed with the new name, so it stays minimal
+				expr = null;
+				exprString = null;
+			} else if (expr != null) {
+				expr = expr.replaceVariable(input, newName);
 			}
-			fireModelChanged(OutputExpressionsEvent.OUTPUT_MINIMAL, output);
+			markStale();
 		}
 	
 		private boolean invalidating = false;
 		private void invalidate(boolean initializing, boolean formatChanged) {
 			if (invalidating) return;
 			invalidating = true;
+			stale = false;
 			try {
 				List<Implicant> oldImplicants = minimalImplicants;
 				Expression oldMinExpr = minimalExpr;
@@ -190,7 +188,7 @@ public class OutputExpressions {
 			} else if (type == VariableListEvent.MOVE || type == VariableListEvent.ADD) {
 				for (String output : outputData.keySet()) {
 					OutputData data = getOutputData(output, false);
-					if (data != null) data.invalidate(false, false);
+					if (data != null) data.markStale();
 				}
 			}
 		}
@@ -216,7 +214,8 @@ public class OutputExpressions {
 
 		public void cellsChanged(TruthTableEvent event) {
 			String output = model.getOutputs().get(event.getColumn());
-			invalidate(output, false);
+			OutputData data = getOutputData(output, false);
+			if (data != null) data.markStale();
 		}
 
 		public void structureChanged(TruthTableEvent event) {
@@ -343,9 +342,13 @@ public class OutputExpressions {
 		} else {
 			Assignments assn = new Assignments();
 			for (int i = 0; i < rows; i++) {
+				// only the inputs whose bits differ from the previous row
+				int changed = i == 0 ? rows - 1 : i ^ (i - 1);
 				for (int j = 0; j < cols; j++) {
-					assn.put(table.getInputHeader(j),
-							TruthTable.isInputSet(i, j, cols));
+					if (TruthTable.isInputSet(changed, j, cols)) {
+						assn.put(table.getInputHeader(j),
+								TruthTable.isInputSet(i, j, cols));
+					}
 				}
 				values[i] = expr.evaluate(assn) ? Entry.ONE : Entry.ZERO;
 			}
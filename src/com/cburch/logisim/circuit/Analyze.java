@@ -12,6 +12,11 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.cburch.logisim.analyze.model.AnalyzerModel;
 import com.cburch.logisim.analyze.model.Entry;
@@ -299,62 +304,154 @@ public class Analyze {
 	//
 	// ComputeTable
 	//
+	/** Receives the progress of a truth table computation, and can cancel
+	 * it. Its methods are called from the threads computing the rows. */
+	public static interface TableProgress {
+		public void rowsComputed(int rowsDone, int rowCount);
+		public boolean isCancelled();
+	}
+
+	// rows a worker claims at a time
+	private static final int TABLE_CHUNK = 64;
+
 	/** Returns a truth table corresponding to the circuit. */
 	public static void computeTable(AnalyzerModel model, Project proj,
 			Circuit circuit, Map<Instance, String> pinLabels) {
-		ArrayList<Instance> inputPins = new ArrayList<Instance>();
-		ArrayList<String> inputNames = new ArrayList<String>();
-		ArrayList<Instance> outputPins = new ArrayList<Instance>();
-		ArrayList<String> outputNames = new ArrayList<String>();
-		for (Map.Entry<Instance, String> entry : pinLabels.entrySet()) {
-			Instance pin = entry.getKey();
+		CircuitState[] states = createTableStates(proj, circuit, pinLabels);
+		Entry[][] columns = computeTableColumns(states, pinLabels, null);
+		setTableColumns(model, pinLabels, columns);
+	}
+
+	/** Creates the circuit states in which computeTableColumns simulates
+	 * the rows, one per worker thread. Creating a state registers a
+	 * listener with the project's options, which are not thread-safe, so
+	 * this should be called from the thread that owns the project. */
+	public static CircuitState[] createTableStates(Project proj,
+			Circuit circuit, Map<Instance, String> pinLabels) {
+		int inputCount = 0;
+		for (Instance pin : pinLabels.keySet()) {
+			if (Pin.FACTORY.isInputPin(pin)) inputCount++;
+		}
+		int rowCount = 1 << inputCount;
+		int workers = Math.min(Runtime.getRuntime().availableProcessors(),
+				(rowCount + TABLE_CHUNK - 1) / TABLE_CHUNK);
+		CircuitState[] states = new CircuitState[workers];
+		for (int i = 0; i < workers; i++) {
+			states[i] = new CircuitState(proj, circuit);
+		}
+		return states;
+	}
+
+	/** Computes the output columns of the circuit's truth table, with the
+	 * rows split among several threads, each simulating them in one of
+	 * the given circuit states, which it resets between rows. Returns
+	 * null if the computation is cancelled. */
+	public static Entry[][] computeTableColumns(CircuitState[] states,
+			Map<Instance, String> pinLabels, final TableProgress progress) {
+		final ArrayList<Instance> inputPins = new ArrayList<Instance>();
+		final ArrayList<Instance> outputPins = new ArrayList<Instance>();
+		for (Instance pin : pinLabels.keySet()) {
 			if (Pin.FACTORY.isInputPin(pin)) {
 				inputPins.add(pin);
-				inputNames.add(entry.getValue());
 			} else {
 				outputPins.add(pin);
-				outputNames.add(entry.getValue());
 			}
 		}
 		
-		int inputCount = inputPins.size();
-		int rowCount = 1 << inputCount;
-		Entry[][] columns = new Entry[outputPins.size()][rowCount];
+		final int rowCount = 1 << inputPins.size();
+		final Entry[][] columns = new Entry[outputPins.size()][rowCount];
+		final AtomicInteger nextRow = new AtomicInteger(0);
+		final AtomicInteger rowsDone = new AtomicInteger(0);
 		
-		for (int i = 0; i < rowCount; i++) {
-			CircuitState circuitState = new CircuitState(proj, circuit);
-			for (int j = 0; j < inputCount; j++) {
-				Instance pin = inputPins.get(j);
-				InstanceState pinState = circuitState.getInstanceState(pin);
-				boolean value = TruthTable.isInputSet(i, j, inputCount);
-				Pin.FACTORY.setValue(pinState, value ? Value.TRUE : Value.FALSE);
-			}
-			
-			Propagator prop = circuitState.getPropagator();
-			prop.propagate();
-			/* TODO for the SimulatorPrototype class
-			do {
-				prop.step();
-			} while (prop.isPending()); */
-			// TODO: Search for circuit state
-			
-			if (prop.isOscillating()) {
-				for (int j = 0; j < columns.length; j++) {
-					columns[j][i] = Entry.OSCILLATE_ERROR;
+		ExecutorService pool = Executors.newFixedThreadPool(states.length);
+		ArrayList<Future<?>> results = new ArrayList<Future<?>>();
+		for (final CircuitState state : states) {
+			results.add(pool.submit(new Runnable() {
+				public void run() {
+					computeRows(state, inputPins, outputPins, columns,
+							rowCount, nextRow, rowsDone, progress);
 				}
-			} else {
-				for (int j = 0; j < columns.length; j++) {
-					Instance pin = outputPins.get(j);
+			}));
+		}
+		pool.shutdown();
+		try {
+			for (Future<?> result : results) result.get();
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			return null;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+		if (progress != null && progress.isCancelled()) return null;
+		return columns;
+	}
+
+	private static void computeRows(CircuitState circuitState,
+			ArrayList<Instance> inputPins, ArrayList<Instance> outputPins,
+			Entry[][] columns, int rowCount, AtomicInteger nextRow,
+			AtomicInteger rowsDone, TableProgress progress) {
+		int inputCount = inputPins.size();
+		Propagator prop = circuitState.getPropagator();
+		boolean fresh = true;
+		while (progress == null || !progress.isCancelled()) {
+			int first = nextRow.getAndAdd(TABLE_CHUNK);
+			if (first >= rowCount) break;
+			int last = Math.min(rowCount, first + TABLE_CHUNK);
+			for (int i = first; i < last; i++) {
+				if (!fresh) prop.reset();
+				fresh = false;
+				for (int j = 0; j < inputCount; j++) {
+					Instance pin = inputPins.get(j);
 					InstanceState pinState = circuitState.getInstanceState(pin);
-					Entry out;
-					Value outValue = Pin.FACTORY.getValue(pinState).get(0);
-					if (outValue == Value.TRUE) out = Entry.ONE;
-					else if (outValue == Value.FALSE) out = Entry.ZERO;
-					else if (outValue == Value.ERROR) out = Entry.BUS_ERROR;
-					else out = Entry.DONT_CARE;
-					columns[j][i] = out;
+					boolean value = TruthTable.isInputSet(i, j, inputCount);
+					Pin.FACTORY.setValue(pinState, value ? Value.TRUE : Value.FALSE);
+				}
+				
+				prop.propagate();
+				/* TODO for the SimulatorPrototype class
+				do {
+					prop.step();
+				} while (prop.isPending()); */
+				// TODO: Search for circuit state
+				
+				if (prop.isOscillating()) {
+					for (int j = 0; j < columns.length; j++) {
+						columns[j][i] = Entry.OSCILLATE_ERROR;
+					}
+				} else {
+					for (int j = 0; j < columns.length; j++) {
+						Instance pin = outputPins.get(j);
+						InstanceState pinState = circuitState.getInstanceState(pin);
+						Entry out;
+						Value outValue = Pin.FACTORY.getValue(pinState).get(0);
+						if (outValue == Value.TRUE) out = Entry.ONE;
+						else if (outValue == Value.FALSE) out = Entry.ZERO;
+						else if (outValue == Value.ERROR) out = Entry.BUS_ERROR;
+						else out = Entry.DONT_CARE;
+						columns[j][i] = out;
+					}
 				}
 			}
+			int done = rowsDone.addAndGet(last - first);
+			if (progress != null) progress.rowsComputed(done, rowCount);
+		}
+	}
+
+	/** Places columns computed by computeTableColumns into the model's
+	 * truth table. */
+	public static void setTableColumns(AnalyzerModel model,
+			Map<Instance, String> pinLabels, Entry[][] columns) {
+		ArrayList<String> inputNames = new ArrayList<String>();
+		ArrayList<String> outputNames = new ArrayList<String>();
+		for (Map.Entry<Instance, String> entry : pinLabels.entrySet()) {
+			if (Pin.FACTORY.isInputPin(entry.getKey())) {
+				inputNames.add(entry.getValue());
+			} else {
+				outputNames.add(entry.getValue());
+			}
 		}
 		
 		model.setVariables(inputNames, outputNames);
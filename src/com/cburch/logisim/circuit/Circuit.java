@@ -73,6 +73,8 @@ public class Circuit {
 		public void endChanged(ComponentEvent e) {
 			locker.checkForWritePermission("ends changed");
 			Component comp = e.getSource();
+			endIds.remove(comp);
+			endIds.add(comp);
 			HashMap<Location,EndData> toRemove = toMap(e.getOldData());
 			HashMap<Location,EndData> toAdd = toMap(e.getData());
 			EndChangedTransaction xn = new EndChangedTransaction(comp, toRemove, toAdd);
@@ -113,6 +115,7 @@ public class Circuit {
 	private HashSet<Component> comps = new HashSet<Component>(); // doesn't include wires
 	CircuitWires wires = new CircuitWires();
 		// wires is package-protected for CircuitState and Analyze only.
+	private ComponentEndIds endIds = new ComponentEndIds();
 	private ArrayList<Component> clocks = new ArrayList<Component>();
 	private CircuitLocker locker;
 	private WeakHashMap<Component, Circuit> circuitsUsingThis;
@@ -139,6 +142,7 @@ public class Circuit {
 		Set<Component> oldComps = comps;
 		comps = new HashSet<Component>();
 		wires = new CircuitWires();
+		endIds.clear();
 		clocks.clear();
 		for (Component comp : oldComps) {
 			if (comp.getFactory() instanceof SubcircuitFactory) {
@@ -206,6 +210,14 @@ public class Circuit {
 		return wires.getWidthDeterminant(p);
 	}
 	
+	int getEndIdCount() {
+		return endIds.size();
+	}
+	
+	int getEndIdEpoch() {
+		return endIds.getEpoch();
+	}
+
 	public boolean hasConflict(Component comp) {
 		return wires.points.hasConflict(comp);
 	}
@@ -386,6 +398,7 @@ public class Circuit {
 			if (!added) return;
 
 			wires.add(c);
+			endIds.add(c);
 			ComponentFactory factory = c.getFactory();
 			if (factory instanceof Clock) {
 				clocks.add(c);
@@ -407,6 +420,7 @@ public class Circuit {
 		} else {
 			wires.remove(c);
 			comps.remove(c);
+			endIds.remove(c);
 			ComponentFactory factory = c.getFactory();
 			if (factory instanceof Clock) {
 				clocks.remove(c);
@@ -195,7 +195,7 @@ class CircuitChange {
 			return false;
 		case SET:
 			return comp.getFactory() instanceof Pin
-				&& (attr == StdAttr.WIDTH || attr == Pin.ATTR_TYPE);
+				&& (attr == StdAttr.WIDE_WIDTH || attr == Pin.ATTR_TYPE);
 		default:
 			return false;
 		}
@@ -14,6 +14,7 @@ import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.EndData;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.LocationMap;
 
 class CircuitPoints {
 	private static class LocationData {
@@ -23,8 +24,8 @@ class CircuitPoints {
 		// these lists are parallel - ends corresponding to wires are null
 	}
 
-	private HashMap<Location,LocationData> map
-		= new HashMap<Location,LocationData>();
+	private LocationMap<LocationData> map
+		= new LocationMap<LocationData>();
 	private HashMap<Location,WidthIncompatibilityData> incompatibilityData
 		= new HashMap<Location,WidthIncompatibilityData>();
 
@@ -17,6 +17,7 @@ import com.cburch.logisim.comp.ComponentDrawContext;
 import com.cburch.logisim.comp.ComponentState;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.LocationMap;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceData;
@@ -66,6 +67,7 @@ public class CircuitState implements InstanceData {
 				wireData = null;
 				componentData.clear();
 				values.clear();
+				netState = null;
 				dirtyComponents.clear();
 				dirtyPoints.clear();
 				causes.clear();
@@ -127,10 +129,13 @@ public class CircuitState implements InstanceData {
 
 	private CircuitWires.State wireData = null;
 	private HashMap<Component,Object> componentData = new HashMap<Component,Object>();
-	private Map<Location,Value> values = new HashMap<Location,Value>();
+	private LocationMap<Value> values = new LocationMap<Value>();
+	private CompiledNetlist.State netState = null; // replaces values when compiled
 	private SmallSet<Component> dirtyComponents = new SmallSet<Component>();
 	private SmallSet<Location> dirtyPoints = new SmallSet<Location>();
-	HashMap<Location,SetData> causes = new HashMap<Location,SetData>();
+	LocationMap<SetData> causes = new LocationMap<SetData>();
+	int[] endStamps = null; // Propagator's step in which each end was last handled
+	int endStampEpoch = 0; // circuit's end identifier epoch for endStamps
 
 	private static int lastId = 0;
 	private int id = lastId++;
@@ -191,15 +196,16 @@ public class CircuitState implements InstanceData {
 				this.componentData.put(key, newValue);
 			}
 		}
-		for (Location key : src.causes.keySet()) {
-			Propagator.SetData oldValue = src.causes.get(key);
-			Propagator.SetData newValue = oldValue.cloneFor(this);
-			this.causes.put(key, newValue);
+		for (Map.Entry<Location,SetData> entry : src.causes.entrySet()) {
+			this.causes.put(entry.getKey(), entry.getValue().cloneFor(this));
 		}
 		if (src.wireData != null) {
 			this.wireData = (CircuitWires.State) src.wireData.clone();
 		}
 		this.values.putAll(src.values);
+		if (src.netState != null) {
+			this.netState = src.netState.clone();
+		}
 		this.dirtyComponents.addAll(src.dirtyComponents);
 		this.dirtyPoints.addAll(src.dirtyPoints);
 	}
@@ -258,6 +264,7 @@ public class CircuitState implements InstanceData {
 					// this is the first time I've heard about this CircuitState
 					substates.add(newState);
 					newState.base = this.base;
+					newState.clearEndStamps();
 					newState.parentState = this;
 					newState.parentComp = comp;
 					newState.markAllComponentsDirty();
@@ -268,7 +275,8 @@ public class CircuitState implements InstanceData {
 	}
 
 	public Value getValue(Location pt) {
-		Value ret = values.get(pt);
+		CompiledNetlist.State net = netState;
+		Value ret = net != null ? net.getValue(pt) : values.get(pt);
 		if (ret != null) return ret;
 
 		BitWidth wid = circuit.getWidth(pt);
@@ -276,7 +284,15 @@ public class CircuitState implements InstanceData {
 	}
 
 	public void setValue(Location pt, Value val, Component cause, int delay) {
-		if (base != null) base.setValue(this, pt, val, cause, delay);
+		if (base != null) base.setValue(this, pt, val, cause, delay, -1);
+	}
+
+	/** Sets the value that cause emits at pt, which is cause's end with the
+	 * given index. Knowing the index spares the propagator from identifying
+	 * the end by its location. */
+	public void setValue(Location pt, Value val, Component cause, int delay,
+			int endIndex) {
+		if (base != null) base.setValue(this, pt, val, cause, delay, endIndex);
 	}
 
 	public void markComponentAsDirty(Component comp) {
@@ -355,15 +371,32 @@ public class CircuitState implements InstanceData {
 		}
 
 		CircuitState[] subs = new CircuitState[substates.size()];
-		for (CircuitState substate : substates.toArray(subs)) {
-			substate.processDirtyComponents();
+		subs = substates.toArray(subs);
+		if (subs.length > 1 && base != null && base.canProcessInParallel(subs, false)) {
+			base.processInParallel(subs, false);
+		} else {
+			for (CircuitState substate : subs) {
+				substate.processDirtyComponents();
+			}
 		}
 	}
 
 	void processDirtyPoints() {
 		HashSet<Location> dirty = new HashSet<Location>(dirtyPoints);
 		dirtyPoints.clear();
-		if (circuit.wires.isMapVoided()) {
+		boolean compiled = base != null && base.isCompiled();
+		boolean switched = compiled != (netState != null);
+		if (switched) {
+			if (compiled) {
+				netState = circuit.wires.getCompiledNetlist().createState(values);
+				values.clear();
+			} else {
+				netState.copyTo(values);
+				netState = null;
+			}
+			wireData = null;
+		}
+		if (switched || circuit.wires.isMapVoided()) {
 			for (int i = 3; i >= 0; i--) {
 				try {
 					dirty.addAll(circuit.wires.points.getSplitLocations());
@@ -376,15 +409,35 @@ public class CircuitState implements InstanceData {
 			}
 		}
 		if (!dirty.isEmpty()) {
-			circuit.wires.propagate(this, dirty);
+			if (compiled) {
+				circuit.wires.propagateCompiled(this, dirty);
+			} else {
+				circuit.wires.propagate(this, dirty);
+			}
 		}
 
 		CircuitState[] subs = new CircuitState[substates.size()];
-		for (CircuitState substate : substates.toArray(subs)) {
-			substate.processDirtyPoints();
+		subs = substates.toArray(subs);
+		if (subs.length > 1 && base != null && base.canProcessInParallel(subs, true)) {
+			base.processInParallel(subs, true);
+		} else {
+			for (CircuitState substate : subs) {
+				substate.processDirtyPoints();
+			}
 		}
 	}
 	
+	/** Counts the dirty points (or dirty components) of this state and its
+	 * substates, stopping once the count reaches <code>limit</code>. */
+	int countDirty(boolean points, int limit) {
+		int n = points ? dirtyPoints.size() : dirtyComponents.size();
+		for (CircuitState sub : substates) {
+			if (n >= limit) break;
+			n += sub.countDirty(points, limit - n);
+		}
+		return n;
+	}
+
 	void reset() {
 		wireData = null;
 		for (Iterator<Component> it = componentData.keySet().iterator(); it.hasNext(); ) {
@@ -392,6 +445,7 @@ public class CircuitState implements InstanceData {
 			if (!(comp.getFactory() instanceof SubcircuitFactory)) it.remove();
 		}
 		values.clear();
+		netState = null;
 		dirtyComponents.clear();
 		dirtyPoints.clear();
 		causes.clear();
@@ -415,6 +469,23 @@ public class CircuitState implements InstanceData {
 		return ret;
 	}
 
+	int[] growEndStamps(int endId) {
+		int len = Math.max(endId + 1, circuit.getEndIdCount());
+		int[] ret = new int[len + len / 2 + 8];
+		if (endStamps != null) {
+			System.arraycopy(endStamps, 0, ret, 0, endStamps.length);
+		}
+		endStamps = ret;
+		return ret;
+	}
+	
+	void clearEndStamps() {
+		endStamps = null;
+		for (CircuitState sub : substates) {
+			sub.clearEndStamps();
+		}
+	}
+
 	CircuitWires.State getWireData() {
 		return wireData;
 	}
@@ -429,12 +500,26 @@ public class CircuitState implements InstanceData {
 		return Propagator.computeValue(cause_list);
 	}
 
+	CompiledNetlist.State getNetState() {
+		return netState;
+	}
+	
+	void setNetState(CompiledNetlist.State value) {
+		netState = value;
+	}
+
 	Value getValueByWire(Location p) {
-		return values.get(p);
+		CompiledNetlist.State net = netState;
+		return net != null ? net.getValue(p) : values.get(p);
 	}
 
 	void setValueByWire(Location p, Value v) {
 		// for CircuitWires - to set value at point
+		CompiledNetlist.State net = netState;
+		if (net != null) {
+			net.getNetlist().setValue(this, net, p, v);
+			return;
+		}
 		boolean changed;
 		if (v == Value.NIL) {
 			Object old = values.remove(p);
@@ -458,6 +543,14 @@ public class CircuitState implements InstanceData {
 		}
 	}
 
+	void netValueChanged(Location p, Component[] fanout) {
+		// for CompiledNetlist - the value at p has changed
+		for (Component comp : fanout) {
+			markComponentAsDirty(comp);
+		}
+		if (fanout.length > 0 && base != null) base.locationTouched(this, p);
+	}
+
 	//
 	// private methods
 	// 
@@ -22,6 +22,7 @@ import com.cburch.logisim.data.AttributeListener;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Bounds;
 import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.LocationMap;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.StdAttr;
@@ -78,12 +79,13 @@ class CircuitWires {
 
 	static class BundleMap {
 		boolean computed = false;
-		HashMap<Location,WireBundle> pointBundles = new HashMap<Location,WireBundle>();
+		LocationMap<WireBundle> pointBundles = new LocationMap<WireBundle>();
 		HashSet<WireBundle> bundles = new HashSet<WireBundle>();
 		boolean isValid = true;
 		// NOTE: It would make things more efficient if we also had
 		// a set of just the first bundle in each tree.
 		HashSet<WidthIncompatibilityData> incompatibilityData = null;
+		CompiledNetlist netlist = null;
 
 		HashSet<WidthIncompatibilityData> getWidthIncompatibilityData() {
 			return incompatibilityData;
@@ -155,6 +157,14 @@ class CircuitWires {
 	private Bounds bounds = Bounds.EMPTY_BOUNDS;
 	private BundleMap bundleMap = null;
 
+	// for updating the bundle map incrementally: the last map computed,
+	// the points whose connections have changed since, and the tunnel
+	// labels and pull values that the last map was based on
+	private BundleMap lastMap = null;
+	private HashSet<Location> changedPoints = new HashSet<Location>();
+	private HashMap<Component,String> tunnelLabels = new HashMap<Component,String>();
+	private HashMap<Component,Value> pullValues = new HashMap<Component,Value>();
+
 	CircuitWires() { }
 
 	//
@@ -229,8 +239,9 @@ class CircuitWires {
 	//
 	// action methods
 	//
-	// NOTE: this could be made much more efficient in most cases to
-	// avoid voiding the bundle map.
+	// Each change records the points it affects, so that the next bundle
+	// map can be derived from the last one by regrouping only the bundles
+	// at those points.
 	boolean add(Component comp) {
 		boolean added = true;
 		if (comp instanceof Wire) {
@@ -249,7 +260,7 @@ class CircuitWires {
 		}
 		if (added) {
 			points.add(comp);
-			voidBundleMap();
+			voidBundleMap(comp);
 		}
 		return added;
 	}
@@ -270,23 +281,24 @@ class CircuitWires {
 			}
 		}
 		points.remove(comp);
-		voidBundleMap();
+		voidBundleMap(comp);
 	}
 	
 	void add(Component comp, EndData end) {
 		points.add(comp, end);
-		voidBundleMap();
+		voidBundleMap(end.getLocation());
 	}
 	
 	void remove(Component comp, EndData end) {
 		points.remove(comp, end);
-		voidBundleMap();
+		voidBundleMap(end.getLocation());
 	}
 	
 	void replace(Component comp, EndData oldEnd, EndData newEnd) {
 		points.remove(comp, oldEnd);
 		points.add(comp, newEnd);
-		voidBundleMap();
+		voidBundleMap(oldEnd.getLocation());
+		voidBundleMap(newEnd.getLocation());
 	}
 
 	private boolean addWire(Wire w) {
@@ -398,6 +410,25 @@ class CircuitWires {
 		}
 	}
 
+	CompiledNetlist getCompiledNetlist() {
+		BundleMap map = getBundleMap();
+		synchronized (map) {
+			if (map.netlist == null) map.netlist = new CompiledNetlist(map, points);
+			return map.netlist;
+		}
+	}
+	
+	void propagateCompiled(CircuitState circState, Set<Location> points) {
+		CompiledNetlist netlist = getCompiledNetlist();
+		CompiledNetlist.State s = circState.getNetState();
+		if (s == null || s.getNetlist() != netlist) {
+			// the circuit has changed: renumber the values known so far
+			s = netlist.createState(s);
+			circState.setNetState(s);
+		}
+		netlist.propagate(circState, s, points);
+	}
+
 	void draw(ComponentDrawContext context, Collection<Component> hidden) {
 		boolean showState = context.getShowState();
 		CircuitState state = context.getCircuitState();
@@ -513,6 +544,28 @@ class CircuitWires {
 		bundleMap = null;
 	}
 
+	private void voidBundleMap(Location loc) {
+		synchronized (changedPoints) {
+			changedPoints.add(loc);
+		}
+		bundleMap = null;
+	}
+
+	private void voidBundleMap(Component comp) {
+		synchronized (changedPoints) {
+			if (comp instanceof Wire) {
+				Wire w = (Wire) comp;
+				changedPoints.add(w.e0);
+				changedPoints.add(w.e1);
+			} else {
+				for (EndData end : comp.getEnds()) {
+					if (end != null) changedPoints.add(end.getLocation());
+				}
+			}
+		}
+		bundleMap = null;
+	}
+
 	private BundleMap getBundleMap() {
 		// Maybe we already have a valid bundle map (or maybe
 		// one is in progress).
@@ -521,30 +574,57 @@ class CircuitWires {
 			ret.waitUntilComputed();
 			return ret;
 		}
-		try {
-			// Ok, we have to create our own.
-			for (int tries = 4; tries >= 0; tries--) {
-				try {
-					ret = new BundleMap();
-					computeBundleMap(ret);
-					bundleMap = ret;
-					break;
-				} catch (Throwable t) {
-					if (tries == 0) {
-						t.printStackTrace();
+		synchronized (this) {
+			// states processed in parallel may all find the map missing;
+			// only the first of them should compute it.
+			ret = bundleMap;
+			if (ret != null) {
+				ret.waitUntilComputed();
+				return ret;
+			}
+			HashSet<Location> changed;
+			synchronized (changedPoints) {
+				changed = new HashSet<Location>(changedPoints);
+				changedPoints.clear();
+			}
+			BundleMap base = lastMap;
+			lastMap = null;
+			try {
+				// Ok, we have to create our own, starting from the last map
+				// if only a few points have changed since it was computed.
+				if (base != null && changed.size() > 64
+						&& changed.size() > base.pointBundles.size() / 8) {
+					base = null;
+				}
+				for (int tries = 4; tries >= 0; tries--) {
+					try {
+						ret = new BundleMap();
+						if (base != null) {
+							updateBundleMap(ret, base, changed);
+						} else {
+							computeBundleMap(ret);
+						}
 						bundleMap = ret;
+						lastMap = ret;
+						break;
+					} catch (Throwable t) {
+						base = null; // try again from scratch
+						if (tries == 0) {
+							t.printStackTrace();
+							bundleMap = ret;
+						}
 					}
 				}
+			} catch (RuntimeException ex) {
+				ret.invalidate();
+				ret.markComputed();
+				throw ex;
+			} finally {
+				// Mark the BundleMap as computed in case anybody is waiting for the result.
+				ret.markComputed();
 			}
-		} catch (RuntimeException ex) {
-			ret.invalidate();
-			ret.markComputed();
-			throw ex;
-		} finally {
-			// Mark the BundleMap as computed in case anybody is waiting for the result.
-			ret.markComputed();
+			return ret;
 		}
-		return ret;
 	}
 
 	// To be called by getBundleMap only
@@ -605,36 +685,138 @@ class CircuitWires {
 
 		// unite threads going through splitters
 		for (Splitter spl : splitters) {
-			synchronized(spl) {
-				SplitterAttributes spl_attrs = (SplitterAttributes) spl.getAttributeSet();
-				byte[] bit_end = spl_attrs.bit_end;
-				SplitterData spl_data = spl.wire_data;
-				WireBundle from_bundle = spl_data.end_bundle[0];
-				if (from_bundle == null || !from_bundle.isValid()) continue;
+			uniteSplitterThreads(spl);
+		}
+
+		// merge any threads united by previous step
+		for (WireBundle b : ret.getBundles()) {
+			if (b.isValid() && b.threads != null) {
+				for (int i = 0; i < b.threads.length; i++) {
+					WireThread thr = b.threads[i].find();
+					b.threads[i] = thr;
+					thr.getBundles().add(new ThreadBundle(i, b));
+				}
+			}
+		}
+
+		// All threads are sewn together! Compute the exception set before leaving
+		Collection<WidthIncompatibilityData> exceptions = points.getWidthIncompatibilityData();
+		if (exceptions != null && exceptions.size() > 0) {
+			for (WidthIncompatibilityData wid : exceptions) {
+				ret.addWidthIncompatibilityData(wid);
+			}
+		}
+		for (WireBundle b : ret.getBundles()) {
+			WidthIncompatibilityData e = b.getWidthIncompatibilityData();
+			if (e != null) ret.addWidthIncompatibilityData(e);
+		}
+	}
 	
-				for (int i = 0; i < bit_end.length; i++) {
-					int j = bit_end[i];
-					if (j > 0) {
-						int thr = spl.bit_thread[i];
-						WireBundle to_bundle = spl_data.end_bundle[j];
-						WireThread[] to_threads = to_bundle.threads;
-						if (to_threads != null && to_bundle.isValid()) {
-							WireThread[] from_threads = from_bundle.threads;
-							if (i >= from_threads.length) {
-								throw new ArrayIndexOutOfBoundsException("from " + i + " of " + from_threads.length);
-							}
-							if (thr >= to_threads.length) {
-								throw new ArrayIndexOutOfBoundsException("to " + thr + " of " + to_threads.length);
+	// To be called by getBundleMap only. Derives the map from the last one
+	// computed: the bundles at changed points, and any they now join, are
+	// regrouped, and threads are rebuilt for the bundles linked to those by
+	// splitters. All other bundles are shared with the last map.
+	private void updateBundleMap(BundleMap ret, BundleMap old,
+			HashSet<Location> changed) {
+		HashMap<String,ArrayList<Location>> tunnelSets = findTunnelSets(changed);
+		findPullValues(changed);
+		for (Splitter spl : splitters) {
+			if (spl.wire_data.end_bundle[0] == null) { // reconfigured
+				for (EndData end : spl.getEnds()) changed.add(end.getLocation());
+			}
+		}
+
+		ret.pointBundles.putAll(old.pointBundles);
+		ret.bundles.addAll(old.bundles);
+
+		// the bundles at changed points may have split: all their points
+		// must be regrouped
+		HashSet<WireBundle> dropped = new HashSet<WireBundle>();
+		ArrayList<Location> regroup = new ArrayList<Location>(changed);
+		for (Location p : changed) {
+			WireBundle b = old.getBundleAt(p);
+			if (b != null && dropped.add(b)) regroup.addAll(b.points);
+		}
+		for (Location p : regroup) ret.pointBundles.remove(p);
+		ret.bundles.removeAll(dropped);
+
+		// group the points into bundles, dropping any old bundle that a
+		// group reaches as it has merged with it
+		HashSet<WireBundle> created = new HashSet<WireBundle>();
+		for (Location p : regroup) {
+			if (ret.getBundleAt(p) == null && isBundlePoint(p)) {
+				ArrayList<Location> group = new ArrayList<Location>();
+				WireBundle b = new WireBundle();
+				ret.setBundleAt(p, b);
+				group.add(p);
+				for (int i = 0; i < group.size(); i++) {
+					Location q = group.get(i);
+					for (Wire w : points.getWires(q)) {
+						Location r = w.e0.equals(q) ? w.e1 : w.e0;
+						addToGroup(ret, b, r, group, dropped);
+					}
+					for (Component comp : points.getComponents(q)) {
+						String label = tunnelLabels.get(comp);
+						if (label != null && !label.equals("")) {
+							for (Location r : tunnelSets.get(label)) {
+								addToGroup(ret, b, r, group, dropped);
 							}
-							from_threads[i].unite(to_threads[thr]);
 						}
 					}
 				}
+				setupBundle(ret, b, group);
+				created.add(b);
 			}
 		}
 
-		// merge any threads united by previous step
-		for (WireBundle b : ret.getBundles()) {
+		// find the bundles whose threads are linked through splitters to
+		// those of the regrouped bundles, either before or after the change
+		HashSet<WireBundle> rethread = new HashSet<WireBundle>(created);
+		ArrayList<WireBundle> queue = new ArrayList<WireBundle>(created);
+		HashSet<Splitter> linking = new HashSet<Splitter>();
+		for (WireBundle b : dropped) {
+			addThreadLinks(ret, b, rethread, queue);
+		}
+		while (!queue.isEmpty()) {
+			WireBundle b = queue.remove(queue.size() - 1);
+			if (!created.contains(b)) addThreadLinks(ret, b, rethread, queue);
+			for (Location p : b.points) {
+				for (Component comp : points.getComponents(p)) {
+					if (comp instanceof Splitter && linking.add((Splitter) comp)) {
+						for (EndData end : comp.getEnds()) {
+							WireBundle eb = ret.getBundleAt(end.getLocation());
+							if (eb != null && rethread.add(eb)) queue.add(eb);
+						}
+					}
+				}
+			}
+		}
+
+		// the last map still uses the threads of the bundles kept from it,
+		// so those must be replaced rather than rethreaded
+		for (WireBundle b : rethread) {
+			if (!created.contains(b)) {
+				ArrayList<Location> group = new ArrayList<Location>();
+				WireBundle copy = new WireBundle();
+				for (Location p : b.points) {
+					ret.setBundleAt(p, copy);
+					group.add(p);
+				}
+				ret.bundles.remove(b);
+				setupBundle(ret, copy, group);
+				created.add(copy);
+			}
+		}
+
+		for (Splitter spl : linking) {
+			int index = -1;
+			for (EndData end : spl.getEnds()) {
+				index++;
+				spl.wire_data.end_bundle[index] = ret.getBundleAt(end.getLocation());
+			}
+			uniteSplitterThreads(spl);
+		}
+		for (WireBundle b : created) {
 			if (b.isValid() && b.threads != null) {
 				for (int i = 0; i < b.threads.length; i++) {
 					WireThread thr = b.threads[i].find();
@@ -644,7 +826,6 @@ class CircuitWires {
 			}
 		}
 
-		// All threads are sewn together! Compute the exception set before leaving
 		Collection<WidthIncompatibilityData> exceptions = points.getWidthIncompatibilityData();
 		if (exceptions != null && exceptions.size() > 0) {
 			for (WidthIncompatibilityData wid : exceptions) {
@@ -656,6 +837,91 @@ class CircuitWires {
 			if (e != null) ret.addWidthIncompatibilityData(e);
 		}
 	}
+
+	// Whether computeBundleMap would place the point in a bundle.
+	private boolean isBundlePoint(Location p) {
+		if (!points.getWires(p).isEmpty()) return true;
+		for (Component comp : points.getComponents(p)) {
+			if (comp instanceof Splitter || pullValues.containsKey(comp)) {
+				return true;
+			}
+			String label = tunnelLabels.get(comp);
+			if (label != null && !label.equals("")) return true;
+		}
+		return false;
+	}
+
+	private void addToGroup(BundleMap ret, WireBundle b, Location p,
+			ArrayList<Location> group, HashSet<WireBundle> dropped) {
+		WireBundle pb = ret.getBundleAt(p);
+		if (pb == b) return;
+		if (pb != null && dropped.add(pb)) ret.bundles.remove(pb);
+		ret.setBundleAt(p, b);
+		group.add(p);
+	}
+
+	// Adds the bundles sharing threads with b in the last map.
+	private void addThreadLinks(BundleMap ret, WireBundle b,
+			HashSet<WireBundle> rethread, ArrayList<WireBundle> queue) {
+		if (b.threads == null) return;
+		for (WireThread t : b.threads) {
+			for (ThreadBundle tb : t.getBundles()) {
+				if (ret.bundles.contains(tb.b) && rethread.add(tb.b)) {
+					queue.add(tb.b);
+				}
+			}
+		}
+	}
+
+	// Fills in a new bundle's points, pull value and width.
+	private void setupBundle(BundleMap ret, WireBundle b, ArrayList<Location> group) {
+		ret.bundles.add(b);
+		for (Location p : group) {
+			b.points.add(p);
+			for (Component comp : points.getComponents(p)) {
+				Value pull = pullValues.get(comp);
+				if (pull != null) b.addPullValue(pull);
+				if (comp instanceof Splitter) {
+					for (EndData end : comp.getEnds()) {
+						if (end.getLocation().equals(p)) b.setWidth(end.getWidth(), p);
+					}
+				}
+			}
+		}
+		for (Location p : group) {
+			BitWidth width = points.getWidth(p);
+			if (width != BitWidth.UNKNOWN) b.setWidth(width, p);
+		}
+	}
+	
+	private void uniteSplitterThreads(Splitter spl) {
+		synchronized(spl) {
+			SplitterAttributes spl_attrs = (SplitterAttributes) spl.getAttributeSet();
+			byte[] bit_end = spl_attrs.bit_end;
+			SplitterData spl_data = spl.wire_data;
+			WireBundle from_bundle = spl_data.end_bundle[0];
+			if (from_bundle == null || !from_bundle.isValid()) return;
+
+			for (int i = 0; i < bit_end.length; i++) {
+				int j = bit_end[i];
+				if (j > 0) {
+					int thr = spl.bit_thread[i];
+					WireBundle to_bundle = spl_data.end_bundle[j];
+					WireThread[] to_threads = to_bundle.threads;
+					if (to_threads != null && to_bundle.isValid()) {
+						WireThread[] from_threads = from_bundle.threads;
+						if (i >= from_threads.length) {
+							throw new ArrayIndexOutOfBoundsException("from " + i + " of " + from_threads.length);
+						}
+						if (thr >= to_threads.length) {
+							throw new ArrayIndexOutOfBoundsException("to " + thr + " of " + to_threads.length);
+						}
+						from_threads[i].unite(to_threads[thr]);
+					}
+				}
+			}
+		}
+	}
 	
 	private void connectWires(BundleMap ret) {
 		// make a WireBundle object for each tree of connected wires
@@ -675,12 +941,19 @@ class CircuitWires {
 		}
 	}
 	
-	private void connectTunnels(BundleMap ret) {
-		// determine the sets of tunnels
+	// Determines the sets of tunnels sharing each label, adding the location
+	// of any tunnel relabeled since the last map into changed.
+	private HashMap<String,ArrayList<Location>> findTunnelSets(Set<Location> changed) {
 		HashMap<String,ArrayList<Location>> tunnelSets = new HashMap<String,ArrayList<Location>>();
+		HashMap<Component,String> labels = new HashMap<Component,String>();
 		for (Component comp : tunnels) {
 			String label = comp.getAttributeSet().getValue(StdAttr.LABEL);
 			label = label.trim();
+			labels.put(comp, label);
+			String oldLabel = tunnelLabels.get(comp);
+			if (changed != null && oldLabel != null && !oldLabel.equals(label)) {
+				changed.add(comp.getLocation());
+			}
 			if (!label.equals("")) {
 				ArrayList<Location> tunnelSet = tunnelSets.get(label);
 				if (tunnelSet == null) {
@@ -690,6 +963,28 @@ class CircuitWires {
 				tunnelSet.add(comp.getLocation());
 			}
 		}
+		tunnelLabels = labels;
+		return tunnelSets;
+	}
+
+	// Records the value of each pull resistor, adding the location of any
+	// whose value changed since the last map into changed.
+	private void findPullValues(Set<Location> changed) {
+		HashMap<Component,Value> values = new HashMap<Component,Value>();
+		for (Component comp : pulls) {
+			Value pull = PullResistor.getPullValue(Instance.getInstanceFor(comp));
+			values.put(comp, pull);
+			Value oldPull = pullValues.get(comp);
+			if (changed != null && oldPull != null && !oldPull.equals(pull)) {
+				changed.add(comp.getEnd(0).getLocation());
+			}
+		}
+		pullValues = values;
+	}
+	
+	private void connectTunnels(BundleMap ret) {
+		// determine the sets of tunnels
+		HashMap<String,ArrayList<Location>> tunnelSets = findTunnelSets(null);
 		
 		// now connect the bundles that are tunnelled together
 		for (ArrayList<Location> tunnelSet : tunnelSets.values()) {
@@ -722,6 +1017,7 @@ class CircuitWires {
 	}
 	
 	private void connectPullResistors(BundleMap ret) {
+		findPullValues(null);
 		for (Component comp : pulls) {
 			Location loc = comp.getEnd(0).getLocation();
 			WireBundle b = ret.getBundleAt(loc);
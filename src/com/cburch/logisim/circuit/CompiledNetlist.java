@@ -0,0 +1,435 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+
+/** A dense form of a circuit's {@link CircuitWires.BundleMap} used by the
+ * compiled simulation engine. Every point of the circuit receives an
+ * integer index, every bundle becomes a net with the indices of its points
+ * and threads, and every thread keeps the (net, bit) pairs it passes
+ * through. The components to be woken when a point changes are listed in
+ * advance, so that propagating values across wires touches only arrays.
+ * A location is turned into its index once, when its point turns dirty;
+ * at that moment the value that components emit there is copied from the
+ * propagator's causes into an array, which is what threads are computed
+ * from.
+ *
+ * The netlist is shared by all instances of a circuit; the values for one
+ * instance are kept in a {@link State}, which the CircuitState holds in
+ * place of its map of point values. Components themselves still propagate
+ * through their factories, so the compiled engine computes exactly what
+ * the reference engine computes. */
+class CompiledNetlist {
+	// encodings of one-bit values within threadValues
+	private static final byte UNCOMPUTED = -1;
+	private static final byte UNKNOWN = 0;
+	private static final byte FALSE = 1;
+	private static final byte TRUE = 2;
+	private static final byte ERROR = 3;
+
+	static class State {
+		private CompiledNetlist netlist;
+		private Value[] values; // value of each point, or null if none
+		private Value[] outputs; // components' value at each point, as of its last change
+		private byte[] threadValues;
+		private boolean allDirty = true;
+
+		// scratch space for propagate
+		private int[] threadMarks;
+		private int[] netMarks;
+		private int mark = 0;
+		private int[] dirtyThreads;
+		private int[] dirtyNets;
+
+		private State(CompiledNetlist netlist) {
+			this.netlist = netlist;
+			this.values = new Value[netlist.points.length];
+			this.outputs = new Value[netlist.points.length];
+			this.threadValues = new byte[netlist.threadNets.length];
+			Arrays.fill(threadValues, UNCOMPUTED);
+			this.threadMarks = new int[threadValues.length];
+			this.netMarks = new int[netlist.netWidth.length];
+			this.dirtyThreads = new int[threadValues.length];
+			this.dirtyNets = new int[netMarks.length];
+		}
+
+		CompiledNetlist getNetlist() {
+			return netlist;
+		}
+
+		Value getValue(Location loc) {
+			int index = netlist.indexOf(loc);
+			return index < 0 ? null : values[index];
+		}
+
+		void copyTo(Map<Location,Value> dest) {
+			Location[] points = netlist.points;
+			for (int i = 0; i < points.length; i++) {
+				if (values[i] != null) dest.put(points[i], values[i]);
+			}
+		}
+
+		@Override
+		public State clone() {
+			State ret = new State(netlist);
+			System.arraycopy(values, 0, ret.values, 0, values.length);
+			System.arraycopy(outputs, 0, ret.outputs, 0, outputs.length);
+			System.arraycopy(threadValues, 0, ret.threadValues, 0, threadValues.length);
+			ret.allDirty = allDirty;
+			return ret;
+		}
+	}
+
+	private Location[] points;
+	// index of each point, in an open-addressing table of packed coordinates
+	private long[] indexKeys;
+	private int[] indexSlots; // point index + 1, or 0 if the slot is empty
+	private int[] pointNet; // net containing each point, or -1 if unwired
+	private Component[][] pointFanout; // components to wake when point changes
+	private int[] netWidth; // 0 if net's values are always NIL
+	private int[][] netPoints;
+	private int[][] netThreads;
+	private int[][] threadNets;
+	private int[][] threadBits;
+	private byte[] threadPulls;
+
+	CompiledNetlist(CircuitWires.BundleMap map, CircuitPoints circPoints) {
+		// number the points
+		Set<Location> splits = circPoints.getSplitLocations();
+		Set<Location> bundlePoints = map.getBundlePoints();
+		int capacity = Integer.highestOneBit(2 * (splits.size() + bundlePoints.size()) + 1) << 1;
+		indexKeys = new long[capacity];
+		indexSlots = new int[capacity];
+		ArrayList<Location> pointList = new ArrayList<Location>();
+		for (Location loc : splits) {
+			addPoint(pointList, loc);
+		}
+		for (Location loc : bundlePoints) {
+			addPoint(pointList, loc);
+		}
+		points = pointList.toArray(new Location[pointList.size()]);
+
+		// number the nets and threads
+		HashMap<WireBundle,Integer> netIndex = new HashMap<WireBundle,Integer>();
+		HashMap<WireThread,Integer> threadIndex = new HashMap<WireThread,Integer>();
+		ArrayList<WireBundle> nets = new ArrayList<WireBundle>(map.getBundles());
+		ArrayList<WireThread> threads = new ArrayList<WireThread>();
+		for (int i = 0; i < nets.size(); i++) {
+			WireBundle b = nets.get(i);
+			netIndex.put(b, Integer.valueOf(i));
+			if (b.isValid() && b.threads != null) {
+				for (WireThread t : b.threads) {
+					if (!threadIndex.containsKey(t)) {
+						threadIndex.put(t, Integer.valueOf(threads.size()));
+						threads.add(t);
+					}
+				}
+			}
+		}
+
+		netWidth = new int[nets.size()];
+		netPoints = new int[nets.size()][];
+		netThreads = new int[nets.size()][];
+		for (int i = 0; i < nets.size(); i++) {
+			WireBundle b = nets.get(i);
+			netPoints[i] = new int[b.points.size()];
+			int j = 0;
+			for (Location loc : b.points) {
+				netPoints[i][j] = indexOf(loc);
+				j++;
+			}
+			if (b.isValid() && b.threads != null) {
+				netWidth[i] = b.threads.length;
+				netThreads[i] = new int[b.threads.length];
+				for (j = 0; j < b.threads.length; j++) {
+					netThreads[i][j] = threadIndex.get(b.threads[j]).intValue();
+				}
+			} else {
+				netWidth[i] = 0;
+				netThreads[i] = new int[0];
+			}
+		}
+
+		threadNets = new int[threads.size()][];
+		threadBits = new int[threads.size()][];
+		threadPulls = new byte[threads.size()];
+		for (int i = 0; i < threads.size(); i++) {
+			WireThread t = threads.get(i);
+			int n = t.getBundles().size();
+			threadNets[i] = new int[n];
+			threadBits[i] = new int[n];
+			Value pull = Value.UNKNOWN;
+			int j = 0;
+			for (CircuitWires.ThreadBundle tb : t.getBundles()) {
+				Integer net = netIndex.get(tb.b);
+				threadNets[i][j] = net == null ? -1 : net.intValue();
+				threadBits[i][j] = tb.loc;
+				Value pullHere = tb.b.getPullValue();
+				if (pullHere != Value.UNKNOWN) pull = pull.combine(pullHere);
+				j++;
+			}
+			threadPulls[i] = encode(pull, 0);
+		}
+
+		pointNet = new int[points.length];
+		pointFanout = new Component[points.length][];
+		ArrayList<Component> fanout = new ArrayList<Component>();
+		for (int i = 0; i < points.length; i++) {
+			Location loc = points[i];
+			WireBundle b = map.getBundleAt(loc);
+			Integer net = b == null ? null : netIndex.get(b);
+			pointNet[i] = net == null ? -1 : net.intValue();
+			fanout.clear();
+			for (Component comp : circPoints.getComponents(loc)) {
+				if (!(comp instanceof Wire) && !(comp instanceof Splitter)) {
+					fanout.add(comp);
+				}
+			}
+			pointFanout[i] = fanout.toArray(new Component[fanout.size()]);
+		}
+	}
+
+	private void addPoint(ArrayList<Location> pointList, Location loc) {
+		long key = pack(loc);
+		int mask = indexSlots.length - 1;
+		int i = slotOf(key, mask);
+		while (indexSlots[i] != 0) {
+			if (indexKeys[i] == key) return;
+			i = (i + 1) & mask;
+		}
+		indexKeys[i] = key;
+		indexSlots[i] = pointList.size() + 1;
+		pointList.add(loc);
+	}
+
+	/** Returns the index of the point at loc, or -1 if there is none. */
+	int indexOf(Location loc) {
+		long key = pack(loc);
+		long[] keys = indexKeys;
+		int[] slots = indexSlots;
+		int mask = slots.length - 1;
+		for (int i = slotOf(key, mask); slots[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key) return slots[i] - 1;
+		}
+		return -1;
+	}
+
+	private static long pack(Location loc) {
+		return ((long) loc.getX() << 32) | (loc.getY() & 0xFFFFFFFFL);
+	}
+
+	private static int slotOf(long key, int mask) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+	}
+
+	/** Creates the state for a circuit instance, starting from the point
+	 * values that the instance held previously. */
+	State createState(Map<Location,Value> oldValues) {
+		State ret = new State(this);
+		for (int i = 0; i < points.length; i++) {
+			ret.values[i] = oldValues.get(points[i]);
+		}
+		return ret;
+	}
+
+	State createState(State old) {
+		State ret = new State(this);
+		if (old != null) {
+			for (int i = 0; i < points.length; i++) {
+				ret.values[i] = old.getValue(points[i]);
+			}
+		}
+		return ret;
+	}
+
+	void setValue(CircuitState circState, State s, Location loc, Value val) {
+		int index = indexOf(loc);
+		if (index >= 0) setValue(circState, s, index, val);
+	}
+
+	void propagate(CircuitState circState, State s, Set<Location> dirty) {
+		int mark = ++s.mark;
+		if (mark == 0) {
+			Arrays.fill(s.threadMarks, 0);
+			Arrays.fill(s.netMarks, 0);
+			mark = s.mark = 1;
+		}
+		int[] threadMarks = s.threadMarks;
+		int[] dirtyThreads = s.dirtyThreads;
+		int numThreads = 0;
+		Value[] outputs = s.outputs;
+		if (s.allDirty) {
+			// a new state needs to compute all threads, from all outputs
+			s.allDirty = false;
+			for (int i = 0; i < points.length; i++) {
+				outputs[i] = circState.getComponentOutputAt(points[i]);
+			}
+			for (int t = 0; t < threadMarks.length; t++) {
+				threadMarks[t] = mark;
+				dirtyThreads[numThreads++] = t;
+			}
+		}
+
+		// note the new outputs, determine affected threads, and set values
+		// for unwired points
+		for (Location p : dirty) {
+			int index = indexOf(p);
+			if (index < 0) continue; // no longer in circuit
+			Value out = circState.getComponentOutputAt(p);
+			outputs[index] = out;
+			int net = pointNet[index];
+			if (net < 0) { // point is not wired
+				setValue(circState, s, index, out);
+			} else if (netWidth[net] == 0) {
+				// immediately propagate NILs across invalid bundles
+				for (int q : netPoints[net]) {
+					setValue(circState, s, q, Value.NIL);
+				}
+			} else {
+				for (int t : netThreads[net]) {
+					if (threadMarks[t] != mark) {
+						threadMarks[t] = mark;
+						dirtyThreads[numThreads++] = t;
+					}
+				}
+			}
+		}
+		if (numThreads == 0) return;
+
+		// determine values of affected threads
+		int[] netMarks = s.netMarks;
+		int[] dirtyNets = s.dirtyNets;
+		int numNets = 0;
+		byte[] threadValues = s.threadValues;
+		for (int i = 0; i < numThreads; i++) {
+			int t = dirtyThreads[i];
+			threadValues[t] = computeThread(outputs, t);
+			for (int net : threadNets[t]) {
+				if (net >= 0 && netMarks[net] != mark) {
+					netMarks[net] = mark;
+					dirtyNets[numNets++] = net;
+				}
+			}
+		}
+
+		// now propagate values through circuit
+		for (int i = 0; i < numNets; i++) {
+			int net = dirtyNets[i];
+			if (netWidth[net] == 0) continue;
+			Value bv = computeNet(s, net);
+			if (bv != null) {
+				for (int q : netPoints[net]) {
+					setValue(circState, s, q, bv);
+				}
+			}
+		}
+	}
+
+	private byte computeThread(Value[] outputs, int t) {
+		byte ret = UNKNOWN;
+		int[] nets = threadNets[t];
+		int[] bits = threadBits[t];
+		for (int k = 0; k < nets.length; k++) {
+			if (nets[k] < 0) continue;
+			for (int q : netPoints[nets[k]]) {
+				Value val = outputs[q];
+				if (val != null && val != Value.NIL) {
+					ret = combine(ret, encode(val, bits[k]));
+				}
+			}
+		}
+		if (ret == UNKNOWN) ret = threadPulls[t];
+		return ret;
+	}
+
+	private Value computeNet(State s, int net) {
+		int[] threads = netThreads[net];
+		byte[] threadValues = s.threadValues;
+		if (threads.length == 1) {
+			return decode(threadValues[threads[0]]);
+		}
+		if (threads.length > 64) return computeWideNet(threadValues, threads);
+		long value = 0;
+		long unknown = 0;
+		long error = 0;
+		for (int i = 0; i < threads.length; i++) {
+			switch (threadValues[threads[i]]) {
+			case UNCOMPUTED: return null;
+			case TRUE:    value |= 1L << i; break;
+			case UNKNOWN: unknown |= 1L << i; break;
+			case ERROR:   error |= 1L << i; break;
+			default: break;
+			}
+		}
+		return Value.create(threads.length, error, unknown, value);
+	}
+
+	private static Value computeWideNet(byte[] threadValues, int[] threads) {
+		int words = (threads.length + 63) >>> 6;
+		long[] value = new long[words];
+		long[] unknown = new long[words];
+		long[] error = new long[words];
+		for (int i = 0; i < threads.length; i++) {
+			switch (threadValues[threads[i]]) {
+			case UNCOMPUTED: return null;
+			case TRUE:    value[i >>> 6] |= 1L << i; break;
+			case UNKNOWN: unknown[i >>> 6] |= 1L << i; break;
+			case ERROR:   error[i >>> 6] |= 1L << i; break;
+			default: break;
+			}
+		}
+		return Value.create(threads.length, error, unknown, value);
+	}
+
+	private void setValue(CircuitState circState, State s, int index, Value v) {
+		Value[] values = s.values;
+		Value old = values[index];
+		boolean changed;
+		if (v == Value.NIL) {
+			values[index] = null;
+			changed = old != null && old != Value.NIL;
+		} else {
+			values[index] = v;
+			changed = !v.equals(old);
+		}
+		if (changed) {
+			circState.netValueChanged(points[index], pointFanout[index]);
+		}
+	}
+
+	private static byte encode(Value val, int bit) {
+		if (bit >= val.getWidth()) return ERROR;
+		int word = bit >>> 6;
+		long mask = 1L << bit;
+		if ((val.getErrorWord(word) & mask) != 0) return ERROR;
+		if ((val.getUnknownWord(word) & mask) != 0) return UNKNOWN;
+		if ((val.getValueWord(word) & mask) != 0) return TRUE;
+		return FALSE;
+	}
+
+	private static Value decode(byte code) {
+		switch (code) {
+		case UNCOMPUTED: return null;
+		case FALSE: return Value.FALSE;
+		case TRUE: return Value.TRUE;
+		case ERROR: return Value.ERROR;
+		default: return Value.UNKNOWN;
+		}
+	}
+
+	private static byte combine(byte a, byte b) {
+		if (a == UNKNOWN) return b;
+		if (b == UNKNOWN || a == b) return a;
+		return ERROR;
+	}
+}
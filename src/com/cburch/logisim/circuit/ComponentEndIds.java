@@ -0,0 +1,98 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.instance.Instance;
+
+/** Assigns dense integer identifiers to the (component, end) pairs of a
+ * circuit, so that the propagator can keep its per-state bookkeeping in
+ * plain arrays. Each component receives a contiguous range when it is
+ * added to the circuit, and the start of that range is kept in the
+ * component's Instance, so that finding the identifier of one of its ends
+ * takes no lookup at all. Only instances receive ranges; the values of
+ * wires and splitters never pass through the propagator's queue.
+ *
+ * The ranges of removed components are not reused right away, since
+ * events already waiting in the propagator's queue may still carry them.
+ * Once they make up most of the identifiers, the ranges are compacted and
+ * the epoch advanced; events and per-state stamps from an earlier epoch
+ * are then no longer trusted. All methods but <code>size</code> and
+ * <code>getEpoch</code> are called while the circuit is being mutated. */
+class ComponentEndIds {
+	// below this many freed identifiers, compacting is not worth it
+	private static final int MIN_COMPACT = 256;
+
+	private HashMap<Component,int[]> ranges
+		= new HashMap<Component,int[]>(); // component -> { base, count }
+	private volatile int size = 0;
+	private volatile int epoch = 0;
+	private int freed = 0;
+
+	/** Returns one more than the largest identifier assigned so far. */
+	int size() {
+		return size;
+	}
+
+	/** Returns the number of times the identifiers have been reassigned. */
+	int getEpoch() {
+		return epoch;
+	}
+
+	/** Returns the identifier of comp's end with the given index, or -1
+	 * if comp has none. */
+	static int get(Component comp, int endIndex) {
+		Instance inst = Instance.getInstanceFor(comp);
+		if (endIndex < 0 || inst == null) return -1;
+		int base = inst.getEndIdBase();
+		return base < 0 ? -1 : base + endIndex;
+	}
+
+	/** Assigns comp a range covering its current ends. */
+	void add(Component comp) {
+		Instance inst = Instance.getInstanceFor(comp);
+		if (inst == null) return;
+		int count = comp.getEnds().size();
+		int base = size;
+		ranges.put(comp, new int[] { base, count });
+		size = base + count;
+		inst.setEndIdBase(base);
+	}
+
+	/** Forgets the range of comp, compacting the ranges once too many
+	 * have been forgotten. */
+	void remove(Component comp) {
+		int[] range = ranges.remove(comp);
+		if (range == null) return;
+		Instance.getInstanceFor(comp).setEndIdBase(-1);
+		freed += range[1];
+		if (freed >= MIN_COMPACT && freed > size / 2) compact();
+	}
+
+	void clear() {
+		for (Component comp : ranges.keySet()) {
+			Instance.getInstanceFor(comp).setEndIdBase(-1);
+		}
+		ranges.clear();
+		size = 0;
+		freed = 0;
+		epoch++;
+	}
+
+	private void compact() {
+		int next = 0;
+		for (Map.Entry<Component,int[]> entry : ranges.entrySet()) {
+			int[] range = entry.getValue();
+			range[0] = next;
+			Instance.getInstanceFor(entry.getKey()).setEndIdBase(next);
+			next += range[1];
+		}
+		size = next;
+		freed = 0;
+		epoch++; // after the bases, so that a reader seeing it sees them too
+	}
+}
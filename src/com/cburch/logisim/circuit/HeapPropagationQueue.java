@@ -0,0 +1,42 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.util.PriorityQueue;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+
+class HeapPropagationQueue implements PropagationQueue {
+	private PriorityQueue<SetData> queue = new PriorityQueue<SetData>();
+
+	public boolean isEmpty() {
+		return queue.isEmpty();
+	}
+
+	public SetData peek() {
+		return queue.peek();
+	}
+
+	public SetData poll() {
+		return queue.poll();
+	}
+
+	public void add(SetData data) {
+		queue.add(data);
+	}
+
+	public void clear() {
+		queue.clear();
+	}
+
+	public SetData createSetData(int time, int serialNumber, CircuitState state,
+			Location loc, Component cause, Value val) {
+		return new SetData(time, serialNumber, state, loc, cause, val);
+	}
+
+	public void recycle(SetData data) { }
+}
@@ -0,0 +1,31 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+
+/** The pending-event queue used by a {@link Propagator}. Events must be
+ * retrieved in order of time, and within the same time in order of serial
+ * number, so that all engines simulate a circuit identically. */
+interface PropagationQueue {
+	boolean isEmpty();
+
+	SetData peek();
+
+	SetData poll();
+
+	void add(SetData data);
+
+	void clear();
+
+	SetData createSetData(int time, int serialNumber, CircuitState state,
+			Location loc, Component cause, Value val);
+
+	/** Notifies the queue that an event it returned is no longer referenced
+	 * anywhere, so that its record may be reused. */
+	void recycle(SetData data);
+}
@@ -4,10 +4,11 @@
 package com.cburch.logisim.circuit;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.PriorityQueue;
 import java.util.Random;
+import java.util.concurrent.ForkJoinTask;
 
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentDrawContext;
@@ -15,6 +16,7 @@ import com.cburch.logisim.comp.EndData;
 import com.cburch.logisim.data.AttributeEvent;
 import com.cburch.logisim.data.AttributeListener;
 import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.LocationMap;
 import com.cburch.logisim.data.Value;
 import com.cburch.logisim.file.Options;
 
@@ -27,8 +29,11 @@ public class Propagator {
 		Location loc;       // the location at which value is emitted
 		Value val;          // value being emitted
 		SetData next = null;
+		SetData queueNext = null; // link used by TimingWheelQueue
+		int endId = -1;     // identifier of (cause, loc) within state's circuit
+		int endEpoch;       // epoch of that circuit's identifiers for endId
 
-		private SetData(int time, int serialNumber, CircuitState state,
+		SetData(int time, int serialNumber, CircuitState state,
 				Location loc, Component cause, Value val) {
 			this.time = time;
 			this.serialNumber = serialNumber;
@@ -51,6 +56,8 @@ public class Propagator {
 			int dtime = newProp.clock - state.getPropagator().clock;
 			SetData ret = new SetData(time + dtime,
 					newProp.setDataSerialNumber, newState, loc, cause, val);
+			ret.endId = endId;
+			ret.endEpoch = endEpoch;
 			newProp.setDataSerialNumber++;
 			if (this.next != null) ret.next = this.next.cloneFor(newState);
 			return ret;
@@ -62,25 +69,47 @@ public class Propagator {
 		}
 	}
 
+	private static class PendingSet {
+		CircuitState state;
+		Location loc;
+		Value val;
+		Component cause;
+		int delay;
+		int endIndex;
+
+		PendingSet(CircuitState state, Location loc, Value val,
+				Component cause, int delay, int endIndex) {
+			this.state = state;
+			this.loc = loc;
+			this.val = val;
+			this.cause = cause;
+			this.delay = delay;
+			this.endIndex = endIndex;
+		}
+	}
+	
 	private static class ComponentPoint {
+		CircuitState state;
 		Component cause;
 		Location loc;
 
-		public ComponentPoint(Component cause, Location loc) {
+		public ComponentPoint(CircuitState state, Component cause, Location loc) {
+			this.state = state;
 			this.cause = cause;
 			this.loc = loc;
 		}
 
 		@Override
 		public int hashCode() {
-			return 31 * cause.hashCode() + loc.hashCode();
+			return 31 * (31 * state.hashCode() + cause.hashCode()) + loc.hashCode();
 		}
 
 		@Override
 		public boolean equals(Object other) {
 			if (!(other instanceof ComponentPoint)) return false;
 			ComponentPoint o = (ComponentPoint) other;
-			return this.cause.equals(o.cause) && this.loc.equals(o.loc);
+			return this.state == o.state && this.cause.equals(o.cause)
+				&& this.loc.equals(o.loc);
 		}
 	}
 	
@@ -99,6 +128,12 @@ public class Propagator {
 				e.getSource().removeAttributeListener(this);
 			} else if (e.getAttribute().equals(Options.sim_rand_attr)) {
 				p.updateRandomness();
+			} else if (e.getAttribute().equals(Options.ATTR_SIM_QUEUE)) {
+				p.updateQueueOption();
+			} else if (e.getAttribute().equals(Options.ATTR_SIM_ENGINE)) {
+				p.updateEngineOption();
+			} else if (e.getAttribute().equals(Options.ATTR_SIM_SUBSTATES)) {
+				p.updateSubstatesOption();
 			}
 		}
 	}
@@ -117,7 +152,33 @@ public class Propagator {
 	 * practice). */
 	private volatile int simRandomShift;
 
-	private PriorityQueue<SetData> toProcess = new PriorityQueue<SetData>();
+	/** The kind of event queue requested through the options; the queue
+	 * itself is replaced only from the simulation thread, when
+	 * <code>propagate</code> or <code>step</code> is next called. */
+	private volatile Object queueOption;
+	
+	/** Whether wire values are propagated through each circuit's
+	 * CompiledNetlist rather than its bundle map. Each CircuitState converts
+	 * its values when it next processes its dirty points. */
+	private volatile boolean compiled;
+	
+	/** Whether sibling substates are processed concurrently on the
+	 * ForkJoinPool rather than one after another. */
+	private volatile boolean parallel;
+	
+	/** True while sibling substates are being processed concurrently. The
+	 * values that their components emit are then held in the calling
+	 * thread's <code>pendingSets</code> and added to the queue afterwards,
+	 * in the order that serial processing would have added them. */
+	private boolean forking = false;
+
+	/** The number of dirty points or components across a set of siblings
+	 * below which they are processed serially even in parallel mode. */
+	static final int PARALLEL_MIN_WORK = 512;
+	private ThreadLocal<ArrayList<PendingSet>> pendingSets
+		= new ThreadLocal<ArrayList<PendingSet>>();
+
+	private PropagationQueue toProcess;
 	private int clock = 0;
 	private boolean isOscillating = false;
 	private boolean oscAdding = false;
@@ -127,6 +188,15 @@ public class Propagator {
 	private int noiseCount = 0;
 	private int setDataSerialNumber = 0;
 	
+	/** Identifies the current step; a (component, end) pair in a state has
+	 * been handled during this step exactly when its entry in the state's
+	 * <code>endStamps</code> holds this value. */
+	private int stepStamp = 0;
+	
+	/** Handled events whose cause has no end at their location, and so no
+	 * entry in <code>endStamps</code>. Practically always empty. */
+	private HashSet<ComponentPoint> handledUnindexed = new HashSet<ComponentPoint>();
+	
 	static int lastId = 0;
 	int id = lastId++;
 
@@ -135,6 +205,10 @@ public class Propagator {
 		Listener l = new Listener(this);
 		root.getProject().getOptions().getAttributeSet().addAttributeListener(l);
 		updateRandomness();
+		updateQueueOption();
+		updateEngineOption();
+		updateSubstatesOption();
+		toProcess = createQueue(queueOption);
 	}
 	
 	private void updateRandomness() {
@@ -145,6 +219,119 @@ public class Propagator {
 		while ((1 << logVal) < val) logVal++;
 		simRandomShift = logVal;
 	}
+	
+	private void updateQueueOption() {
+		Options opts = root.getProject().getOptions();
+		queueOption = opts.getAttributeSet().getValue(Options.ATTR_SIM_QUEUE);
+	}
+	
+	private void updateEngineOption() {
+		Options opts = root.getProject().getOptions();
+		Object engine = opts.getAttributeSet().getValue(Options.ATTR_SIM_ENGINE);
+		compiled = engine == Options.SIM_ENGINE_COMPILED;
+	}
+	
+	boolean isCompiled() {
+		return compiled;
+	}
+	
+	private void updateSubstatesOption() {
+		Options opts = root.getProject().getOptions();
+		Object mode = opts.getAttributeSet().getValue(Options.ATTR_SIM_SUBSTATES);
+		parallel = mode == Options.SIM_SUBSTATES_PARALLEL;
+	}
+	
+	/** Returns whether the given sibling substates should be processed in
+	 * parallel: forking tasks and merging their pending values costs more
+	 * than it saves unless at least two of the siblings, taken together,
+	 * have a good deal of dirty work waiting. */
+	boolean canProcessInParallel(CircuitState[] subs, boolean points) {
+		if (!parallel || forking) return false;
+		int total = 0;
+		int busy = 0;
+		for (CircuitState sub : subs) {
+			int n = sub.countDirty(points, PARALLEL_MIN_WORK);
+			if (n > 0) {
+				busy++;
+				total += n;
+				if (busy > 1 && total >= PARALLEL_MIN_WORK) return true;
+			}
+		}
+		return false;
+	}
+	
+	/** Processes the dirty points (or dirty components) of each of the given
+	 * sibling substates, together with their own substates, as separate
+	 * tasks. The values emitted by each task are added to the queue only
+	 * after all tasks have completed, task by task, so the queue ends up
+	 * exactly as if the substates had been processed in order. */
+	void processInParallel(CircuitState[] subs, final boolean points) {
+		ArrayList<ArrayList<PendingSet>> sets = new ArrayList<ArrayList<PendingSet>>(subs.length);
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(subs.length);
+		for (final CircuitState sub : subs) {
+			final ArrayList<PendingSet> pending = new ArrayList<PendingSet>();
+			sets.add(pending);
+			tasks.add(ForkJoinTask.adapt(new Runnable() {
+				public void run() {
+					pendingSets.set(pending);
+					try {
+						if (points) {
+							sub.processDirtyPoints();
+						} else {
+							sub.processDirtyComponents();
+						}
+					} finally {
+						pendingSets.remove();
+					}
+				}
+			}));
+		}
+
+		forking = true;
+		try {
+			for (int i = 1; i < tasks.size(); i++) tasks.get(i).fork();
+			tasks.get(0).quietlyInvoke();
+			// wait for every task, even if one fails, so that none is
+			// still running once forking is turned off
+			for (int i = 1; i < tasks.size(); i++) tasks.get(i).quietlyJoin();
+		} finally {
+			forking = false;
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			Throwable t = task.getException();
+			if (t instanceof RuntimeException) throw (RuntimeException) t;
+			if (t instanceof Error) throw (Error) t;
+			if (t != null) throw new RuntimeException(t);
+		}
+
+		for (ArrayList<PendingSet> pending : sets) {
+			for (PendingSet p : pending) {
+				setValue(p.state, p.loc, p.val, p.cause, p.delay, p.endIndex);
+			}
+		}
+	}
+	
+	private PropagationQueue createQueue(Object option) {
+		if (option == Options.SIM_QUEUE_WHEEL) {
+			return new TimingWheelQueue(clock);
+		} else {
+			return new HeapPropagationQueue();
+		}
+	}
+	
+	private void checkQueue() {
+		Object option = queueOption;
+		boolean isWheel = toProcess instanceof TimingWheelQueue;
+		if (isWheel == (option == Options.SIM_QUEUE_WHEEL)) return;
+
+		// move pending events across, in order, so their serial numbers
+		// continue to determine the processing order
+		PropagationQueue newQueue = createQueue(option);
+		for (SetData data = toProcess.poll(); data != null; data = toProcess.poll()) {
+			newQueue.add(data);
+		}
+		toProcess = newQueue;
+	}
 
 	public boolean isOscillating() {
 		return isOscillating;
@@ -173,6 +360,7 @@ public class Propagator {
 	}
 	
 	public void propagate() {
+		checkQueue();
 		oscPoints.clear();
 		clearDirtyPoints();
 		clearDirtyComponents();
@@ -200,6 +388,7 @@ public class Propagator {
 	}
 	
 	void step(PropagationPoints changedPoints) {
+		checkQueue();
 		oscPoints.clear();
 		clearDirtyPoints();
 		clearDirtyComponents();
@@ -219,22 +408,22 @@ public class Propagator {
 		clock = toProcess.peek().time;
 
 		// propagate all values for this clock tick
-		HashMap<CircuitState,HashSet<ComponentPoint>> visited
-			= new HashMap<CircuitState,HashSet<ComponentPoint>>();
+		stepStamp++;
+		if (stepStamp == 0) { // wrapped around: forget all old stamps
+			root.clearEndStamps();
+			stepStamp = 1;
+		}
+		if (!handledUnindexed.isEmpty()) handledUnindexed.clear();
 		while (true) {
 			SetData data = toProcess.peek();
 			if (data == null || data.time != clock) break;
-			toProcess.remove();
+			toProcess.poll();
 			CircuitState state = data.state;
 
 			// if it's already handled for this clock tick, continue
-			HashSet<ComponentPoint> handled = visited.get(state);
-			if (handled != null) {
-				if (!handled.add(new ComponentPoint(data.cause, data.loc))) continue;
-			} else {
-				handled = new HashSet<ComponentPoint>();
-				visited.put(state, handled);
-				handled.add(new ComponentPoint(data.cause, data.loc));
+			if (!markHandled(state, data)) {
+				toProcess.recycle(data);
+				continue;
 			}
 			
 			/*DEBUGGING - comment out
@@ -244,15 +433,17 @@ public class Propagator {
 			
 			if (changedPoints != null) changedPoints.add(state, data.loc);
 
-			// change the information about value
-			SetData oldHead = state.causes.get(data.loc);
+			// change the information about value (data may be recycled
+			// by addCause, so its location is saved first)
+			Location loc    = data.loc;
+			SetData oldHead = state.causes.get(loc);
 			Value   oldVal  = computeValue(oldHead);
 			SetData newHead = addCause(state, oldHead, data);
 			Value   newVal  = computeValue(newHead);
 
 			// if the value at point has changed, propagate it
 			if (!newVal.equals(oldVal)) {
-				state.markPointAsDirty(data.loc);
+				state.markPointAsDirty(loc);
 			}
 		}
 
@@ -260,6 +451,25 @@ public class Propagator {
 		clearDirtyComponents();
 	}
 	
+	private boolean markHandled(CircuitState state, SetData data) {
+		int endId = data.endId;
+		int epoch = state.getCircuit().getEndIdEpoch();
+		if (endId < 0 || data.endEpoch != epoch) {
+			return handledUnindexed.add(new ComponentPoint(state, data.cause, data.loc));
+		}
+		if (state.endStampEpoch != epoch) { // identifiers were reassigned
+			state.endStamps = null;
+			state.endStampEpoch = epoch;
+		}
+		int[] stamps = state.endStamps;
+		if (stamps == null || endId >= stamps.length) {
+			stamps = state.growEndStamps(endId);
+		}
+		if (stamps[endId] == stepStamp) return false;
+		stamps[endId] = stepStamp;
+		return true;
+	}
+	
 	boolean isPending() {
 		return !toProcess.isEmpty();
 	}
@@ -306,15 +516,32 @@ public class Propagator {
 	} */
 	
 	void locationTouched(CircuitState state, Location loc) {
-		if (oscAdding) oscPoints.add(state, loc);
+		if (oscAdding) {
+			if (forking) {
+				synchronized (oscPoints) {
+					oscPoints.add(state, loc);
+				}
+			} else {
+				oscPoints.add(state, loc);
+			}
+		}
 	}
 
 	//
 	// package-protected helper methods
 	//
+	/** Schedules cause's value at pt, which is the end of cause with the
+	 * given index, or -1 if the caller does not know it. */
 	void setValue(CircuitState state, Location pt, Value val,
-			Component cause, int delay) {
+			Component cause, int delay, int endIndex) {
 		if (cause instanceof Wire || cause instanceof Splitter) return;
+		if (forking) {
+			ArrayList<PendingSet> pending = pendingSets.get();
+			if (pending != null) {
+				pending.add(new PendingSet(state, pt, val, cause, delay, endIndex));
+				return;
+			}
+		}
 		if (delay <= 0) {
 			delay = 1;
 		}
@@ -332,8 +559,13 @@ public class Propagator {
 				}
 			}
 		}
-		toProcess.add(new SetData(clock + delay, setDataSerialNumber,
-				state, pt, cause, val));
+		SetData data = toProcess.createSetData(clock + delay,
+				setDataSerialNumber, state, pt, cause, val);
+		// the epoch is read first: should the identifiers be reassigned
+		// meanwhile, the event is merely treated as unindexed
+		data.endEpoch = state.getCircuit().getEndIdEpoch();
+		data.endId = ComponentEndIds.get(cause, endIndex);
+		toProcess.add(data);
 		/*DEBUGGING - comment out
 		Simulator.log(clock + ": set " + pt + " in "
 				+ state + " to " + val
@@ -382,10 +614,12 @@ public class Propagator {
 	private SetData addCause(CircuitState state, SetData head,
 			SetData data) {
 		if (data.val == null) { // actually, it should be removed
-			return removeCause(state, head, data.loc, data.cause);
+			SetData ret = removeCause(state, head, data.loc, data.cause);
+			toProcess.recycle(data);
+			return ret;
 		}
 
-		HashMap<Location,SetData> causes = state.causes;
+		LocationMap<SetData> causes = state.causes;
 
 		// first check whether this is change of previous info.
 		boolean replaced = false;
@@ -396,6 +630,7 @@ public class Propagator {
 				break;
 			}
 		}
+		if (replaced) toProcess.recycle(data);
 
 		// otherwise, insert to list of causes
 		if (!replaced) {
@@ -413,19 +648,22 @@ public class Propagator {
 
 	private SetData removeCause(CircuitState state, SetData head,
 			Location loc, Component cause) {
-		HashMap<Location,SetData> causes = state.causes;
+		LocationMap<SetData> causes = state.causes;
 		if (head == null) {
 			;
 		} else if (head.cause == cause) {
+			SetData removed = head;
 			head = head.next;
 			if (head == null) causes.remove(loc);
 			else causes.put(loc, head);
+			toProcess.recycle(removed);
 		} else {
 			SetData prev = head;
 			SetData cur = head.next;
 			while (cur != null) {
 				if (cur.cause == cause) {
 					prev.next = cur.next;
+					toProcess.recycle(cur);
 					break;
 				}
 				prev = cur;
@@ -111,7 +111,10 @@ public abstract class RadixOption extends AttributeOption {
 			case 25: case 26: case 27:          return 9; // 16M..64M
 			case 28: case 29: case 30:          return 10; // 128M..512M
 			case 31: case 32:                   return 11; // 1G..2G
-			default:                            return 1;
+			default:
+				int bits = width.getWidth();
+				if (bits <= 32) return 1;
+				return (int) Math.ceil((bits - 1) * Math.log10(2)) + 1;
 			}
 		}
 	}
@@ -138,7 +141,10 @@ public abstract class RadixOption extends AttributeOption {
 			case 24: case 25: case 26:          return 8;
 			case 27: case 28: case 29:          return 9;
 			case 30: case 31: case 32:          return 10;
-			default:                            return 1;
+			default:
+				int bits = width.getWidth();
+				if (bits <= 32) return 1;
+				return (int) Math.ceil(bits * Math.log10(2));
 			}
 		}
 	}
@@ -3,7 +3,7 @@
 
 package com.cburch.logisim.circuit;
 
-import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.cburch.logisim.comp.ComponentDrawContext;
 import com.cburch.logisim.prefs.AppPreferences;
@@ -36,6 +36,7 @@ public class Simulator {
 		private volatile int stepsRequested = 0;
 		private volatile boolean resetRequested = false;
 		private volatile boolean propagateRequested = false;
+		private volatile boolean freeRunning = false;
 		private volatile boolean complete = false;
 
 		// These variables apply only if PRINT_TICK_RATE is set
@@ -71,6 +72,11 @@ public class Simulator {
 			notifyAll();
 		}
 		
+		public synchronized void setFreeRunning(boolean value) {
+			freeRunning = value;
+			if (value) notifyAll();
+		}
+		
 		public synchronized void shutDown() {
 			complete = true;
 			notifyAll();
@@ -82,7 +88,7 @@ public class Simulator {
 				synchronized(this) {
 					while (!complete && !propagateRequested
 							&& !resetRequested && ticksRequested == 0
-							&& stepsRequested == 0) {
+							&& stepsRequested == 0 && !freeRunning) {
 						try {
 							wait();
 						} catch (InterruptedException e) { }
@@ -96,6 +102,12 @@ public class Simulator {
 					propagateRequested |= isRunning;
 				}
 				
+				if (freeRunning && isRunning && propagator != null
+						&& stepsRequested == 0 && !complete) {
+					runFree();
+					continue;
+				}
+				
 				if (propagateRequested || ticksRequested > 0 || stepsRequested > 0) {
 					boolean ticked = false;
 					propagateRequested = false;
@@ -150,6 +162,36 @@ public class Simulator {
 			}
 		}
 		
+		// Ticks and propagates in a loop without waiting for the ticker,
+		// notifying listeners only once per interval so that repainting and
+		// logging do not hold the simulation back.
+		private void runFree() {
+			long until = System.currentTimeMillis() + UNTHROTTLED_NOTIFY_MILLIS;
+			ticksRequested = 0;
+			do {
+				propagateRequested = false;
+				try {
+					exceptionEncountered = false;
+					propagator.tick();
+					propagator.propagate();
+				} catch (Throwable thr) {
+					thr.printStackTrace();
+					exceptionEncountered = true;
+					setIsRunning(false);
+					break;
+				}
+				if (isOscillating()) {
+					setIsRunning(false);
+					propagateRequested = false;
+					break;
+				}
+			} while (freeRunning && !complete && !resetRequested
+					&& stepsRequested == 0
+					&& System.currentTimeMillis() < until);
+			fireTickCompleted();
+			firePropagationCompleted();
+		}
+		
 		private void doTick() {
 			synchronized(this) {
 				ticksRequested--;
@@ -158,6 +200,13 @@ public class Simulator {
 		}
 	}
 
+	/** The tick frequency at which the clock runs as fast as the
+	 * simulation allows. */
+	public static final double UNTHROTTLED = Double.POSITIVE_INFINITY;
+
+	// while unthrottled, listeners are notified at most this often
+	private static final int UNTHROTTLED_NOTIFY_MILLIS = 50;
+
 	private boolean isRunning = true;
 	private boolean isTicking = false;
 	private boolean exceptionEncountered = false;
@@ -165,12 +214,14 @@ public class Simulator {
 
 	private PropagationManager manager;
 	private SimulatorTicker ticker;
-	private ArrayList<SimulatorListener> listeners
-		= new ArrayList<SimulatorListener>();
+	private SimulatorNotifier notifier;
+	private CopyOnWriteArrayList<SimulatorListener> listeners
+		= new CopyOnWriteArrayList<SimulatorListener>();
 
 	public Simulator() {
 		manager = new PropagationManager();
 		ticker = new SimulatorTicker(manager);
+		notifier = new SimulatorNotifier(this);
 		try {
 			manager.setPriority(manager.getPriority() - 1);
 			ticker.setPriority(ticker.getPriority() - 1);
@@ -178,6 +229,7 @@ public class Simulator {
 		} catch (IllegalArgumentException e) { }
 		manager.start();
 		ticker.start();
+		notifier.start();
 		
 		tickFrequency = 0.0;
 		setTickFrequency(AppPreferences.TICK_FREQUENCY.get().doubleValue());
@@ -186,6 +238,7 @@ public class Simulator {
 	public void shutDown() {
 		ticker.shutDown();
 		manager.shutDown();
+		notifier.shutDown();
 	}
 
 	public void setCircuitState(CircuitState state) {
@@ -248,7 +301,13 @@ public class Simulator {
 	}
 	
 	private void renewTickerAwake() {
-		ticker.setAwake(isRunning && isTicking && tickFrequency > 0);
+		boolean ticking = isRunning && isTicking && tickFrequency > 0;
+		ticker.setAwake(ticking && tickFrequency != UNTHROTTLED);
+		manager.setFreeRunning(ticking && tickFrequency == UNTHROTTLED);
+	}
+	
+	public boolean isUnthrottled() {
+		return tickFrequency == UNTHROTTLED;
 	}
 
 	public double getTickFrequency() {
@@ -257,17 +316,19 @@ public class Simulator {
 
 	public void setTickFrequency(double freq) {
 		if (tickFrequency != freq) {
-			int millis = (int) Math.round(1000 / freq);
-			int ticks;
-			if (millis > 0) {
-				ticks = 1;
-			} else {
-				millis = 1;
-				ticks = (int) Math.round(freq / 1000);
+			if (freq != UNTHROTTLED) {
+				int millis = (int) Math.round(1000 / freq);
+				int ticks;
+				if (millis > 0) {
+					ticks = 1;
+				} else {
+					millis = 1;
+					ticks = (int) Math.round(freq / 1000);
+				}
+				ticker.setTickFrequency(millis, ticks);
 			}
 			
 			tickFrequency = freq;
-			ticker.setTickFrequency(millis, ticks);
 			renewTickerAwake();
 			fireSimulatorStateChanged();
 		}
@@ -282,23 +343,50 @@ public class Simulator {
 		return prop != null && prop.isOscillating();
 	}
 
+	/**
+	 * Adds a listener that hears of every propagation and tick, in the
+	 * simulation thread, as soon as it completes.
+	 */
 	public void addSimulatorListener(SimulatorListener l) { listeners.add(l); }
-	public void removeSimulatorListener(SimulatorListener l) { listeners.remove(l); }
+
+	/**
+	 * Adds a listener that hears of propagations and ticks in a separate
+	 * thread, at most <code>maxRate</code> times a second, or as often as
+	 * it keeps up if <code>maxRate</code> is 0. The events arriving in
+	 * between are coalesced into one. Changes to the simulator's state are
+	 * still reported at once.
+	 */
+	public void addSimulatorListener(SimulatorListener l, int maxRate) {
+		notifier.addListener(l, maxRate);
+	}
+
+	public void removeSimulatorListener(SimulatorListener l) {
+		listeners.remove(l);
+		notifier.removeListener(l);
+	}
+
 	void firePropagationCompleted() {
+		notifier.propagationCompleted();
+		if (listeners.isEmpty()) return;
 		SimulatorEvent e = new SimulatorEvent(this);
-		for (SimulatorListener l : new ArrayList<SimulatorListener>(listeners)) {
+		for (SimulatorListener l : listeners) {
 			l.propagationCompleted(e);
 		}
 	}
 	void fireTickCompleted() {
+		notifier.tickCompleted();
+		if (listeners.isEmpty()) return;
 		SimulatorEvent e = new SimulatorEvent(this);
-		for (SimulatorListener l : new ArrayList<SimulatorListener>(listeners)) {
+		for (SimulatorListener l : listeners) {
 			l.tickCompleted(e);
 		}
 	}
 	void fireSimulatorStateChanged() {
 		SimulatorEvent e = new SimulatorEvent(this);
-		for (SimulatorListener l : new ArrayList<SimulatorListener>(listeners)) {
+		for (SimulatorListener l : listeners) {
+			l.simulatorStateChanged(e);
+		}
+		for (SimulatorListener l : notifier.getListeners()) {
 			l.simulatorStateChanged(e);
 		}
 	}
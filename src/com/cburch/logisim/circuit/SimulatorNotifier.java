@@ -0,0 +1,136 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.util.ArrayList;
+
+/**
+ * Delivers propagation and tick events to the listeners that do not need
+ * every one of them, in a thread of its own so that the simulation never
+ * waits on them. The events that arrive while a listener is still busy, or
+ * before its maximum rate allows another delivery, are coalesced, so that
+ * the listener hears of each kind of event at most once per delivery.
+ */
+class SimulatorNotifier extends Thread {
+	private static class Entry {
+		SimulatorListener listener;
+		long interval; // minimum nanoseconds between deliveries
+		long last;
+		boolean tickPending = false;
+		boolean propagationPending = false;
+
+		Entry(SimulatorListener listener, int maxRate) {
+			this.listener = listener;
+			this.interval = maxRate <= 0 ? 0 : 1000000000L / maxRate;
+			this.last = System.nanoTime() - interval;
+		}
+	}
+
+	private Simulator simulator;
+	private ArrayList<Entry> entries = new ArrayList<Entry>();
+	private boolean pending = false;
+	private boolean complete = false;
+
+	public SimulatorNotifier(Simulator simulator) {
+		super("SimulatorNotifier");
+		this.simulator = simulator;
+		setDaemon(true);
+	}
+
+	public synchronized void addListener(SimulatorListener l, int maxRate) {
+		entries.add(new Entry(l, maxRate));
+	}
+
+	public synchronized void removeListener(SimulatorListener l) {
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			if (entries.get(i).listener == l) entries.remove(i);
+		}
+	}
+
+	public synchronized ArrayList<SimulatorListener> getListeners() {
+		ArrayList<SimulatorListener> ret = new ArrayList<SimulatorListener>();
+		for (Entry e : entries) ret.add(e.listener);
+		return ret;
+	}
+
+	public synchronized void propagationCompleted() {
+		if (entries.isEmpty()) return;
+		for (Entry e : entries) e.propagationPending = true;
+		pending = true;
+		notifyAll();
+	}
+
+	public synchronized void tickCompleted() {
+		if (entries.isEmpty()) return;
+		for (Entry e : entries) e.tickPending = true;
+		pending = true;
+		notifyAll();
+	}
+
+	public synchronized void shutDown() {
+		complete = true;
+		notifyAll();
+	}
+
+	@Override
+	public void run() {
+		ArrayList<Entry> due = new ArrayList<Entry>();
+		ArrayList<Boolean> dueTicks = new ArrayList<Boolean>();
+		ArrayList<Boolean> duePropagations = new ArrayList<Boolean>();
+		while (true) {
+			synchronized(this) {
+				while (!complete && due.isEmpty()) {
+					long wait = collectDue(due, dueTicks, duePropagations);
+					if (!due.isEmpty()) break;
+					try {
+						if (wait < 0) {
+							wait();
+						} else {
+							wait(wait / 1000000L, (int) (wait % 1000000L));
+						}
+					} catch (InterruptedException e) { }
+				}
+				if (complete) return;
+			}
+
+			SimulatorEvent event = new SimulatorEvent(simulator);
+			for (int i = 0; i < due.size(); i++) {
+				SimulatorListener l = due.get(i).listener;
+				if (dueTicks.get(i).booleanValue()) l.tickCompleted(event);
+				if (duePropagations.get(i).booleanValue()) l.propagationCompleted(event);
+			}
+			due.clear();
+			dueTicks.clear();
+			duePropagations.clear();
+		}
+	}
+
+	// Should hold this. Moves the pending events whose listeners may hear
+	// of them now into the lists, returning how many nanoseconds until the
+	// next of the others may be delivered, or -1 if there are none.
+	private long collectDue(ArrayList<Entry> due, ArrayList<Boolean> dueTicks,
+			ArrayList<Boolean> duePropagations) {
+		if (!pending) return -1;
+		long now = System.nanoTime();
+		long wait = -1;
+		boolean stillPending = false;
+		for (Entry e : entries) {
+			if (!e.tickPending && !e.propagationPending) continue;
+			long left = e.last + e.interval - now;
+			if (left <= 0) {
+				due.add(e);
+				dueTicks.add(Boolean.valueOf(e.tickPending));
+				duePropagations.add(Boolean.valueOf(e.propagationPending));
+				e.tickPending = false;
+				e.propagationPending = false;
+				e.last = now;
+			} else {
+				stillPending = true;
+				if (wait < 0 || left < wait) wait = left;
+			}
+		}
+		pending = stillPending;
+		return wait;
+	}
+}
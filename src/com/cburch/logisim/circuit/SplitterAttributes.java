@@ -14,6 +14,7 @@ import com.cburch.logisim.data.AttributeOption;
 import com.cburch.logisim.data.Attributes;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.StdAttr;
 
 class SplitterAttributes extends AbstractAttributeSet {
@@ -32,7 +33,8 @@ class SplitterAttributes extends AbstractAttributeSet {
 					APPEAR_LEGACY});
 	
 	public static final Attribute<BitWidth> ATTR_WIDTH
-		= Attributes.forBitWidth("incoming", Strings.getter("splitterBitWidthAttr"));
+		= Attributes.forBitWidth("incoming", Strings.getter("splitterBitWidthAttr"),
+			1, Value.MAX_WIDTH);
 	public static final Attribute<Integer> ATTR_FANOUT
 		= Attributes.forIntegerRange("fanout", Strings.getter("splitterFanOutAttr"), 1, 32);
 
@@ -18,6 +18,7 @@ import com.cburch.logisim.data.Attribute;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.Bounds;
 import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.tools.key.BitWidthConfigurator;
 import com.cburch.logisim.tools.key.IntegerConfigurator;
@@ -114,7 +115,8 @@ public class SplitterFactory extends AbstractComponentFactory {
 			return StdAttr.FACING;
 		} else if (key == KeyConfigurator.class) {
 			KeyConfigurator altConfig = ParallelConfigurator.create(
-					new BitWidthConfigurator(SplitterAttributes.ATTR_WIDTH),
+					new BitWidthConfigurator(SplitterAttributes.ATTR_WIDTH,
+							1, Value.MAX_WIDTH, InputEvent.ALT_DOWN_MASK),
 					new IntegerConfigurator(SplitterAttributes.ATTR_FANOUT,
 							1, 32, InputEvent.ALT_DOWN_MASK));
 			return JoinedConfigurator.create(
@@ -163,7 +163,7 @@ public class SubcircuitFactory extends InstanceFactory {
 			Location loc = portLoc.getKey();
 			Instance pin = portLoc.getValue();
 			String type = Pin.FACTORY.isInputPin(pin) ? Port.INPUT : Port.OUTPUT;
-			BitWidth width = pin.getAttributeValue(StdAttr.WIDTH);
+			BitWidth width = pin.getAttributeValue(StdAttr.WIDE_WIDTH);
 			ports[i] = new Port(loc.getX(), loc.getY(), type, width);
 			pins[i] = pin;
 			
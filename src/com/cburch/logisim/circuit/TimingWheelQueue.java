@@ -0,0 +1,140 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.circuit;
+
+import java.util.PriorityQueue;
+
+import com.cburch.logisim.circuit.Propagator.SetData;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.data.Value;
+
+/** A propagation queue that keeps events scheduled within the next
+ * <code>WHEEL_SIZE</code> time units in per-time buckets, so that adding and
+ * removing an event takes constant time. Events lying further into the
+ * future are kept in a heap and merged in as their time arrives. Records
+ * are recycled through a free list rather than allocated for each event.
+ * 
+ * Within each bucket, events are kept in order of insertion, which is also
+ * the order of their serial numbers; so events are retrieved in exactly the
+ * same order as from a {@link HeapPropagationQueue}. */
+class TimingWheelQueue implements PropagationQueue {
+	private static final int WHEEL_BITS = 10;
+	private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+	private static final int POOL_LIMIT = 1 << 14;
+
+	private SetData[] heads = new SetData[WHEEL_SIZE];
+	private SetData[] tails = new SetData[WHEEL_SIZE];
+	private int wheelCount = 0;
+	private PriorityQueue<SetData> overflow = new PriorityQueue<SetData>();
+	private int now; // time of the most recently retrieved event
+	private SetData min = null; // cached result of peek, or null if unknown
+
+	private SetData free = null;
+	private int freeCount = 0;
+
+	public TimingWheelQueue(int now) {
+		this.now = now;
+	}
+
+	public boolean isEmpty() {
+		return wheelCount == 0 && overflow.isEmpty();
+	}
+
+	public SetData peek() {
+		if (min != null) return min;
+		SetData ret = null;
+		if (wheelCount > 0) {
+			for (int t = now; ; t++) {
+				SetData head = heads[t & WHEEL_MASK];
+				if (head != null) {
+					ret = head;
+					break;
+				}
+			}
+		}
+		SetData far = overflow.peek();
+		if (far != null && (ret == null || far.compareTo(ret) < 0)) {
+			ret = far;
+		}
+		min = ret;
+		return ret;
+	}
+
+	public SetData poll() {
+		SetData ret = peek();
+		if (ret == null) return null;
+		int bucket = ret.time & WHEEL_MASK;
+		if (heads[bucket] == ret) {
+			heads[bucket] = ret.queueNext;
+			if (ret.queueNext == null) tails[bucket] = null;
+			ret.queueNext = null;
+			wheelCount--;
+		} else {
+			overflow.poll();
+		}
+		now = ret.time;
+		min = null;
+		return ret;
+	}
+
+	public void add(SetData data) {
+		int dt = data.time - now;
+		if (dt >= 0 && dt < WHEEL_SIZE) {
+			int bucket = data.time & WHEEL_MASK;
+			data.queueNext = null;
+			if (tails[bucket] == null) {
+				heads[bucket] = data;
+			} else {
+				tails[bucket].queueNext = data;
+			}
+			tails[bucket] = data;
+			wheelCount++;
+		} else {
+			overflow.add(data);
+		}
+		if (min != null && data.compareTo(min) < 0) min = data;
+	}
+
+	public void clear() {
+		for (int i = 0; i < WHEEL_SIZE; i++) {
+			heads[i] = null;
+			tails[i] = null;
+		}
+		wheelCount = 0;
+		overflow.clear();
+		min = null;
+	}
+
+	public SetData createSetData(int time, int serialNumber, CircuitState state,
+			Location loc, Component cause, Value val) {
+		SetData ret = free;
+		if (ret == null) {
+			return new SetData(time, serialNumber, state, loc, cause, val);
+		}
+		free = ret.queueNext;
+		freeCount--;
+		ret.queueNext = null;
+		ret.time = time;
+		ret.serialNumber = serialNumber;
+		ret.state = state;
+		ret.loc = loc;
+		ret.cause = cause;
+		ret.val = val;
+		return ret;
+	}
+
+	public void recycle(SetData data) {
+		if (freeCount >= POOL_LIMIT) return;
+		data.state = null;
+		data.loc = null;
+		data.cause = null;
+		data.val = null;
+		data.next = null;
+		data.queueNext = free;
+		free = data;
+		freeCount++;
+	}
+}
@@ -20,7 +20,8 @@ public class BitWidth implements Comparable<BitWidth> {
 		public Attribute(String name, StringGetter disp) {
 			super(name, disp);
 			ensurePrefab();
-			choices = prefab;
+			choices = new BitWidth[Value.MAX_INT_WIDTH];
+			System.arraycopy(prefab, 0, choices, 0, choices.length);
 		}
 
 		public Attribute(String name, StringGetter disp, int min, int max) {
@@ -41,7 +42,8 @@ public class BitWidth implements Comparable<BitWidth> {
 			JComboBox combo = new JComboBox(choices);
 			if (value != null) {
 				int wid = value.getWidth();
-				if (wid <= 0 || wid > prefab.length) {
+				if (wid < choices[0].getWidth()
+						|| wid > choices[choices.length - 1].getWidth()) {
 					combo.addItem(value);
 				}
 				combo.setSelectedItem(value);
@@ -62,9 +64,15 @@ public class BitWidth implements Comparable<BitWidth> {
 	
 	public int getMask() {
 		if (width == 0)       return 0;
-		else if (width == 32) return -1;
+		else if (width >= 32) return -1;
 		else                 return (1 << width) - 1;
 	}
+	
+	public long getLongMask() {
+		if (width == 0)       return 0L;
+		else if (width >= 64) return -1L;
+		else                 return (1L << width) - 1L;
+	}
 
 	@Override
 	public boolean equals(Object other_obj) {
@@ -113,7 +121,7 @@ public class BitWidth implements Comparable<BitWidth> {
 
 	private static void ensurePrefab() {
 		if (prefab == null) {
-			prefab = new BitWidth[Math.min(32, Value.MAX_WIDTH)];
+			prefab = new BitWidth[Math.min(64, Value.MAX_WIDTH)];
 			prefab[0] = ONE;
 			for (int i = 1; i < prefab.length; i++) {
 				prefab[i] = new BitWidth(i + 1);
@@ -21,8 +21,12 @@ public class Bounds {
 		Object cached = cache.get(hashCode);
 		if (cached != null) {
 			Bounds bds = (Bounds) cached;
-			if (bds.x == x && bds.y == y && bds.wid == wid && bds.ht == ht) return bds;
+			if (bds.x == x && bds.y == y && bds.wid == wid && bds.ht == ht) {
+				cache.recordLookup(true);
+				return bds;
+			}
 		}
+		cache.recordLookup(false);
 		Bounds ret = new Bounds(x, y, wid, ht);
 		cache.put(hashCode, ret);
 		return ret;
@@ -11,7 +11,11 @@ import com.cburch.logisim.util.Cache;
  * are immutable.
  */
 public class Location implements Comparable<Location> {
-	private static final Cache cache = new Cache();
+	/** Recently created locations. The base-2 logarithm of its size can be
+	 * set through the <code>logisim.locationCacheSize</code> system
+	 * property. */
+	private static final Cache cache
+		= new Cache(Integer.getInteger("logisim.locationCacheSize", 12).intValue(), 4);
 	
 	private final int hashCode;
 	private final int x;
@@ -104,13 +108,23 @@ public class Location implements Comparable<Location> {
 		Object ret = cache.get(hashCode);
 		if (ret != null) {
 			Location loc = (Location) ret;
-			if (loc.x == x && loc.y == y) return loc;
+			if (loc.x == x && loc.y == y) {
+				cache.recordLookup(true);
+				return loc;
+			}
 		}
+		cache.recordLookup(false);
 		Location loc = new Location(hashCode, x, y);
 		cache.put(hashCode, loc);
 		return loc;
 	}
 
+	/** Returns the cache through which locations are shared, whose hit and
+	 * miss counts show how well it is sized. */
+	public static Cache getCache() {
+		return cache;
+	}
+
 	public static Location parse(String value) {
 		String base = value;
 
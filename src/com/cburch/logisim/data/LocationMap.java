@@ -0,0 +1,282 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.data;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map keyed by locations. Each location is stored as its coordinates
+ * packed into a <code>long</code>, in an open-addressing table, so that
+ * looking up a location involves no hashing of <code>Location</code>
+ * objects and no per-entry objects. Null values are not permitted.
+ *
+ * The map is not synchronized, but the simulator thread updates some maps
+ * while the event thread reads them to draw the circuit. So that such a
+ * reader never pairs the keys of one table with the values of another,
+ * both arrays are kept in one table object held by a single field, and
+ * a lookup only ever indexes the table it started with.
+ */
+public class LocationMap<V> extends AbstractMap<Location,V> {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private static class Table {
+		final long[] keys;
+		final Object[] vals;
+		final int mask;
+
+		Table(long[] keys, Object[] vals) {
+			this.keys = keys;
+			this.vals = vals;
+			this.mask = vals.length - 1;
+		}
+	}
+
+	private class EntryIterator implements Iterator<Map.Entry<Location,V>> {
+		int itVersion = version;
+		int pos = table.vals.length; // slot of last entry returned; below are unvisited
+		int next = -1; // slot of next entry to return, or -1 if unknown
+		ArrayList<Map.Entry<Location,V>> carried = null;
+		Map.Entry<Location,V> last = null;
+		boolean lastCarried = false;
+
+		public boolean hasNext() {
+			if (next == -1) {
+				Object[] vals = table.vals;
+				int i = pos - 1;
+				while (i >= 0 && vals[i] == null) i--;
+				next = i;
+				if (i < 0) next = -2;
+			}
+			return next >= 0 || (carried != null && !carried.isEmpty());
+		}
+
+		public Map.Entry<Location,V> next() {
+			if (itVersion != version) throw new ConcurrentModificationException();
+			if (!hasNext()) throw new NoSuchElementException();
+			if (next >= 0) {
+				pos = next;
+				next = -1;
+				last = entryAt(pos);
+				lastCarried = false;
+			} else {
+				last = carried.remove(carried.size() - 1);
+				lastCarried = true;
+			}
+			return last;
+		}
+
+		public void remove() {
+			if (last == null) throw new IllegalStateException();
+			if (itVersion != version) throw new ConcurrentModificationException();
+			if (lastCarried) {
+				LocationMap.this.remove(last.getKey());
+			} else {
+				deleteSlot(pos, this);
+				next = -1;
+			}
+			itVersion = version;
+			last = null;
+		}
+
+		// Called when deleting moves an unvisited entry into a visited slot.
+		void carry(int slot) {
+			if (carried == null) carried = new ArrayList<Map.Entry<Location,V>>();
+			carried.add(entryAt(slot));
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Map.Entry<Location,V>> {
+		@Override
+		public Iterator<Map.Entry<Location,V>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public void clear() {
+			LocationMap.this.clear();
+		}
+	}
+
+	private Table table;
+	private int size = 0;
+	private int version = 0;
+	private EntrySet entrySet = null;
+
+	public LocationMap() {
+		table = new Table(new long[INITIAL_CAPACITY], new Object[INITIAL_CAPACITY]);
+	}
+
+	public V get(int x, int y) {
+		long key = pack(x, y);
+		Table t = table;
+		long[] keys = t.keys;
+		Object[] vals = t.vals;
+		int mask = t.mask;
+		for (int i = slotOf(key, mask); ; i = (i + 1) & mask) {
+			Object v = vals[i];
+			if (v == null) return null;
+			if (keys[i] == key) {
+				@SuppressWarnings("unchecked")
+				V ret = (V) v;
+				return ret;
+			}
+		}
+	}
+
+	@Override
+	public V get(Object key) {
+		if (!(key instanceof Location)) return null;
+		Location loc = (Location) key;
+		return get(loc.getX(), loc.getY());
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return get(key) != null;
+	}
+
+	@Override
+	public V put(Location loc, V value) {
+		if (value == null) throw new NullPointerException("null value");
+		long key = pack(loc.getX(), loc.getY());
+		long[] keys = table.keys;
+		Object[] vals = table.vals;
+		int mask = table.mask;
+		int i = slotOf(key, mask);
+		while (vals[i] != null) {
+			if (keys[i] == key) {
+				@SuppressWarnings("unchecked")
+				V old = (V) vals[i];
+				vals[i] = value;
+				return old;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = key; // before the value, which is what makes the slot live
+		vals[i] = value;
+		size++;
+		version++;
+		if (4 * size > 3 * vals.length) resize(2 * vals.length);
+		return null;
+	}
+
+	@Override
+	public void putAll(Map<? extends Location, ? extends V> src) {
+		if (size == 0 && src instanceof LocationMap) {
+			Table other = ((LocationMap<?>) src).table;
+			table = new Table(other.keys.clone(), other.vals.clone());
+			size = ((LocationMap<?>) src).size;
+			version++;
+		} else {
+			super.putAll(src);
+		}
+	}
+
+	@Override
+	public V remove(Object key) {
+		if (!(key instanceof Location)) return null;
+		Location loc = (Location) key;
+		long k = pack(loc.getX(), loc.getY());
+		long[] keys = table.keys;
+		Object[] vals = table.vals;
+		int mask = table.mask;
+		for (int i = slotOf(k, mask); vals[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == k) {
+				@SuppressWarnings("unchecked")
+				V old = (V) vals[i];
+				deleteSlot(i, null);
+				return old;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		if (size > 0) {
+			Arrays.fill(table.vals, null);
+			size = 0;
+			version++;
+		}
+	}
+
+	@Override
+	public Set<Map.Entry<Location,V>> entrySet() {
+		if (entrySet == null) entrySet = new EntrySet();
+		return entrySet;
+	}
+
+	private Map.Entry<Location,V> entryAt(int slot) {
+		long key = table.keys[slot];
+		@SuppressWarnings("unchecked")
+		V v = (V) table.vals[slot];
+		Location loc = Location.create((int) (key >> 32), (int) key);
+		return new AbstractMap.SimpleImmutableEntry<Location,V>(loc, v);
+	}
+
+	private void resize(int capacity) {
+		long[] oldKeys = table.keys;
+		Object[] oldVals = table.vals;
+		long[] newKeys = new long[capacity];
+		Object[] newVals = new Object[capacity];
+		int mask = capacity - 1;
+		for (int j = 0; j < oldVals.length; j++) {
+			if (oldVals[j] != null) {
+				int i = slotOf(oldKeys[j], mask);
+				while (newVals[i] != null) i = (i + 1) & mask;
+				newKeys[i] = oldKeys[j];
+				newVals[i] = oldVals[j];
+			}
+		}
+		table = new Table(newKeys, newVals);
+	}
+
+	// Empties a slot, moving later entries of the same probe sequence back
+	// so that lookups never stop short of them.
+	private void deleteSlot(int i, EntryIterator it) {
+		long[] keys = table.keys;
+		Object[] vals = table.vals;
+		int mask = table.mask;
+		vals[i] = null;
+		for (int j = (i + 1) & mask; vals[j] != null; j = (j + 1) & mask) {
+			int k = slotOf(keys[j], mask);
+			boolean stays = i <= j ? (i < k && k <= j) : (i < k || k <= j);
+			if (!stays) {
+				keys[i] = keys[j];
+				vals[i] = vals[j];
+				vals[j] = null;
+				if (it != null && j < it.pos && i >= it.pos) it.carry(i);
+				i = j;
+			}
+		}
+		size--;
+		version++;
+	}
+
+	private static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	private static int slotOf(long key, int mask) {
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+	}
+}
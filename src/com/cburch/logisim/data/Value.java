@@ -4,6 +4,7 @@
 package com.cburch.logisim.data;
 
 import java.awt.Color;
+import java.math.BigInteger;
 import java.util.Arrays;
 
 import com.cburch.logisim.util.Cache;
@@ -15,7 +16,12 @@ public class Value {
 	public static final Value ERROR   = new Value(1, 1, 0, 0);
 	public static final Value NIL     = new Value(0, 0, 0, 0);
 
-	public static final int MAX_WIDTH = 32;
+	public static final int MAX_WIDTH = 256;
+	
+	/** The widest value that a single <code>int</code> can describe, as
+	 * with <code>createKnown</code> and <code>toIntValue</code>. Components
+	 * that compute with ints are limited to this width. */
+	public static final int MAX_INT_WIDTH = 32;
 
 	public static final Color NIL_COLOR = Color.GRAY;
 	public static final Color FALSE_COLOR = new Color(0, 100, 0);
@@ -25,7 +31,11 @@ public class Value {
 	public static final Color WIDTH_ERROR_COLOR = new Color(255, 123, 0);
 	public static final Color MULTI_COLOR = Color.BLACK;
 	
-	private static final Cache cache = new Cache();
+	/** Recently created multi-bit values. The base-2 logarithm of its size
+	 * can be set through the <code>logisim.valueCacheSize</code> system
+	 * property. */
+	private static final Cache cache
+		= new Cache(Integer.getInteger("logisim.valueCacheSize", 12).intValue(), 4);
 
 	public static Value create(Value[] values) {
 		if (values.length == 0) return NIL;
@@ -34,15 +44,17 @@ public class Value {
 			"Cannot have more than " + MAX_WIDTH + " bits in a value");
 
 		int width = values.length;
-		int value = 0;
-		int unknown = 0;
-		int error = 0;
+		int words = wordCount(width);
+		long[] value = new long[words];
+		long[] unknown = new long[words];
+		long[] error = new long[words];
 		for (int i = 0; i < values.length; i++) {
-			int mask = 1 << i;
-			if (values[i] == TRUE)         value |= mask;
+			int word = i >>> 6;
+			long mask = 1L << i;
+			if (values[i] == TRUE)         value[word] |= mask;
 			else if (values[i] == FALSE)   /* do nothing */;
-			else if (values[i] == UNKNOWN) unknown |= mask;
-			else if (values[i] == ERROR)   error |= mask;
+			else if (values[i] == UNKNOWN) unknown[word] |= mask;
+			else if (values[i] == ERROR)   error[word] |= mask;
 			else {
 				throw new RuntimeException("unrecognized value "
 					+ values[i]);
@@ -52,18 +64,44 @@ public class Value {
 	}
 
 	public static Value createKnown(BitWidth bits, int value) {
-		return Value.create(bits.getWidth(), 0, 0, value);
+		return Value.create(bits.getWidth(), 0L, 0L, value & 0xFFFFFFFFL);
+	}
+
+	public static Value createKnown(BitWidth bits, long value) {
+		return Value.create(bits.getWidth(), 0L, 0L, value);
+	}
+
+	public static Value createKnown(BitWidth bits, BigInteger value) {
+		int width = bits.getWidth();
+		if (width <= 64) return Value.create(width, 0L, 0L, value.longValue());
+		long[] words = new long[wordCount(width)];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = value.shiftRight(64 * i).longValue();
+		}
+		return Value.create(width, null, null, words);
 	}
 
 	public static Value createUnknown(BitWidth bits) {
-		return Value.create(bits.getWidth(), 0, -1, 0);
+		return createFilled(bits.getWidth(), 0L, -1L);
 	}
 
 	public static Value createError(BitWidth bits) {
-		return Value.create(bits.getWidth(), -1, 0, 0);
+		return createFilled(bits.getWidth(), -1L, 0L);
+	}
+
+	/** Returns the value of the given width whose bits are described by
+	 * the three masks; a bit set in <code>error</code> takes precedence over
+	 * the same bit in <code>unknown</code>, which takes precedence over
+	 * <code>value</code>. Bits beyond the lowest 32 are all 0. */
+	public static Value create(int width, int error, int unknown, int value) {
+		return create(width, error & 0xFFFFFFFFL, unknown & 0xFFFFFFFFL,
+				value & 0xFFFFFFFFL);
 	}
 
-	private static Value create(int width, int error, int unknown, int value) {
+	/** Returns the value of the given width whose bits are described by
+	 * the three masks, as with the <code>int</code> version. Bits beyond
+	 * the lowest 64 are all 0. */
+	public static Value create(int width, long error, long unknown, long value) {
 		if (width == 0) {
 			return Value.NIL;
 		} else if (width == 1) {
@@ -71,24 +109,78 @@ public class Value {
 			else if ((unknown & 1) != 0)    return Value.UNKNOWN;
 			else if ((value & 1) != 0)  return Value.TRUE;
 			else return Value.FALSE;
+		} else if (width > 64) {
+			return create(width, new long[] { error }, new long[] { unknown },
+					new long[] { value });
 		} else {
-			int mask = (width == 32 ? -1 : ~(-1 << width));
+			long mask = (width == 64 ? -1L : ~(-1L << width));
 			error = error & mask;
 			unknown = unknown & mask & ~error;
 			value = value & mask & ~unknown & ~error;
 
-			int hashCode = 31 * (31 * (31 * width + error) + unknown) + value;
+			int hashCode = 31 * (31 * (31 * width + Long.hashCode(error))
+					+ Long.hashCode(unknown)) + Long.hashCode(value);
 			Object cached = cache.get(hashCode);
 			if (cached != null) {
 				Value val = (Value) cached;
 				if (val.value == value && val.width == width && val.error == error
-						&& val.unknown == unknown) return val;
+						&& val.unknown == unknown && val.words == null) {
+					cache.recordLookup(true);
+					return val;
+				}
 			}
-			Value ret= new Value(width, error, unknown, value);
+			cache.recordLookup(false);
+			Value ret= new Value(width, error, unknown, value, null);
 			cache.put(hashCode, ret);
 			return ret;
 		}
 	}
+
+	/** Returns the value of the given width whose bits are described by
+	 * the three arrays of masks, each holding 64 bits per element, lowest
+	 * first. Bits beyond the end of an array are all 0. */
+	public static Value create(int width, long[] error, long[] unknown,
+			long[] value) {
+		if (width <= 64) {
+			return create(width, word(error, 0), word(unknown, 0),
+					word(value, 0));
+		}
+		if (width > MAX_WIDTH) throw new RuntimeException(
+			"Cannot have more than " + MAX_WIDTH + " bits in a value");
+
+		int n = wordCount(width);
+		long[] words = new long[3 * n];
+		int hashCode = width;
+		for (int i = 0; i < n; i++) {
+			long mask = i == n - 1 ? topMask(width) : -1L;
+			long e = word(error, i) & mask;
+			long u = word(unknown, i) & mask & ~e;
+			long v = word(value, i) & mask & ~u & ~e;
+			words[3 * i] = e;
+			words[3 * i + 1] = u;
+			words[3 * i + 2] = v;
+			hashCode = 31 * (31 * (31 * hashCode + Long.hashCode(e))
+					+ Long.hashCode(u)) + Long.hashCode(v);
+		}
+		Object cached = cache.get(hashCode);
+		if (cached != null) {
+			Value val = (Value) cached;
+			if (val.width == width && Arrays.equals(val.words, words)) {
+				cache.recordLookup(true);
+				return val;
+			}
+		}
+		cache.recordLookup(false);
+		Value ret = new Value(width, words[0], words[1], words[2], words);
+		cache.put(hashCode, ret);
+		return ret;
+	}
+	
+	/** Returns the cache through which values are shared, whose hit and
+	 * miss counts show how well it is sized. */
+	public static Cache getCache() {
+		return cache;
+	}
 	
 	public static Value repeat(Value base, int bits) {
 		if (base.getWidth() != 1) {
@@ -103,48 +195,142 @@ public class Value {
 		}
 	}
 
+	private static Value createFilled(int width, long error, long unknown) {
+		if (width <= 64) return create(width, error, unknown, 0L);
+		int n = wordCount(width);
+		long[] errors = new long[n];
+		long[] unknowns = new long[n];
+		Arrays.fill(errors, error);
+		Arrays.fill(unknowns, unknown);
+		return create(width, errors, unknowns, null);
+	}
+
+	private static int wordCount(int width) {
+		return (width + 63) >>> 6;
+	}
+
+	private static long topMask(int width) {
+		int bits = width & 63;
+		return bits == 0 ? -1L : ~(-1L << bits);
+	}
+
+	private static long word(long[] words, int index) {
+		return words == null || index >= words.length ? 0L : words[index];
+	}
+
 	private final int width;
-	private final int error;
-	private final int unknown;
-	private final int value;
+	private final long error;
+	private final long unknown;
+	private final long value;
+	/** For values wider than 64 bits, the error, unknown and value masks of
+	 * each 64-bit word in turn; otherwise null, with the masks held only in
+	 * the fields above. */
+	private final long[] words;
 
 	private Value(int width, int error, int unknown, int value) {
 		// To ensure that the one-bit values are unique, this should be called only
 		// for the one-bit values and by the private create method
+		this(width, error, unknown, value, null);
+	}
+
+	private Value(int width, long error, long unknown, long value, long[] words) {
 		this.width = width;
 		this.error = error;
 		this.unknown = unknown;
 		this.value = value;
+		this.words = words;
+	}
+
+	/** Returns the error mask of the 64 bits starting at bit
+	 * <code>64 * index</code>. */
+	public long getErrorWord(int index) {
+		if (words != null) return index < words.length / 3 ? words[3 * index] : 0L;
+		return index == 0 ? error : 0L;
+	}
+
+	/** Returns the unknown mask of the 64 bits starting at bit
+	 * <code>64 * index</code>. */
+	public long getUnknownWord(int index) {
+		if (words != null) return index < words.length / 3 ? words[3 * index + 1] : 0L;
+		return index == 0 ? unknown : 0L;
+	}
+
+	/** Returns the known bits among the 64 starting at bit
+	 * <code>64 * index</code>. */
+	public long getValueWord(int index) {
+		if (words != null) return index < words.length / 3 ? words[3 * index + 2] : 0L;
+		return index == 0 ? value : 0L;
 	}
 
 	public boolean isErrorValue() {
-		return error != 0;
+		if (words == null) return error != 0;
+		for (int i = 0; i < words.length; i += 3) {
+			if (words[i] != 0) return true;
+		}
+		return false;
 	}
 
 	public Value extendWidth(int newWidth, Value others) {
 		if (width == newWidth) return this;
-		int maskInverse = (width == 32 ? 0 : (-1 << width));
-		if (others == Value.ERROR) {
-			return Value.create(newWidth, error | maskInverse, unknown, value);
-		} else if (others == Value.FALSE) {
-			return Value.create(newWidth, error, unknown, value);
-		} else if (others == Value.TRUE) {
-			return Value.create(newWidth, error, unknown, value | maskInverse);
-		} else {
-			return Value.create(newWidth, error, unknown | maskInverse, value);
+		if (words == null && newWidth <= 64) {
+			long maskInverse = (width == 64 ? 0 : (-1L << width));
+			if (others == Value.ERROR) {
+				return Value.create(newWidth, error | maskInverse, unknown, value);
+			} else if (others == Value.FALSE) {
+				return Value.create(newWidth, error, unknown, value);
+			} else if (others == Value.TRUE) {
+				return Value.create(newWidth, error, unknown, value | maskInverse);
+			} else {
+				return Value.create(newWidth, error, unknown | maskInverse, value);
+			}
 		}
+
+		int n = wordCount(newWidth);
+		long[] e = new long[n];
+		long[] u = new long[n];
+		long[] v = new long[n];
+		for (int i = 0; i < n; i++) {
+			long maskInverse;
+			if (64 * i >= width) maskInverse = -1L;
+			else if (64 * (i + 1) <= width) maskInverse = 0L;
+			else maskInverse = -1L << (width - 64 * i);
+			e[i] = getErrorWord(i);
+			u[i] = getUnknownWord(i);
+			v[i] = getValueWord(i);
+			if (others == Value.ERROR) {
+				e[i] |= maskInverse;
+			} else if (others == Value.TRUE) {
+				v[i] |= maskInverse;
+			} else if (others != Value.FALSE) {
+				u[i] |= maskInverse;
+			}
+		}
+		return Value.create(newWidth, e, u, v);
 	}
 
 	public boolean isUnknown() {
-		if (width == 32) {
-			return error == 0 && unknown == -1;
+		if (words == null) {
+			if (width == 64) {
+				return error == 0 && unknown == -1L;
+			} else {
+				return error == 0 && unknown == ((1L << width) - 1);
+			}
 		} else {
-			return error == 0 && unknown == ((1 << width) - 1);
+			int n = words.length / 3;
+			for (int i = 0; i < n; i++) {
+				long mask = i == n - 1 ? topMask(width) : -1L;
+				if (words[3 * i] != 0 || words[3 * i + 1] != mask) return false;
+			}
+			return true;
 		}
 	}
 
 	public boolean isFullyDefined() {
-		return width > 0 && error == 0 && unknown == 0;
+		if (words == null) return width > 0 && error == 0 && unknown == 0;
+		for (int i = 0; i < words.length; i += 3) {
+			if (words[i] != 0 || words[i + 1] != 0) return false;
+		}
+		return true;
 	}
 
 	public Value set(int which, Value val) {
@@ -154,12 +340,28 @@ public class Value {
 			throw new RuntimeException("Attempt to set outside value's width");
 		} else if (width == 1) {
 			return val;
-		} else {
-			int mask = ~(1 << which);
+		} else if (words == null) {
+			long mask = ~(1L << which);
 			return Value.create(this.width,
 				(this.error   & mask) | (val.error   << which),
 				(this.unknown & mask) | (val.unknown << which),
 				(this.value   & mask) | (val.value   << which));
+		} else {
+			int n = words.length / 3;
+			long[] e = new long[n];
+			long[] u = new long[n];
+			long[] v = new long[n];
+			for (int i = 0; i < n; i++) {
+				e[i] = words[3 * i];
+				u[i] = words[3 * i + 1];
+				v[i] = words[3 * i + 2];
+			}
+			int i = which >>> 6;
+			long mask = ~(1L << which);
+			e[i] = (e[i] & mask) | (val.error   << which);
+			u[i] = (u[i] & mask) | (val.unknown << which);
+			v[i] = (v[i] & mask) | (val.value   << which);
+			return Value.create(this.width, e, u, v);
 		}
 	}
 
@@ -173,11 +375,19 @@ public class Value {
 
 	public Value get(int which) {
 		if (which < 0 || which >= width) return ERROR;
-		int mask = 1 << which;
-		if ((error & mask) != 0) return ERROR;
-		else if ((unknown & mask) != 0) return UNKNOWN;
-		else if ((value & mask) != 0) return TRUE;
-		else return FALSE;
+		long mask = 1L << which;
+		if (words == null) {
+			if ((error & mask) != 0) return ERROR;
+			else if ((unknown & mask) != 0) return UNKNOWN;
+			else if ((value & mask) != 0) return TRUE;
+			else return FALSE;
+		} else {
+			int i = 3 * (which >>> 6);
+			if ((words[i] & mask) != 0) return ERROR;
+			else if ((words[i + 1] & mask) != 0) return UNKNOWN;
+			else if ((words[i + 2] & mask) != 0) return TRUE;
+			else return FALSE;
+		}
 	}
 
 	public BitWidth getBitWidth() {
@@ -195,22 +405,39 @@ public class Value {
 		boolean ret = this.width == other.width
 			&& this.error == other.error
 			&& this.unknown == other.unknown
-			&& this.value == other.value;
+			&& this.value == other.value
+			&& Arrays.equals(this.words, other.words);
 		return ret;
 	}
 	
 	@Override
 	public int hashCode() {
 		int ret = width;
-		ret = 31 * ret + error;
-		ret = 31 * ret + unknown;
-		ret = 31 * ret + value;
+		if (words == null) {
+			ret = 31 * ret + Long.hashCode(error);
+			ret = 31 * ret + Long.hashCode(unknown);
+			ret = 31 * ret + Long.hashCode(value);
+		} else {
+			for (long w : words) {
+				ret = 31 * ret + Long.hashCode(w);
+			}
+		}
 		return ret;
 	}
 
+	/** Returns the lowest 32 bits of the value, or -1 if any bit is
+	 * undefined. */
 	public int toIntValue() {
-		if (error != 0) return -1;
-		if (unknown != 0) return -1;
+		if (error != 0 || unknown != 0) return -1;
+		if (words != null && !isFullyDefined()) return -1;
+		return (int) value;
+	}
+
+	/** Returns the lowest 64 bits of the value, or -1 if any bit is
+	 * undefined. */
+	public long toLongValue() {
+		if (error != 0 || unknown != 0) return -1L;
+		if (words != null && !isFullyDefined()) return -1L;
 		return value;
 	}
 
@@ -286,14 +513,15 @@ public class Value {
 		if (isErrorValue()) return Strings.get("valueError");
 		if (!isFullyDefined()) return Strings.get("valueUnknown");
 		
-		int value = toIntValue();
+		if (width > 64) return toBigInteger(signed).toString();
+		long value = this.value;
 		if (signed) {
-			if (width < 32 && (value >> (width - 1)) != 0) {
-				value |= (-1) << width;
+			if (width < 64 && (value >> (width - 1)) != 0) {
+				value |= (-1L) << width;
 			}
 			return "" + value;
 		} else {
-			return "" + ((long) value & 0xFFFFFFFFL);
+			return Long.toUnsignedString(value);
 		}
 	}
 	
@@ -306,8 +534,27 @@ public class Value {
 			if (width == 0) return "-";
 			if (isErrorValue()) return Strings.get("valueError");
 			if (!isFullyDefined()) return Strings.get("valueUnknown");
-			return Integer.toString(toIntValue(), radix);
+			if (width <= 32) return Integer.toString(toIntValue(), radix);
+			return toBigInteger(false).toString(radix);
+		}
+	}
+
+	/** Returns the number that the value's bits represent, which must all
+	 * be defined. */
+	public BigInteger toBigInteger(boolean signed) {
+		int n = wordCount(width);
+		byte[] bytes = new byte[8 * n + 1]; // big-endian, with room for a sign
+		for (int i = 0; i < n; i++) {
+			long v = getValueWord(i);
+			for (int j = 0; j < 8; j++) {
+				bytes[bytes.length - 1 - 8 * i - j] = (byte) (v >>> (8 * j));
+			}
+		}
+		BigInteger ret = new BigInteger(bytes);
+		if (signed && ret.testBit(width - 1)) {
+			ret = ret.subtract(BigInteger.ONE.shiftLeft(width));
 		}
+		return ret;
 	}
 
 	public String toDisplayString() {
@@ -337,13 +584,28 @@ public class Value {
 			if (this == UNKNOWN) return other;
 			if (other == UNKNOWN) return this;
 			return ERROR;
-		} else {
-			int disagree = (this.value ^ other.value)
+		} else if (this.words == null && other.words == null) {
+			long disagree = (this.value ^ other.value)
 				& ~(this.unknown | other.unknown);
 			return Value.create(Math.max(this.width, other.width),
 				this.error | other.error | disagree,
 				this.unknown & other.unknown,
 				(this.value & ~this.unknown) | (other.value & ~other.unknown));
+		} else {
+			int width = Math.max(this.width, other.width);
+			int n = wordCount(width);
+			long[] e = new long[n];
+			long[] u = new long[n];
+			long[] v = new long[n];
+			for (int i = 0; i < n; i++) {
+				long e0 = this.getErrorWord(i), e1 = other.getErrorWord(i);
+				long u0 = this.getUnknownWord(i), u1 = other.getUnknownWord(i);
+				long v0 = this.getValueWord(i), v1 = other.getValueWord(i);
+				e[i] = e0 | e1 | ((v0 ^ v1) & ~(u0 | u1));
+				u[i] = u0 & u1;
+				v[i] = (v0 & ~u0) | (v1 & ~u1);
+			}
+			return Value.create(width, e, u, v);
 		}
 	}
 
@@ -353,14 +615,28 @@ public class Value {
 			if (this == FALSE || other == FALSE) return FALSE;
 			if (this == TRUE  && other == TRUE ) return TRUE;
 			return ERROR;
-		} else {
-			int false0 = ~this.value & ~this.error & ~this.unknown;
-			int false1 = ~other.value & ~other.error & ~other.unknown;
-			int falses = false0 | false1;
+		} else if (this.words == null && other.words == null) {
+			long false0 = ~this.value & ~this.error & ~this.unknown;
+			long false1 = ~other.value & ~other.error & ~other.unknown;
+			long falses = false0 | false1;
 			return Value.create(Math.max(this.width, other.width),
 					(this.error | other.error | this.unknown | other.unknown) & ~falses,
-					0,
+					0L,
 					this.value & other.value);
+		} else {
+			int width = Math.max(this.width, other.width);
+			int n = wordCount(width);
+			long[] e = new long[n];
+			long[] v = new long[n];
+			for (int i = 0; i < n; i++) {
+				long e0 = this.getErrorWord(i), e1 = other.getErrorWord(i);
+				long u0 = this.getUnknownWord(i), u1 = other.getUnknownWord(i);
+				long v0 = this.getValueWord(i), v1 = other.getValueWord(i);
+				long falses = (~v0 & ~e0 & ~u0) | (~v1 & ~e1 & ~u1);
+				e[i] = (e0 | e1 | u0 | u1) & ~falses;
+				v[i] = v0 & v1;
+			}
+			return Value.create(width, e, null, v);
 		}
 	}
 
@@ -370,14 +646,28 @@ public class Value {
 			if (this == TRUE  || other == TRUE ) return TRUE;
 			if (this == FALSE && other == FALSE) return FALSE;
 			return ERROR;
-		} else {
-			int true0 = this.value & ~this.error & ~this.unknown;
-			int true1 = other.value & ~other.error & ~other.unknown;
-			int trues = true0 | true1;
+		} else if (this.words == null && other.words == null) {
+			long true0 = this.value & ~this.error & ~this.unknown;
+			long true1 = other.value & ~other.error & ~other.unknown;
+			long trues = true0 | true1;
 			return Value.create(Math.max(this.width, other.width),
 				(this.error | other.error | this.unknown | other.unknown) & ~trues,
-				0,
+				0L,
 				this.value | other.value);
+		} else {
+			int width = Math.max(this.width, other.width);
+			int n = wordCount(width);
+			long[] e = new long[n];
+			long[] v = new long[n];
+			for (int i = 0; i < n; i++) {
+				long e0 = this.getErrorWord(i), e1 = other.getErrorWord(i);
+				long u0 = this.getUnknownWord(i), u1 = other.getUnknownWord(i);
+				long v0 = this.getValueWord(i), v1 = other.getValueWord(i);
+				long trues = (v0 & ~e0 & ~u0) | (v1 & ~e1 & ~u1);
+				e[i] = (e0 | e1 | u0 | u1) & ~trues;
+				v[i] = v0 | v1;
+			}
+			return Value.create(width, e, null, v);
 		}
 	}
 
@@ -389,11 +679,22 @@ public class Value {
 			if (this == NIL || other == NIL) return ERROR;
 			if ((this == TRUE) == (other == TRUE)) return FALSE;
 			return TRUE;
-		} else {
+		} else if (this.words == null && other.words == null) {
 			return Value.create(Math.max(this.width, other.width),
 				this.error | other.error | this.unknown | other.unknown,
-				0,
+				0L,
 				this.value ^ other.value);
+		} else {
+			int width = Math.max(this.width, other.width);
+			int n = wordCount(width);
+			long[] e = new long[n];
+			long[] v = new long[n];
+			for (int i = 0; i < n; i++) {
+				e[i] = this.getErrorWord(i) | other.getErrorWord(i)
+					| this.getUnknownWord(i) | other.getUnknownWord(i);
+				v[i] = this.getValueWord(i) ^ other.getValueWord(i);
+			}
+			return Value.create(width, e, null, v);
 		}
 	}
 
@@ -402,16 +703,25 @@ public class Value {
 			if (this == TRUE) return FALSE;
 			if (this == FALSE) return TRUE;
 			return ERROR;
-		} else {
+		} else if (words == null) {
 			return Value.create(this.width,
 				this.error | this.unknown,
-				0,
+				0L,
 				~this.value);
+		} else {
+			int n = words.length / 3;
+			long[] e = new long[n];
+			long[] v = new long[n];
+			for (int i = 0; i < n; i++) {
+				e[i] = words[3 * i] | words[3 * i + 1];
+				v[i] = ~words[3 * i + 2];
+			}
+			return Value.create(this.width, e, null, v);
 		}
 	}
 
 	public Color getColor() {
-		if (error != 0) {
+		if (isErrorValue()) {
 			return ERROR_COLOR;
 		} else if (width == 0) {
 			return NIL_COLOR;
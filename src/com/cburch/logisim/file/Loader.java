@@ -13,6 +13,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
+import java.util.function.Consumer;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.JScrollPane;
@@ -25,10 +26,10 @@ import com.cburch.logisim.util.JFileChoosers;
 import com.cburch.logisim.util.MacCompatibility;
 import com.cburch.logisim.util.StringUtil;
 import com.cburch.logisim.util.ZipClassLoader;
+import com.cburch.logisim.verilog.comp.impl.VerilogModuleBuilder;
+import com.cburch.logisim.verilog.comp.impl.VerilogModuleImpl;
 import com.cburch.logisim.verilog.file.JsonSynthFile;
 
-import com.fasterxml.jackson.databind.JsonNode;
-
 public class Loader implements LibraryLoader {
 	public static final String LOGISIM_EXTENSION = ".circ";
 	public static final FileFilter LOGISIM_FILTER = new LogisimFileFilter();
@@ -445,34 +446,38 @@ public class Loader implements LibraryLoader {
 	}
 
 	/**
-	 * Opens a file chooser dialog for importing a JSON file.
+	 * Opens a file chooser dialog for importing a JSON file, and reads its
+	 * modules one at a time, handing each to a sink as soon as it is built.
 	 *
 	 * @param window the parent component for the dialog
-	 * @return a JsonNode representing the imported JSON file, or null if the user cancels
-	 *         or if an error occurs during loading
+	 * @param builder the builder receiving the ports and cells of each module
+	 * @param sink receives each module of the file, in order
+	 * @return false if the user cancels or if an error occurs during loading
 	 */
-	public JsonNode JSONImportChooser(Component window) {
+	public boolean JSONImportChooser(Component window,
+			VerilogModuleBuilder builder, Consumer<VerilogModuleImpl> sink) {
 		JFileChooser chooser = createChooser();
 		chooser.setFileFilter(JSON_FILTER);
 		chooser.setDialogTitle(Strings.get("jsonOpenDialog"));
 		int check = chooser.showOpenDialog(window);
 		if (check != JFileChooser.APPROVE_OPTION) {
-			return null;
+			return false;
 		}
 
 		File f = chooser.getSelectedFile();
 		if (f == null || !f.exists() || !f.canRead()) {
-			return null;
+			return false;
 		}
 
 		try {
-			return JsonSynthFile.loadAndValidate(f);
+			JsonSynthFile.stream(f, builder, sink);
+			return true;
 		} catch (IOException e) {
 			JOptionPane.showMessageDialog(window,
 				Strings.get("jsonOpenError", e.getMessage()),
 				Strings.get("fileErrorTitle"),
 				JOptionPane.ERROR_MESSAGE);
-			return null;
+			return false;
 		}
 	}
 }
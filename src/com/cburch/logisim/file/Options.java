@@ -14,6 +14,18 @@ public class Options {
 	= new AttributeOption("ignore", Strings.getter("gateUndefinedIgnore"));
 	public static final AttributeOption GATE_UNDEFINED_ERROR
 		= new AttributeOption("error", Strings.getter("gateUndefinedError"));
+	public static final AttributeOption SIM_QUEUE_HEAP
+		= new AttributeOption("heap", Strings.getter("simQueueHeap"));
+	public static final AttributeOption SIM_QUEUE_WHEEL
+		= new AttributeOption("wheel", Strings.getter("simQueueWheel"));
+	public static final AttributeOption SIM_ENGINE_REFERENCE
+		= new AttributeOption("reference", Strings.getter("simEngineReference"));
+	public static final AttributeOption SIM_ENGINE_COMPILED
+		= new AttributeOption("compiled", Strings.getter("simEngineCompiled"));
+	public static final AttributeOption SIM_SUBSTATES_SERIAL
+		= new AttributeOption("serial", Strings.getter("simSubstatesSerial"));
+	public static final AttributeOption SIM_SUBSTATES_PARALLEL
+		= new AttributeOption("parallel", Strings.getter("simSubstatesParallel"));
 		
 	public static final Attribute<Integer> sim_limit_attr
 		= Attributes.forInteger("simlimit", Strings.getter("simLimitOption"));
@@ -22,14 +34,25 @@ public class Options {
 	public static final Attribute<AttributeOption> ATTR_GATE_UNDEFINED
 		= Attributes.forOption("gateUndefined", Strings.getter("gateUndefinedOption"),
 				new AttributeOption[] { GATE_UNDEFINED_IGNORE, GATE_UNDEFINED_ERROR });
+	public static final Attribute<AttributeOption> ATTR_SIM_QUEUE
+		= Attributes.forOption("simqueue", Strings.getter("simQueueOption"),
+				new AttributeOption[] { SIM_QUEUE_HEAP, SIM_QUEUE_WHEEL });
+	public static final Attribute<AttributeOption> ATTR_SIM_ENGINE
+		= Attributes.forOption("simengine", Strings.getter("simEngineOption"),
+				new AttributeOption[] { SIM_ENGINE_REFERENCE, SIM_ENGINE_COMPILED });
+	public static final Attribute<AttributeOption> ATTR_SIM_SUBSTATES
+		= Attributes.forOption("simsubstates", Strings.getter("simSubstatesOption"),
+				new AttributeOption[] { SIM_SUBSTATES_SERIAL, SIM_SUBSTATES_PARALLEL });
 	
 	public static final Integer sim_rand_dflt = Integer.valueOf(32);
 
 	private static final Attribute<?>[] ATTRIBUTES = {
-			ATTR_GATE_UNDEFINED, sim_limit_attr, sim_rand_attr,
+			ATTR_GATE_UNDEFINED, sim_limit_attr, sim_rand_attr, ATTR_SIM_QUEUE,
+			ATTR_SIM_ENGINE, ATTR_SIM_SUBSTATES,
 	};
 	private static final Object[] DEFAULTS = {
 			GATE_UNDEFINED_IGNORE, Integer.valueOf(1000), Integer.valueOf(0),
+			SIM_QUEUE_HEAP, SIM_ENGINE_REFERENCE, SIM_SUBSTATES_SERIAL,
 	};
 	
 	private AttributeSet attrs;
@@ -0,0 +1,188 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.hex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The headers of a 32-bit little-endian RISC-V ELF file, as produced for RV32:
+ * its entry point, its loadable segments and its symbol table.
+ */
+public class ElfFile {
+	private static final int EM_RISCV = 243;
+	private static final int PT_LOAD = 1;
+	private static final int SHT_SYMTAB = 2;
+	private static final int SHN_UNDEF = 0;
+	private static final int STT_SECTION = 3;
+	private static final int STT_FILE = 4;
+
+	public static class Segment {
+		private long offset;
+		private long address;
+		private long size;
+
+		Segment(long offset, long address, long size) {
+			this.offset = offset;
+			this.address = address;
+			this.size = size;
+		}
+
+		/** Returns the position of the segment's contents in the file. */
+		public long getOffset() { return offset; }
+
+		/** Returns the physical address at which the segment is loaded. */
+		public long getAddress() { return address; }
+
+		/** Returns the number of bytes stored in the file. */
+		public long getSize() { return size; }
+	}
+
+	public static class Symbol {
+		private String name;
+		private long value;
+		private long size;
+
+		Symbol(String name, long value, long size) {
+			this.name = name;
+			this.value = value;
+			this.size = size;
+		}
+
+		public String getName() { return name; }
+		public long getValue() { return value; }
+		public long getSize() { return size; }
+	}
+
+	private File file;
+	private long entry;
+	private List<Segment> segments;
+	private List<Symbol> symbols;
+
+	private ElfFile(File file, long entry, List<Segment> segments,
+			List<Symbol> symbols) {
+		this.file = file;
+		this.entry = entry;
+		this.segments = Collections.unmodifiableList(segments);
+		this.symbols = Collections.unmodifiableList(symbols);
+	}
+
+	public File getFile() { return file; }
+	public long getEntry() { return entry; }
+
+	/** Returns the loadable segments holding data in the file. */
+	public List<Segment> getSegments() { return segments; }
+
+	/** Returns the named symbols defined in some section, other than
+	 * section and file symbols. */
+	public List<Symbol> getSymbols() { return symbols; }
+
+	/** Returns whether the file starts with the ELF magic number. */
+	static boolean isElf(byte[] start) {
+		return start.length >= 4 && start[0] == 0x7f && start[1] == 'E'
+			&& start[2] == 'L' && start[3] == 'F';
+	}
+
+	public static ElfFile read(File src) throws IOException {
+		RandomAccessFile file;
+		try {
+			file = new RandomAccessFile(src, "r");
+		} catch (IOException e) {
+			throw new IOException(Strings.get("hexFileOpenError"));
+		}
+		try {
+			return read(src, file.getChannel());
+		} finally {
+			file.close();
+		}
+	}
+
+	static ElfFile read(File src, FileChannel channel) throws IOException {
+		ByteBuffer ehdr = readBytes(channel, 0, 52);
+		if (!isElf(new byte[] { ehdr.get(0), ehdr.get(1), ehdr.get(2), ehdr.get(3) })
+				|| ehdr.get(4) != 1 || ehdr.get(5) != 1
+				|| (ehdr.getShort(18) & 0xffff) != EM_RISCV) {
+			throw new IOException(Strings.get("hexElfFormatError"));
+		}
+		long entry = ehdr.getInt(24) & 0xffffffffL;
+		long phoff = ehdr.getInt(28) & 0xffffffffL;
+		long shoff = ehdr.getInt(32) & 0xffffffffL;
+		int phentsize = ehdr.getShort(42) & 0xffff;
+		int phnum = ehdr.getShort(44) & 0xffff;
+		int shentsize = ehdr.getShort(46) & 0xffff;
+		int shnum = ehdr.getShort(48) & 0xffff;
+
+		ArrayList<Segment> segments = new ArrayList<Segment>();
+		for (int i = 0; i < phnum; i++) {
+			ByteBuffer phdr = readBytes(channel, phoff + (long) i * phentsize, 32);
+			if (phdr.getInt(0) != PT_LOAD) continue;
+			long filesz = phdr.getInt(16) & 0xffffffffL;
+			if (filesz == 0) continue;
+			segments.add(new Segment(phdr.getInt(4) & 0xffffffffL,
+					phdr.getInt(12) & 0xffffffffL, filesz));
+		}
+
+		ArrayList<Symbol> symbols = new ArrayList<Symbol>();
+		if (shoff != 0) {
+			ByteBuffer[] shdrs = new ByteBuffer[shnum];
+			for (int i = 0; i < shnum; i++) {
+				shdrs[i] = readBytes(channel, shoff + (long) i * shentsize, 40);
+			}
+			for (int i = 0; i < shnum; i++) {
+				if (shdrs[i].getInt(4) != SHT_SYMTAB) continue;
+				int link = shdrs[i].getInt(24);
+				if (link <= 0 || link >= shnum) continue;
+				ByteBuffer symtab = readSection(channel, shdrs[i]);
+				ByteBuffer strtab = readSection(channel, shdrs[link]);
+				for (int pos = 16; pos + 16 <= symtab.limit(); pos += 16) {
+					int type = symtab.get(pos + 12) & 0xf;
+					int shndx = symtab.getShort(pos + 14) & 0xffff;
+					if (shndx == SHN_UNDEF || type == STT_SECTION || type == STT_FILE) continue;
+					String name = readString(strtab, symtab.getInt(pos));
+					if (name.length() == 0) continue;
+					symbols.add(new Symbol(name, symtab.getInt(pos + 4) & 0xffffffffL,
+							symtab.getInt(pos + 8) & 0xffffffffL));
+				}
+			}
+		}
+		return new ElfFile(src, entry, segments, symbols);
+	}
+
+	private static ByteBuffer readBytes(FileChannel channel, long pos, int len)
+			throws IOException {
+		ByteBuffer ret = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+		while (ret.hasRemaining()) {
+			if (channel.read(ret, pos + ret.position()) < 0) {
+				throw new IOException(Strings.get("hexElfFormatError"));
+			}
+		}
+		return ret;
+	}
+
+	private static ByteBuffer readSection(FileChannel channel, ByteBuffer shdr)
+			throws IOException {
+		long offset = shdr.getInt(16) & 0xffffffffL;
+		long size = shdr.getInt(20) & 0xffffffffL;
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException(Strings.get("hexElfFormatError"));
+		}
+		return readBytes(channel, offset, (int) size);
+	}
+
+	private static String readString(ByteBuffer strtab, int index) {
+		if (index < 0 || index >= strtab.limit()) return "";
+		int end = index;
+		while (end < strtab.limit() && strtab.get(end) != 0) end++;
+		StringBuilder ret = new StringBuilder();
+		for (int i = index; i < end; i++) ret.append((char) (strtab.get(i) & 0xff));
+		return ret.toString();
+	}
+}
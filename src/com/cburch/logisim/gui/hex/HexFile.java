@@ -3,11 +3,14 @@
 
 package com.cburch.logisim.gui.hex;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.Arrays;
@@ -20,6 +23,11 @@ public class HexFile {
 	
 	private static final String RAW_IMAGE_HEADER = "v2.0 raw";
 	private static final String COMMENT_MARKER = "#";
+	private static final String BINARY_IMAGE_EXTENSION = ".img";
+	// memories up to this many words are filled immediately, so that
+	// their listeners see (and can undo) each change; larger ones read
+	// binary images lazily
+	private static final long MAX_EAGER_WORDS = 1 << 16;
 	
 	private static class HexReader {
 		private BufferedReader in;
@@ -184,6 +192,18 @@ public class HexFile {
 	}
 
 	public static void open(HexModel dst, File src) throws IOException {
+		MappedImage image;
+		try {
+			image = MappedImage.open(src, dst.getValueWidth());
+		} catch (IOException e) {
+			throw new IOException(e.getMessage() == null
+					? Strings.get("hexFileReadError") : e.getMessage());
+		}
+		if (image != null) {
+			open(dst, image);
+			return;
+		}
+
 		BufferedReader in;
 		try {
 			in = new BufferedReader(new FileReader(src));
@@ -210,7 +230,31 @@ public class HexFile {
 		}
 	}
 
+	public static void open(HexModel dst, MappedImage image) throws IOException {
+		long first = dst.getFirstOffset();
+		long size = dst.getLastOffset() - first + 1;
+		long count = image.getWordCount();
+		if (count > size) {
+			throw new IOException(Strings.get("hexFileSizeError"));
+		}
+		if (dst instanceof MappedImage.Target && size > MAX_EAGER_WORDS) {
+			((MappedImage.Target) dst).mapImage(image);
+		} else {
+			int[] values = new int[4096];
+			for (long offs = 0; offs < count; offs += values.length) {
+				if (count - offs < values.length) values = new int[(int) (count - offs)];
+				image.read(offs, values);
+				dst.set(first + offs, values);
+			}
+			dst.fill(first + count, size - count, 0);
+		}
+	}
+
 	public static void save(File dst, HexModel src) throws IOException {
+		if (dst.getName().toLowerCase().endsWith(BINARY_IMAGE_EXTENSION)) {
+			saveBinary(dst, src);
+			return;
+		}
 		FileWriter out;
 		try {
 			out = new FileWriter(dst);
@@ -232,4 +276,39 @@ public class HexFile {
 			}
 		}
 	}
+
+	/** Writes a binary image, which can later be read lazily through a
+	 * {@link MappedImage}. */
+	public static void saveBinary(File dst, HexModel src) throws IOException {
+		int width = src.getValueWidth();
+		int bytesPerWord = (width + 7) / 8;
+		long first = src.getFirstOffset();
+		long last = src.getLastOffset();
+		while (last >= first && src.get(last) == 0) last--;
+
+		OutputStream out;
+		try {
+			out = new BufferedOutputStream(new FileOutputStream(dst));
+		} catch (IOException e) {
+			throw new IOException(Strings.get("hexFileOpenError"));
+		}
+		try {
+			String header = MappedImage.BINARY_IMAGE_HEADER + " " + width + "\n";
+			for (int i = 0; i < header.length(); i++) out.write(header.charAt(i));
+			for (long cur = first; cur <= last; cur++) {
+				int val = src.get(cur);
+				for (int b = 0; b < bytesPerWord; b++) {
+					out.write(val >>> (8 * b));
+				}
+			}
+		} catch (IOException e) {
+			throw new IOException(Strings.get("hexFileWriteError"));
+		} finally {
+			try {
+				out.close();
+			} catch (IOException e) {
+				throw new IOException(Strings.get("hexFileWriteError"));
+			}
+		}
+	}
 }
@@ -0,0 +1,208 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.hex;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * A memory image read from a binary file mapped into memory, so that its
+ * words are read from the file only as they are needed. The file may be a
+ * binary image as written by {@link HexFile}, an ELF file, whose loadable
+ * segments are placed relative to the lowest one unless a base address is
+ * given, or a flat binary file.
+ * Words are stored in little-endian order, in as many bytes as they need.
+ */
+public class MappedImage {
+	/** A memory whose pages can be read lazily from a mapped image. */
+	public static interface Target {
+		/** Replaces the whole contents of the memory by the image,
+		 * including zeroes past its end. */
+		public void mapImage(MappedImage image);
+	}
+
+	static final String BINARY_IMAGE_HEADER = "v2.0 bin";
+	static final String FLAT_BINARY_EXTENSION = ".bin";
+
+	private static class Segment {
+		long byteStart;
+		ByteBuffer data;
+
+		Segment(long byteStart, ByteBuffer data) {
+			this.byteStart = byteStart;
+			this.data = data.order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
+	private int bytesPerWord;
+	private ArrayList<Segment> segments = new ArrayList<Segment>();
+	private long wordCount = 0;
+
+	private MappedImage(int bytesPerWord) {
+		this.bytesPerWord = bytesPerWord;
+	}
+
+	/** Returns the image held in a binary file, or null if the file is
+	 * not in one of the binary formats. Words of the given width are used
+	 * except for binary images, which record their own width. */
+	public static MappedImage open(File src, int width) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(src, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(64);
+			channel.read(header, 0);
+			header.flip();
+			byte[] start = new byte[header.remaining()];
+			header.get(start);
+
+			if (ElfFile.isElf(start)) {
+				return openElf(src, channel, width);
+			}
+			int eol = indexOf(start, '\n');
+			String line = eol < 0 ? null : firstLine(start, eol);
+			if (line != null && line.startsWith(BINARY_IMAGE_HEADER)) {
+				int fileWidth;
+				try {
+					fileWidth = Integer.parseInt(line.substring(BINARY_IMAGE_HEADER.length()).trim());
+				} catch (NumberFormatException e) {
+					throw new IOException(Strings.get("hexHeaderFormatError"));
+				}
+				if (fileWidth < 1 || fileWidth > 32) {
+					throw new IOException(Strings.get("hexHeaderFormatError"));
+				}
+				long offs = eol + 1; // also past any '\r' before the newline
+				MappedImage ret = new MappedImage((fileWidth + 7) / 8);
+				ret.addSegment(0, map(channel, offs, channel.size() - offs));
+				return ret;
+			}
+			if (src.getName().toLowerCase().endsWith(FLAT_BINARY_EXTENSION)) {
+				MappedImage ret = new MappedImage((width + 7) / 8);
+				ret.addSegment(0, map(channel, 0, channel.size()));
+				return ret;
+			}
+			return null;
+		} finally {
+			file.close();
+		}
+	}
+
+	/** Returns the image of an ELF file's loadable segments, placed so
+	 * that the given byte address is the image's first word. */
+	public static MappedImage open(ElfFile elf, long base, int width)
+			throws IOException {
+		RandomAccessFile file;
+		try {
+			file = new RandomAccessFile(elf.getFile(), "r");
+		} catch (IOException e) {
+			throw new IOException(Strings.get("hexFileOpenError"));
+		}
+		try {
+			return fromElf(elf, file.getChannel(), base, width);
+		} finally {
+			file.close();
+		}
+	}
+
+	public int getBytesPerWord() {
+		return bytesPerWord;
+	}
+
+	/** Returns the number of words up to the end of the last segment. */
+	public long getWordCount() {
+		return wordCount;
+	}
+
+	public int get(long addr) {
+		long byteAddr = addr * bytesPerWord;
+		for (Segment seg : segments) {
+			long offs = byteAddr - seg.byteStart;
+			if (offs >= 0 && offs + bytesPerWord <= seg.data.limit()) {
+				int i = (int) offs;
+				switch (bytesPerWord) {
+				case 1: return seg.data.get(i) & 0xff;
+				case 2: return seg.data.getShort(i) & 0xffff;
+				case 4: return seg.data.getInt(i);
+				default: break;
+				}
+			}
+		}
+		int ret = 0;
+		for (int b = 0; b < bytesPerWord; b++) {
+			ret |= getByte(byteAddr + b) << (8 * b);
+		}
+		return ret;
+	}
+
+	/** Reads the words starting at an address into an array. */
+	public void read(long start, int[] dst) {
+		for (int i = 0; i < dst.length; i++) dst[i] = get(start + i);
+	}
+
+	private int getByte(long byteAddr) {
+		for (Segment seg : segments) {
+			long offs = byteAddr - seg.byteStart;
+			if (offs >= 0 && offs < seg.data.limit()) {
+				return seg.data.get((int) offs) & 0xff;
+			}
+		}
+		return 0;
+	}
+
+	private void addSegment(long byteStart, ByteBuffer data) {
+		segments.add(new Segment(byteStart, data));
+		long end = (byteStart + data.limit() + bytesPerWord - 1) / bytesPerWord;
+		if (end > wordCount) wordCount = end;
+	}
+
+	private static ByteBuffer map(FileChannel channel, long offs, long len)
+			throws IOException {
+		if (len > Integer.MAX_VALUE) {
+			throw new IOException(Strings.get("hexFileSizeError"));
+		}
+		return channel.map(FileChannel.MapMode.READ_ONLY, offs, len);
+	}
+
+	private static int indexOf(byte[] data, char c) {
+		for (int i = 0; i < data.length; i++) {
+			if (data[i] == c) return i;
+		}
+		return -1;
+	}
+
+	/** Returns the text before the newline at eol, without any '\r'. */
+	private static String firstLine(byte[] data, int eol) {
+		int end = eol > 0 && data[eol - 1] == '\r' ? eol - 1 : eol;
+		StringBuilder ret = new StringBuilder();
+		for (int j = 0; j < end; j++) ret.append((char) (data[j] & 0xff));
+		return ret.toString();
+	}
+
+	private static MappedImage openElf(File src, FileChannel channel, int width)
+			throws IOException {
+		ElfFile elf = ElfFile.read(src, channel);
+		long base = Long.MAX_VALUE;
+		for (ElfFile.Segment seg : elf.getSegments()) {
+			base = Math.min(base, seg.getAddress());
+		}
+		return fromElf(elf, channel, base, width);
+	}
+
+	private static MappedImage fromElf(ElfFile elf, FileChannel channel,
+			long base, int width) throws IOException {
+		MappedImage ret = new MappedImage((width + 7) / 8);
+		for (ElfFile.Segment seg : elf.getSegments()) {
+			if (seg.getAddress() < base) {
+				throw new IOException(Strings.get("hexElfAddressError"));
+			}
+			ret.addSegment(seg.getAddress() - base,
+					map(channel, seg.getOffset(), seg.getSize()));
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,142 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.log;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.cburch.logisim.data.Value;
+
+/**
+ * Writes a log as a compact binary trace. The file starts with the magic
+ * bytes <code>LGTRACE1</code>, followed by blocks of two kinds:
+ *
+ * <pre>
+ *   'H' count name...          the columns of the entries that follow,
+ *                              each name in modified UTF-8
+ *   'T' tick                   the tick from which the next entry's delta
+ *                              counts; it precedes the first entry each
+ *                              time the file is opened to append
+ *   'E' delta value...         an entry, delta ticks after the one
+ *                              before it, or after the last 'T' tick
+ * </pre>
+ *
+ * Each value is its width plus one (0 for an absent value), then a flag
+ * byte set to 1 if some bit is unknown or an error, then for each 64-bit
+ * word its error and unknown masks if flagged, and its value. Widths and
+ * counts are unsigned variable-length integers, 7 bits per byte lowest
+ * first. Ticks and deltas are signed ones mapped to unsigned as 0, -1,
+ * 1, -2..., since the tick count restarts when the simulation is reset.
+ * Masks take as many little-endian bytes as the word's width needs.
+ */
+class BinaryLogWriter extends LogWriter {
+	static final byte[] MAGIC = { 'L', 'G', 'T', 'R', 'A', 'C', 'E', '1' };
+
+	private DataOutputStream out;
+	private long lastTick = 0;
+	private boolean tickWritten = false;
+
+	public BinaryLogWriter(File file) throws IOException {
+		boolean fresh = !file.exists() || file.length() == 0;
+		if (!fresh && !startsWithMagic(file)) {
+			throw new IOException(file + " is not a binary log");
+		}
+		out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(file, true), 1 << 16));
+		if (fresh) out.write(MAGIC);
+	}
+
+	private static boolean startsWithMagic(File file) throws IOException {
+		byte[] head = new byte[MAGIC.length];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(head);
+		} catch (EOFException e) {
+			return false;
+		} finally {
+			in.close();
+		}
+		return Arrays.equals(head, MAGIC);
+	}
+
+	@Override
+	public void writeHeader(String[] names, boolean visible) throws IOException {
+		out.writeByte('H');
+		writeCount(names.length);
+		for (String name : names) out.writeUTF(name);
+	}
+
+	@Override
+	public void writeEntry(long tick, Value[] values, int[] radix)
+			throws IOException {
+		if (!tickWritten) {
+			// the entries already in the file count from some other tick
+			out.writeByte('T');
+			writeSigned(tick);
+			lastTick = tick;
+			tickWritten = true;
+		}
+		long delta = tick - lastTick;
+		out.writeByte('E');
+		writeSigned(delta);
+		lastTick = tick;
+		for (Value v : values) {
+			if (v == null) {
+				writeCount(0);
+				continue;
+			}
+			int width = v.getWidth();
+			writeCount(width + 1);
+			int words = (width + 63) >>> 6;
+			boolean flagged = false;
+			for (int i = 0; i < words; i++) {
+				if (v.getErrorWord(i) != 0 || v.getUnknownWord(i) != 0) flagged = true;
+			}
+			out.writeByte(flagged ? 1 : 0);
+			for (int i = 0; i < words; i++) {
+				int bytes = Math.min(8, ((width - 64 * i) + 7) >>> 3);
+				if (flagged) {
+					writeWord(v.getErrorWord(i), bytes);
+					writeWord(v.getUnknownWord(i), bytes);
+				}
+				writeWord(v.getValueWord(i), bytes);
+			}
+		}
+	}
+
+	private void writeSigned(long n) throws IOException {
+		writeCount((n << 1) ^ (n >> 63));
+	}
+
+	private void writeCount(long n) throws IOException {
+		while ((n & ~0x7FL) != 0) {
+			out.writeByte((int) (n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+		out.writeByte((int) n);
+	}
+
+	private void writeWord(long word, int bytes) throws IOException {
+		for (int b = 0; b < bytes; b++) {
+			out.writeByte((int) (word >>> (8 * b)));
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
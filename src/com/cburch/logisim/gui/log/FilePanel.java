@@ -13,6 +13,7 @@ import java.io.IOException;
 
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
@@ -39,6 +40,7 @@ class FilePanel extends LogPanel {
 			enableButton.setEnabled(file != null);
 			
 			headerCheckBox.setSelected(model.getFileHeader());
+			formatCombo.setSelectedIndex(model.getFileFormat());
 		}
 		
 		private void computeEnableItems(Model model) {
@@ -91,6 +93,9 @@ class FilePanel extends LogPanel {
 				getModel().setFile(file);
 			} else if (src == headerCheckBox) {
 				getModel().setFileHeader(headerCheckBox.isSelected());
+			} else if (src == formatCombo) {
+				int index = formatCombo.getSelectedIndex();
+				if (index >= 0) getModel().setFileFormat(index);
 			}
 		}
 	}
@@ -102,6 +107,8 @@ class FilePanel extends LogPanel {
 	private JTextField fileField = new JTextField();
 	private JButton selectButton = new JButton();
 	private JCheckBox headerCheckBox = new JCheckBox();
+	private JLabel formatLabel = new JLabel();
+	private JComboBox formatCombo = new JComboBox();
 	private JFileChooser chooser = JFileChoosers.create();
 	
 	public FilePanel(LogFrame frame) {
@@ -138,11 +145,16 @@ class FilePanel extends LogPanel {
 		  gc.fill = GridBagConstraints.NONE;
 		glue = new JPanel(); gc.weighty = 1.0; gb.setConstraints(glue, gc); add(glue); gc.weighty = 0.0;
 		gb.setConstraints(headerCheckBox, gc); add(headerCheckBox);
+		JPanel formatPanel = new JPanel();
+		formatPanel.add(formatLabel);
+		formatPanel.add(formatCombo);
+		gb.setConstraints(formatPanel, gc);    add(formatPanel);
 		glue = new JPanel(); gc.weighty = 1.0; gb.setConstraints(glue, gc); add(glue); gc.weighty = 0.0;
 		
 		enableButton.addActionListener(listener);
 		selectButton.addActionListener(listener);
 		headerCheckBox.addActionListener(listener);
+		formatCombo.addActionListener(listener);
 		modelChanged(null, getModel());
 		localeChanged();
 	}
@@ -163,6 +175,14 @@ class FilePanel extends LogPanel {
 		fileLabel.setText(Strings.get("fileLabel") + " ");
 		selectButton.setText(Strings.get("fileSelectButton"));
 		headerCheckBox.setText(Strings.get("fileHeaderCheck"));
+		formatLabel.setText(Strings.get("fileFormatLabel") + " ");
+		formatCombo.removeActionListener(listener);
+		formatCombo.removeAllItems();
+		formatCombo.addItem(Strings.get("fileFormatText"));
+		formatCombo.addItem(Strings.get("fileFormatBinary"));
+		formatCombo.addItem(Strings.get("fileFormatVcd"));
+		formatCombo.setSelectedIndex(getModel().getFileFormat());
+		formatCombo.addActionListener(listener);
 	}
 
 	@Override
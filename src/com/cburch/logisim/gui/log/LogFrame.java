@@ -192,6 +192,8 @@ public class LogFrame extends LFrame {
 		curSimulator = value;
 		curModel = data;
 
+		// the log must see every propagation, on the simulation thread,
+		// while the values it records are settled
 		if (curSimulator != null) curSimulator.addSimulatorListener(myListener);
 		if (curModel != null) curModel.setSelected(this, true);
 		setTitle(computeTitle(curModel, project));
@@ -0,0 +1,94 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A ring of words passing log records from the one thread producing them
+ * to the one thread consuming them, without locking. The producer reserves
+ * room for a record, puts its words and publishes it; the consumer reads
+ * the published words and then releases them. Positions only grow, and are
+ * reduced to the ring's size as they are used.
+ */
+class LogRing {
+	private final long[] buffer;
+	private final int mask;
+	// words up to this position have been published by the producer
+	private final AtomicLong tail = new AtomicLong();
+	// words up to this position have been released by the consumer
+	private final AtomicLong head = new AtomicLong();
+	// producer's position, including words not yet published
+	private long pending = 0;
+	private volatile boolean closed = false;
+	private volatile Thread consumer = null;
+
+	public LogRing(int logSize) {
+		buffer = new long[1 << logSize];
+		mask = buffer.length - 1;
+	}
+
+	public int capacity() {
+		return buffer.length;
+	}
+
+	/** Sets the thread woken once the ring becomes half full. */
+	public void setConsumer(Thread value) {
+		consumer = value;
+	}
+
+	/** Makes every later reservation fail, so that a producer never waits
+	 * on a consumer that has stopped. */
+	public void close() {
+		closed = true;
+	}
+
+	/**
+	 * Waits until there is room for a record of the given number of words,
+	 * returning false if the record can never fit or the ring is closed.
+	 */
+	public boolean reserve(int words) {
+		if (words > buffer.length) return false;
+		while (pending + words - head.get() > buffer.length) {
+			if (closed) return false;
+			wake();
+			LockSupport.parkNanos(100000);
+		}
+		return !closed;
+	}
+
+	public void put(long value) {
+		buffer[(int) (pending & mask)] = value;
+		pending++;
+	}
+
+	public void publish() {
+		tail.lazySet(pending);
+		if (pending - head.get() > buffer.length / 2) wake();
+	}
+
+	private void wake() {
+		Thread t = consumer;
+		if (t != null) LockSupport.unpark(t);
+	}
+
+	/** Returns the position up to which the consumer may read. */
+	public long getTail() {
+		return tail.get();
+	}
+
+	public long getHead() {
+		return head.get();
+	}
+
+	public long get(long pos) {
+		return buffer[(int) (pos & mask)];
+	}
+
+	/** Gives the words before a position back to the producer. */
+	public void release(long pos) {
+		head.lazySet(pos);
+	}
+}
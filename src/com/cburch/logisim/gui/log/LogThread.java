@@ -3,135 +3,288 @@
 
 package com.cburch.logisim.gui.log;
 
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.swing.SwingUtilities;
 
 import com.cburch.logisim.data.Value;
 
+/**
+ * Writes the entries of a log to its file. The simulation thread only
+ * copies the words of each entry's values into a ring; this thread drains
+ * the ring in batches, formats the entries and writes them, so that long
+ * captures do not slow the simulation down.
+ */
 class LogThread extends Thread implements ModelListener {
 	// file will be flushed with at least this frequency
 	private static final int FLUSH_FREQUENCY = 500;
-	
+
 	// file will be closed after waiting this many milliseconds between writes
 	private static final int IDLE_UNTIL_CLOSE = 10000;
-	
+
+	// entries pass through a ring of this many words (as a power of 2)
+	private static final int RING_SIZE = 16;
+
+	private static class Header {
+		int generation;
+		SelectionItem[] items;
+
+		Header(int generation, SelectionItem[] items) {
+			this.generation = generation;
+			this.items = items;
+		}
+	}
+
 	private Model model;
-	private boolean canceled = false;
+	private volatile boolean canceled = false;
 	private Object lock = new Object();
-	private PrintWriter writer = null;
+	private LogRing ring = new LogRing(RING_SIZE);
+	private ConcurrentLinkedQueue<Header> headers = new ConcurrentLinkedQueue<Header>();
+	private volatile int generation = 0;
+	private volatile boolean snapshotRequested = false;
+
+	// the rest is used only while holding lock
+	private LogWriter writer = null;
+	private File writerFile = null;
+	private int writerFormat = -1;
+	private File failedFile = null;
+	private Header header;
 	private boolean headerDirty = true;
 	private long lastWrite = 0;
-	
+	private long lastTick = 0;
+
 	public LogThread(Model model) {
 		this.model = model;
+		this.header = new Header(0, snapshotSelection());
 		model.addModelListener(this);
+		ring.setConsumer(this);
 	}
-	
+
 	@Override
 	public void run() {
 		while (!canceled) {
 			synchronized(lock) {
+				drain();
+				if (snapshotRequested) writeSnapshot();
 				if (writer != null) {
-					if (System.currentTimeMillis() - lastWrite > IDLE_UNTIL_CLOSE) {
-						writer.close();
-						writer = null;
+					if (System.currentTimeMillis() - lastWrite > IDLE_UNTIL_CLOSE
+						&& writer.isAppendable()) {
+						closeWriter();
 					} else {
-						writer.flush();
+						try {
+							writer.flush();
+						} catch (IOException e) {
+							fileFailed();
+						}
 					}
 				}
 			}
-			try {
-				Thread.sleep(FLUSH_FREQUENCY);
-			} catch (InterruptedException e) { }
+			LockSupport.parkNanos(FLUSH_FREQUENCY * 1000000L);
 		}
 		synchronized(lock) {
-			if (writer != null) {
-				writer.close();
-				writer = null;
-			}
+			drain();
+			closeWriter();
 		}
 	}
-	
+
 	public void cancel() {
+		canceled = true;
+		ring.close();
 		synchronized(lock) {
-			canceled = true;
-			if (writer != null) {
-				writer.close();
-				writer = null;
-			}
+			drain();
+			closeWriter();
 		}
+		LockSupport.unpark(this);
 	}
 
 	public void selectionChanged(ModelEvent event) {
-		headerDirty = true;
+		Header h = new Header(generation + 1, snapshotSelection());
+		headers.add(h);
+		generation = h.generation;
 	}
 
 	public void entryAdded(ModelEvent event, Value[] values) {
-		synchronized(lock) {
-			if (isFileEnabled()) addEntry(values);
+		if (!isFileEnabled()) return;
+		int words = 3;
+		for (Value v : values) {
+			words += 1 + (v == null ? 0 : 3 * ((v.getWidth() + 63) >>> 6));
 		}
+		if (!ring.reserve(words)) return;
+		ring.put(generation);
+		ring.put(model.getCircuitState().getPropagator().getTickCount());
+		ring.put(values.length);
+		for (Value v : values) {
+			if (v == null) {
+				ring.put(-1);
+				continue;
+			}
+			int width = v.getWidth();
+			ring.put(width);
+			for (int i = 0, n = (width + 63) >>> 6; i < n; i++) {
+				ring.put(v.getErrorWord(i));
+				ring.put(v.getUnknownWord(i));
+				ring.put(v.getValueWord(i));
+			}
+		}
+		ring.publish();
 	}
 
 	public void filePropertyChanged(ModelEvent event) {
 		synchronized(lock) {
+			drain();
+			failedFile = null;
 			if (isFileEnabled()) {
 				if (writer == null) {
-					Selection sel = model.getSelection();
-					Value[] values = new Value[sel.size()];
-					boolean found = false;
-					for (int i = 0; i < values.length; i++) {
-						values[i] = model.getValueLog(sel.get(i)).getLast();
-						if (values[i] != null) found = true;
-					}
-					if (found) addEntry(values);
+					snapshotRequested = true;
+					LockSupport.unpark(this);
 				}
 			} else {
-				if (writer != null) {
-					writer.close();
-					writer = null;
-				}
+				closeWriter();
 			}
 		}
 	}
-	
+
 	private boolean isFileEnabled() {
 		return !canceled && model.isSelected() && model.isFileEnabled()
 			&& model.getFile() != null;
 	}
-	
-	// Should hold lock and have verified that isFileEnabled() before
+
+	private SelectionItem[] snapshotSelection() {
+		Selection sel = model.getSelection();
+		SelectionItem[] ret = new SelectionItem[sel.size()];
+		for (int i = 0; i < ret.length; i++) ret[i] = sel.get(i);
+		return ret;
+	}
+
+	// Should hold lock. Writes out the entries published to the ring, which
+	// were added while the file was enabled, even if it has been disabled
+	// since.
+	private void drain() {
+		long pos = ring.getHead();
+		long end = ring.getTail();
+		if (pos == end) return;
+		boolean enabled = model.getFile() != null;
+		while (pos < end) {
+			int gen = (int) ring.get(pos);
+			long tick = ring.get(pos + 1);
+			int count = (int) ring.get(pos + 2);
+			pos += 3;
+			Value[] values = new Value[count];
+			for (int i = 0; i < count; i++) {
+				int width = (int) ring.get(pos++);
+				if (width < 0) continue;
+				int n = (width + 63) >>> 6;
+				if (n <= 1) {
+					values[i] = Value.create(width, ring.get(pos),
+							ring.get(pos + 1), ring.get(pos + 2));
+				} else {
+					long[] error = new long[n];
+					long[] unknown = new long[n];
+					long[] value = new long[n];
+					for (int j = 0; j < n; j++) {
+						error[j] = ring.get(pos + 3 * j);
+						unknown[j] = ring.get(pos + 3 * j + 1);
+						value[j] = ring.get(pos + 3 * j + 2);
+					}
+					values[i] = Value.create(width, error, unknown, value);
+				}
+				pos += 3 * n;
+			}
+			if (enabled) {
+				useGeneration(gen);
+				addEntry(tick, values);
+			}
+		}
+		ring.release(pos);
+	}
+
+	private void useGeneration(int gen) {
+		if (header.generation == gen) return;
+		for (Header h = headers.peek(); h != null && h.generation <= gen; h = headers.peek()) {
+			headers.poll();
+			header = h;
+			headerDirty = true;
+		}
+	}
+
+	private void writeSnapshot() {
+		snapshotRequested = false;
+		if (writer != null || !isFileEnabled()) return;
+		useGeneration(generation);
+		Value[] values = new Value[header.items.length];
+		boolean found = false;
+		for (int i = 0; i < values.length; i++) {
+			ValueLog log = model.getValueLog(header.items[i]);
+			values[i] = log == null ? null : log.getLast();
+			if (values[i] != null) found = true;
+		}
+		if (found) addEntry(lastTick, values);
+	}
+
+	// Should hold lock and have verified that there is a file before
 	// entering this method.
-	private void addEntry(Value[] values) {
+	private void addEntry(long tick, Value[] values) {
+		File file = model.getFile();
+		int format = model.getFileFormat();
+		if (writer != null && (!file.equals(writerFile) || format != writerFormat)) {
+			closeWriter();
+		}
 		if (writer == null) {
+			if (file.equals(failedFile)) return;
 			try {
-				writer = new PrintWriter(new FileWriter(model.getFile(), true));
+				writer = LogWriter.create(format, file,
+						model.getCircuitState().getCircuit().getName());
 			} catch (IOException e) {
-				model.setFile(null);
+				fileFailed();
 				return;
 			}
-		}
-		Selection sel = model.getSelection();
-		if (headerDirty) {
-			if (model.getFileHeader()) {
-				StringBuilder buf = new StringBuilder();
-				for (int i = 0; i < sel.size(); i++) {
-					if (i > 0) buf.append("\t");
-					buf.append(sel.get(i).toString());
-				}
-				writer.println(buf.toString());
+			// a header written to the same file still applies after it is
+			// reopened to append
+			if (!file.equals(writerFile) || format != writerFormat
+					|| !writer.isAppendable()) {
+				headerDirty = true;
 			}
-			headerDirty = false;
+			writerFile = file;
+			writerFormat = format;
 		}
-		StringBuilder buf = new StringBuilder();
-		for (int i = 0; i < values.length; i++) {
-			if (i > 0) buf.append("\t");
-			if (values[i] != null) {
-				int radix = sel.get(i).getRadix();
-				buf.append(values[i].toDisplayString(radix));
+		SelectionItem[] items = header.items;
+		try {
+			if (headerDirty) {
+				String[] names = new String[items.length];
+				for (int i = 0; i < names.length; i++) names[i] = items[i].toString();
+				writer.writeHeader(names, model.getFileHeader());
+				headerDirty = false;
 			}
+			int[] radix = new int[items.length];
+			for (int i = 0; i < radix.length; i++) radix[i] = items[i].getRadix();
+			writer.writeEntry(tick, values, radix);
+		} catch (IOException e) {
+			fileFailed();
+			return;
 		}
-		writer.println(buf.toString());
+		lastTick = tick;
 		lastWrite = System.currentTimeMillis();
 	}
+
+	private void closeWriter() {
+		if (writer != null) {
+			try {
+				writer.close();
+			} catch (IOException e) { }
+			writer = null;
+		}
+	}
+
+	private void fileFailed() {
+		failedFile = model.getFile();
+		closeWriter();
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				model.setFile(null);
+			}
+		});
+	}
 }
@@ -0,0 +1,45 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.log;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.cburch.logisim.data.Value;
+
+/**
+ * Writes the entries of a log to a file in one of the formats offered by
+ * the file panel. Writers are used only by the thread draining the log's
+ * records, so the simulation never waits on formatting or on the disk.
+ */
+abstract class LogWriter {
+	public static LogWriter create(int format, File file, String circuitName)
+			throws IOException {
+		switch (format) {
+		case Model.FORMAT_BINARY: return new BinaryLogWriter(file);
+		case Model.FORMAT_VCD: return new VcdLogWriter(file, circuitName);
+		default: return new TextLogWriter(file);
+		}
+	}
+
+	/** Returns whether the file may be closed while the log is idle and
+	 * reopened to append later entries. */
+	public boolean isAppendable() {
+		return true;
+	}
+
+	/** Starts a new set of columns; the names are shown only if
+	 * <code>visible</code>, unless the format requires them. */
+	public abstract void writeHeader(String[] names, boolean visible)
+		throws IOException;
+
+	/** Writes the values of the columns in an entry, stamped with the
+	 * simulation's tick count; a null value is absent. */
+	public abstract void writeEntry(long tick, Value[] values, int[] radix)
+		throws IOException;
+
+	public abstract void flush() throws IOException;
+
+	public abstract void close() throws IOException;
+}
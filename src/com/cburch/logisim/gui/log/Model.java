@@ -14,12 +14,17 @@ import com.cburch.logisim.data.Value;
 import com.cburch.logisim.util.EventSourceWeakSupport;
 
 class Model {
+	public static final int FORMAT_TEXT = 0;
+	public static final int FORMAT_BINARY = 1;
+	public static final int FORMAT_VCD = 2;
+
 	private EventSourceWeakSupport<ModelListener> listeners;
 	private Selection selection;
 	private HashMap<SelectionItem,ValueLog> log;
 	private boolean fileEnabled = false;
 	private File file = null;
 	private boolean fileHeader = true;
+	private int fileFormat = FORMAT_TEXT;
 	private boolean selected = false;
 	private LogThread logger = null;
 	
@@ -65,6 +70,10 @@ class Model {
 		return fileHeader;
 	}
 	
+	public int getFileFormat() {
+		return fileFormat;
+	}
+	
 	public void setFileEnabled(boolean value) {
 		if (fileEnabled == value) return;
 		fileEnabled = value;
@@ -84,6 +93,12 @@ class Model {
 		fireFilePropertyChanged(new ModelEvent());
 	}
 	
+	public void setFileFormat(int value) {
+		if (fileFormat == value) return;
+		fileFormat = value;
+		fireFilePropertyChanged(new ModelEvent());
+	}
+	
 	public void propagationCompleted() {
 		CircuitState circuitState = getCircuitState();
 		Value[] vals = new Value[selection.size()];
@@ -0,0 +1,55 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import com.cburch.logisim.data.Value;
+
+/** Writes a log as lines of tab-separated values in each column's radix. */
+class TextLogWriter extends LogWriter {
+	private PrintWriter writer;
+
+	public TextLogWriter(File file) throws IOException {
+		writer = new PrintWriter(new BufferedWriter(new FileWriter(file, true), 1 << 16));
+	}
+
+	@Override
+	public void writeHeader(String[] names, boolean visible) {
+		if (!visible) return;
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < names.length; i++) {
+			if (i > 0) buf.append("\t");
+			buf.append(names[i]);
+		}
+		writer.println(buf.toString());
+	}
+
+	@Override
+	public void writeEntry(long tick, Value[] values, int[] radix) {
+		StringBuilder buf = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) buf.append("\t");
+			if (values[i] != null) {
+				buf.append(values[i].toDisplayString(i < radix.length ? radix[i] : 2));
+			}
+		}
+		writer.println(buf.toString());
+	}
+
+	@Override
+	public void flush() throws IOException {
+		writer.flush();
+		if (writer.checkError()) throw new IOException();
+	}
+
+	@Override
+	public void close() {
+		writer.close();
+	}
+}
@@ -0,0 +1,81 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+
+import com.cburch.logisim.data.Value;
+
+/**
+ * Writes a log as a Value Change Dump, timed by the entries' tick counts.
+ * The signals are those of the first columns written; columns selected
+ * later are matched to them by name, and new ones are left out, since a
+ * dump cannot define signals once it has started. For the same reason the
+ * file is rewritten rather than appended to.
+ */
+class VcdLogWriter extends LogWriter {
+	private String scope;
+	private VcdWriter vcd;
+	private String[] names = new String[0];
+	private HashMap<String,Integer> signals = new HashMap<String,Integer>();
+	private int[] columnSignal = new int[0];
+	private Value[] sample = new Value[0];
+
+	public VcdLogWriter(File file, String scope) throws IOException {
+		this.scope = scope;
+		this.vcd = new VcdWriter(new BufferedWriter(new FileWriter(file), 1 << 16));
+	}
+
+	@Override
+	public boolean isAppendable() {
+		return false;
+	}
+
+	@Override
+	public void writeHeader(String[] names, boolean visible) {
+		this.names = names;
+		if (vcd.isStarted()) mapColumns();
+	}
+
+	@Override
+	public void writeEntry(long tick, Value[] values, int[] radix)
+			throws IOException {
+		if (!vcd.isStarted()) {
+			for (int i = 0; i < names.length; i++) {
+				if (signals.containsKey(names[i])) continue;
+				int width = i < values.length && values[i] != null ? values[i].getWidth() : 1;
+				signals.put(names[i], Integer.valueOf(vcd.addSignal(names[i], width)));
+			}
+			vcd.start(scope);
+			sample = new Value[vcd.getSignalCount()];
+			mapColumns();
+		}
+		for (int i = 0; i < values.length && i < columnSignal.length; i++) {
+			if (columnSignal[i] >= 0) sample[columnSignal[i]] = values[i];
+		}
+		vcd.sample(tick, sample);
+	}
+
+	private void mapColumns() {
+		columnSignal = new int[names.length];
+		for (int i = 0; i < names.length; i++) {
+			Integer signal = signals.get(names[i]);
+			columnSignal[i] = signal == null ? -1 : signal.intValue();
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		vcd.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		vcd.close();
+	}
+}
@@ -0,0 +1,143 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Date;
+
+import com.cburch.logisim.Main;
+import com.cburch.logisim.data.Value;
+
+/**
+ * Writes signals as a Value Change Dump (IEEE 1364), to be opened in a
+ * waveform viewer. Each time unit is one clock tick. After the
+ * definitions, only the signals whose value changed are written, under
+ * the time at which they changed. An error bit is written as
+ * <code>x</code> and an unknown (floating) bit as <code>z</code>.
+ */
+public class VcdWriter {
+	private Writer out;
+	private ArrayList<String> names = new ArrayList<String>();
+	private ArrayList<Integer> widths = new ArrayList<Integer>();
+	private String[] ids;
+	private Value[] last;
+	private boolean started = false;
+	private long lastTime = -1;
+	private long timeOffset = 0;
+	private StringBuilder buf = new StringBuilder();
+
+	public VcdWriter(Writer out) {
+		this.out = out;
+	}
+
+	/** Defines a signal before the dump starts, returning its index. */
+	public int addSignal(String name, int width) {
+		if (started) throw new IllegalStateException("signals already defined");
+		names.add(name);
+		widths.add(Integer.valueOf(Math.max(1, width)));
+		return names.size() - 1;
+	}
+
+	public int getSignalCount() {
+		return names.size();
+	}
+
+	public boolean isStarted() {
+		return started;
+	}
+
+	/** Writes the definitions of the signals, all in one scope. */
+	public void start(String scope) throws IOException {
+		started = true;
+		ids = new String[names.size()];
+		last = new Value[names.size()];
+		out.write("$date\n\t" + new Date() + "\n$end\n");
+		out.write("$version\n\tLogisim " + Main.VERSION_NAME + "\n$end\n");
+		out.write("$comment\n\tone time unit per clock tick\n$end\n");
+		out.write("$timescale 1ns $end\n");
+		out.write("$scope module " + identifier(scope) + " $end\n");
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = code(i);
+			out.write("$var wire " + widths.get(i) + " " + ids[i] + " "
+					+ identifier(names.get(i)) + " $end\n");
+		}
+		out.write("$upscope $end\n$enddefinitions $end\n");
+	}
+
+	/**
+	 * Records the signals' values at a time, writing those that changed
+	 * since the last sample. A null value leaves its signal unchanged. A
+	 * time before the last one, as when the simulation is reset, continues
+	 * from the last time.
+	 */
+	public void sample(long time, Value[] values) throws IOException {
+		if (time + timeOffset < lastTime) timeOffset = lastTime - time;
+		time += timeOffset;
+		boolean stamped = time == lastTime;
+		for (int i = 0; i < values.length && i < last.length; i++) {
+			Value v = values[i];
+			if (v == null || v.equals(last[i])) continue;
+			if (!stamped) {
+				out.write(lastTime < 0 ? "#" + time + "\n$dumpvars\n" : "#" + time + "\n");
+				stamped = true;
+			}
+			last[i] = v;
+			writeValue(i, v);
+		}
+		if (lastTime < 0 && stamped) out.write("$end\n");
+		if (stamped) lastTime = time;
+	}
+
+	private void writeValue(int index, Value v) throws IOException {
+		int width = widths.get(index).intValue();
+		buf.setLength(0);
+		if (width == 1) {
+			buf.append(bit(v, 0));
+		} else {
+			buf.append('b');
+			for (int i = width - 1; i >= 0; i--) buf.append(bit(v, i));
+			buf.append(' ');
+		}
+		buf.append(ids[index]).append('\n');
+		out.write(buf.toString());
+	}
+
+	private static char bit(Value v, int i) {
+		if (i >= v.getWidth()) return 'x';
+		long mask = 1L << (i & 63);
+		int word = i >>> 6;
+		if ((v.getErrorWord(word) & mask) != 0) return 'x';
+		if ((v.getUnknownWord(word) & mask) != 0) return 'z';
+		return (v.getValueWord(word) & mask) != 0 ? '1' : '0';
+	}
+
+	// identifier codes are strings of the printable characters ! to ~
+	private static String code(int index) {
+		StringBuilder ret = new StringBuilder();
+		do {
+			ret.append((char) ('!' + index % 94));
+			index = index / 94 - 1;
+		} while (index >= 0);
+		return ret.toString();
+	}
+
+	private static String identifier(String name) {
+		StringBuilder ret = new StringBuilder();
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			ret.append(c <= ' ' || c > '~' ? '_' : c);
+		}
+		return ret.length() == 0 ? "_" : ret.toString();
+	}
+
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -83,6 +83,8 @@ public class Canvas extends JPanel
 
 	private static final Color TICK_RATE_COLOR = new Color(0, 0, 92, 92);
 	private static final Font TICK_RATE_FONT = new Font("serif", Font.BOLD, 12);
+	// simulation results are repainted at most this many times a second
+	private static final int REPAINT_RATE = 60;
 	
 	private class MyListener
 			implements MouseInputListener, KeyListener, PopupMenuListener,
@@ -562,7 +564,7 @@ public class Canvas extends JPanel
 		setToolTipText(showTips ? "" : null);
 
 		proj.getSimulator().removeSimulatorListener(myProjectListener);
-		proj.getSimulator().addSimulatorListener(myProjectListener);
+		proj.getSimulator().addSimulatorListener(myProjectListener, REPAINT_RATE);
 	}
 
 	@Override
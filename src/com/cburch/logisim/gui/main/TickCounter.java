@@ -9,12 +9,17 @@ import com.cburch.logisim.circuit.SimulatorListener;
 
 class TickCounter implements SimulatorListener {
 	private static final int QUEUE_LENGTH = 1000;
+	// while unthrottled, the rate is measured over windows this long
+	private static final int FREE_RATE_MILLIS = 1000;
 	
 	private long[] queueTimes;
 	private double[] queueRates;
 	private int queueStart;
 	private int queueSize;
 	private double tickFrequency;
+	private long freeStartTime;
+	private int freeStartTicks;
+	private double freeRate;
 	
 	public TickCounter() {
 		queueTimes = new long[QUEUE_LENGTH];
@@ -24,6 +29,8 @@ class TickCounter implements SimulatorListener {
 
 	public void clear() {
 		queueSize = 0;
+		freeRate = 0;
+		freeStartTime = 0;
 	}
 	
 	public void propagationCompleted(SimulatorEvent e) {
@@ -44,9 +51,15 @@ class TickCounter implements SimulatorListener {
 		} else {
 			double freq = sim.getTickFrequency();
 			if (freq != tickFrequency) {
-				queueSize = 0;
+				clear();
 				tickFrequency = freq;
 			}
+			if (freq == Simulator.UNTHROTTLED) {
+				// listeners hear of only some of the ticks, so count them
+				// from the propagator instead
+				freeTickCompleted(sim);
+				return;
+			}
 			
 			int curSize = queueSize;
 			int maxSize = queueTimes.length;
@@ -80,7 +93,34 @@ class TickCounter implements SimulatorListener {
 		}
 	}
 
+	private void freeTickCompleted(Simulator sim) {
+		int ticks = sim.getCircuitState().getPropagator().getTickCount();
+		long now = System.currentTimeMillis();
+		if (freeStartTime == 0) {
+			freeStartTime = now;
+			freeStartTicks = ticks;
+		} else if (now - freeStartTime >= FREE_RATE_MILLIS) {
+			int count = ticks - freeStartTicks;
+			// the count restarts when the simulation is reset
+			if (count >= 0) freeRate = 1000.0 * count / (now - freeStartTime);
+			freeStartTime = now;
+			freeStartTicks = ticks;
+		}
+	}
+
 	public String getTickRate() {
+		if (tickFrequency == Simulator.UNTHROTTLED) {
+			double rate = freeRate;
+			if (rate <= 0) {
+				return "";
+			} else if (rate >= 1000000.0) {
+				return Strings.get("tickRateMHz", roundString(rate / 1000000.0, rate / 1000000.0));
+			} else if (rate >= 1000.0) {
+				return Strings.get("tickRateKHz", roundString(rate / 1000.0, rate / 1000.0));
+			} else {
+				return Strings.get("tickRateHz", roundString(rate, rate));
+			}
+		}
 		int size = queueSize;
 		if (size <= 1) {
 			return "";
@@ -158,7 +158,7 @@ public class ProjectCircuitActions {
 			} else {
 				outputNames.add(entry.getValue());
 			}
-			if (pin.getAttributeValue(StdAttr.WIDTH).getWidth() > 1) {
+			if (pin.getAttributeValue(StdAttr.WIDE_WIDTH).getWidth() > 1) {
 				if (isInput) {
 					analyzeError(proj, Strings.get("analyzeMultibitInputError"));
 				} else {
@@ -214,8 +214,8 @@ public class ProjectCircuitActions {
 		}
 		
 		// As a backup measure, we compute a truth table.
-		Analyze.computeTable(analyzer.getModel(), proj, circuit, pinNames);
 		analyzer.setSelectedTab(Analyzer.TABLE_TAB);
+		analyzer.computeTable(proj, circuit, pinNames);
 	}
 		
 	private static void analyzeError(Project proj, String message) {
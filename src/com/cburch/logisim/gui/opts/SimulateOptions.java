@@ -43,6 +43,27 @@ class SimulateOptions extends OptionsPanel {
 					getProject().doAction(OptionsActions.setAttribute(attrs,
 							Options.ATTR_GATE_UNDEFINED, opt.getValue()));
 				}
+			} else if (source == simQueue) {
+				ComboOption opt = (ComboOption) simQueue.getSelectedItem();
+				if (opt != null) {
+					AttributeSet attrs = getOptions().getAttributeSet();
+					getProject().doAction(OptionsActions.setAttribute(attrs,
+							Options.ATTR_SIM_QUEUE, opt.getValue()));
+				}
+			} else if (source == simEngine) {
+				ComboOption opt = (ComboOption) simEngine.getSelectedItem();
+				if (opt != null) {
+					AttributeSet attrs = getOptions().getAttributeSet();
+					getProject().doAction(OptionsActions.setAttribute(attrs,
+							Options.ATTR_SIM_ENGINE, opt.getValue()));
+				}
+			} else if (source == simSubstates) {
+				ComboOption opt = (ComboOption) simSubstates.getSelectedItem();
+				if (opt != null) {
+					AttributeSet attrs = getOptions().getAttributeSet();
+					getProject().doAction(OptionsActions.setAttribute(attrs,
+							Options.ATTR_SIM_SUBSTATES, opt.getValue()));
+				}
 			}
 		}
 		
@@ -54,6 +75,12 @@ class SimulateOptions extends OptionsPanel {
 				loadSimLimit((Integer) val);
 			} else if (attr == Options.sim_rand_attr) {
 				loadSimRandomness((Integer) val);
+			} else if (attr == Options.ATTR_SIM_QUEUE) {
+				loadSimQueue(val);
+			} else if (attr == Options.ATTR_SIM_ENGINE) {
+				loadSimEngine(val);
+			} else if (attr == Options.ATTR_SIM_SUBSTATES) {
+				loadSimSubstates(val);
 			}
 		}
 
@@ -75,6 +102,18 @@ class SimulateOptions extends OptionsPanel {
 		private void loadSimRandomness(Integer val) {
 			simRandomness.setSelected(val.intValue() > 0);
 		}
+		
+		private void loadSimQueue(Object val) {
+			ComboOption.setSelected(simQueue, val);
+		}
+		
+		private void loadSimEngine(Object val) {
+			ComboOption.setSelected(simEngine, val);
+		}
+		
+		private void loadSimSubstates(Object val) {
+			ComboOption.setSelected(simSubstates, val);
+		}
 	}
 	
 	private MyListener myListener = new MyListener();
@@ -96,6 +135,21 @@ class SimulateOptions extends OptionsPanel {
 			new ComboOption(Options.GATE_UNDEFINED_IGNORE),
 			new ComboOption(Options.GATE_UNDEFINED_ERROR)
 		});
+	private JLabel simQueueLabel = new JLabel();
+	private JComboBox simQueue = new JComboBox(new Object[] {
+			new ComboOption(Options.SIM_QUEUE_HEAP),
+			new ComboOption(Options.SIM_QUEUE_WHEEL)
+		});
+	private JLabel simEngineLabel = new JLabel();
+	private JComboBox simEngine = new JComboBox(new Object[] {
+			new ComboOption(Options.SIM_ENGINE_REFERENCE),
+			new ComboOption(Options.SIM_ENGINE_COMPILED)
+		});
+	private JLabel simSubstatesLabel = new JLabel();
+	private JComboBox simSubstates = new JComboBox(new Object[] {
+			new ComboOption(Options.SIM_SUBSTATES_SERIAL),
+			new ComboOption(Options.SIM_SUBSTATES_PARALLEL)
+		});
 
 	public SimulateOptions(OptionsFrame window) {
 		super(window);
@@ -110,11 +164,29 @@ class SimulateOptions extends OptionsPanel {
 		gateUndefinedPanel.add(gateUndefined);
 		gateUndefined.addActionListener(myListener);
 		
+		JPanel simQueuePanel = new JPanel();
+		simQueuePanel.add(simQueueLabel);
+		simQueuePanel.add(simQueue);
+		simQueue.addActionListener(myListener);
+		
+		JPanel simEnginePanel = new JPanel();
+		simEnginePanel.add(simEngineLabel);
+		simEnginePanel.add(simEngine);
+		simEngine.addActionListener(myListener);
+		
+		JPanel simSubstatesPanel = new JPanel();
+		simSubstatesPanel.add(simSubstatesLabel);
+		simSubstatesPanel.add(simSubstates);
+		simSubstates.addActionListener(myListener);
+		
 		simRandomness.addActionListener(myListener);
 
 		setLayout(new TableLayout(1));
 		add(simLimitPanel);
 		add(gateUndefinedPanel);
+		add(simQueuePanel);
+		add(simEnginePanel);
+		add(simSubstatesPanel);
 		add(simRandomness);
 		
 		window.getOptions().getAttributeSet().addAttributeListener(myListener);
@@ -122,6 +194,9 @@ class SimulateOptions extends OptionsPanel {
 		myListener.loadSimLimit(attrs.getValue(Options.sim_limit_attr));
 		myListener.loadGateUndefined(attrs.getValue(Options.ATTR_GATE_UNDEFINED));
 		myListener.loadSimRandomness(attrs.getValue(Options.sim_rand_attr));
+		myListener.loadSimQueue(attrs.getValue(Options.ATTR_SIM_QUEUE));
+		myListener.loadSimEngine(attrs.getValue(Options.ATTR_SIM_ENGINE));
+		myListener.loadSimSubstates(attrs.getValue(Options.ATTR_SIM_SUBSTATES));
 	}
 
 	@Override
@@ -138,6 +213,9 @@ class SimulateOptions extends OptionsPanel {
 	public void localeChanged() {
 		simLimitLabel.setText(Strings.get("simulateLimit"));
 		gateUndefinedLabel.setText(Strings.get("gateUndefined"));
+		simQueueLabel.setText(Strings.get("simulateQueue"));
+		simEngineLabel.setText(Strings.get("simulateEngine"));
+		simSubstatesLabel.setText(Strings.get("simulateSubstates"));
 		simRandomness.setText(Strings.get("simulateRandomness"));
 	}
 }
@@ -0,0 +1,351 @@
+/* Copyright (c) 2010, Carl Burch. License information is located in the
+ * com.cburch.logisim.Main source code and at www.cburch.com/logisim/. */
+
+package com.cburch.logisim.gui.start;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.cburch.logisim.circuit.Analyze;
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitState;
+import com.cburch.logisim.circuit.Propagator;
+import com.cburch.logisim.data.AttributeOption;
+import com.cburch.logisim.data.Value;
+import com.cburch.logisim.file.LoadFailedException;
+import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.instance.Instance;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.std.wiring.Pin;
+import com.cburch.logisim.util.StringUtil;
+
+/**
+ * Runs the simulations listed in a manifest file on a pool of worker
+ * threads, without any graphical interface. Each line of the manifest
+ * names a circuit file, followed by any of these settings:
+ *
+ * <pre>
+ *   load=file          image file loaded into each RAM
+ *   halt=pin           output pin ending the run when 1 (default "halt")
+ *   ticks=n            maximum number of clock ticks (default 1000000)
+ *   timeout=s          maximum number of seconds to run (default 600)
+ *   expect=pin=value,...  output values required at the end of the run
+ * </pre>
+ *
+ * Expected values may be given in decimal, in hexadecimal with a
+ * <code>0x</code> prefix, in binary with a <code>0b</code> prefix, or as
+ * the pin's value is printed. Relative paths are taken from the
+ * manifest's directory, and text following <code>#</code> is ignored.
+ * A job passes if it halts through its halt pin (or, if the circuit has
+ * none, after running its ticks) with all expected outputs. A job
+ * that reaches either limit before halting fails.
+ */
+class BatchRunner {
+	private static final String DEFAULT_HALT_PIN = "halt";
+	private static final long DEFAULT_MAX_TICKS = 1000000;
+	private static final long DEFAULT_TIMEOUT = 600;
+
+	private static class Job {
+		String name;
+		File circuit;
+		File load = null;
+		String halt = null;
+		long maxTicks = -1;
+		long timeout = DEFAULT_TIMEOUT;
+		LinkedHashMap<String,String> expected = new LinkedHashMap<String,String>();
+	}
+
+	private static class Result {
+		boolean passed;
+		String message;
+		long ticks = 0;
+		long elapse = 0;
+
+		Result(boolean passed, String message) {
+			this.passed = passed;
+			this.message = message;
+		}
+	}
+
+	private static class ManifestException extends Exception {
+		ManifestException(String message) {
+			super(message);
+		}
+	}
+
+	private BatchRunner() { }
+
+	public static void run(Startup args) {
+		File manifest = args.getBatchFile();
+		ArrayList<Job> jobs;
+		try {
+			jobs = parseManifest(manifest, args.getLoadFile());
+		} catch (IOException e) {
+			System.err.println(StringUtil.format(Strings.get("batchReadError"), //OK
+					manifest.getName(), e.getMessage()));
+			System.exit(-1);
+			return;
+		} catch (ManifestException e) {
+			System.err.println(e.getMessage()); //OK
+			System.exit(-1);
+			return;
+		}
+		if (jobs.isEmpty()) {
+			System.exit(0);
+			return;
+		}
+
+		int threads = args.getBatchThreads();
+		if (threads <= 0) threads = Runtime.getRuntime().availableProcessors();
+		threads = Math.min(threads, jobs.size());
+		final AttributeOption simEngine = args.getSimEngine();
+		final Map<File,File> substitutions = args.getSubstitutions();
+
+		long start = System.currentTimeMillis();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<Result>> results = new ArrayList<Future<Result>>();
+		for (final Job job : jobs) {
+			results.add(pool.submit(new Callable<Result>() {
+				public Result call() {
+					return runJob(job, simEngine, substitutions);
+				}
+			}));
+		}
+		pool.shutdown();
+
+		// report in manifest order, each job as soon as it and all before
+		// it are done
+		int passed = 0;
+		for (int i = 0; i < jobs.size(); i++) {
+			Job job = jobs.get(i);
+			Result result;
+			try {
+				result = results.get(i).get();
+			} catch (ExecutionException e) {
+				result = new Result(false, e.getCause().toString());
+			} catch (InterruptedException e) {
+				result = new Result(false, e.toString());
+			}
+			if (result.passed) {
+				passed++;
+				System.out.println(StringUtil.format(Strings.get("batchPassMsg"), //OK
+						job.name, "" + result.ticks,
+						TtyInterface.formatHertz(result.ticks, result.elapse)));
+			} else {
+				System.out.println(StringUtil.format(Strings.get("batchFailMsg"), //OK
+						job.name, result.message));
+			}
+		}
+		long elapse = System.currentTimeMillis() - start;
+		System.out.println(StringUtil.format(Strings.get("batchSummaryMsg"), //OK
+				"" + passed, "" + jobs.size(), "" + elapse));
+		System.exit(passed == jobs.size() ? 0 : 1);
+	}
+
+	private static ArrayList<Job> parseManifest(File manifest, File defaultLoad)
+			throws IOException, ManifestException {
+		File dir = manifest.getAbsoluteFile().getParentFile();
+		ArrayList<Job> jobs = new ArrayList<Job>();
+		BufferedReader in = new BufferedReader(new FileReader(manifest));
+		try {
+			int lineNumber = 0;
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				lineNumber++;
+				int comment = line.indexOf('#');
+				if (comment >= 0) line = line.substring(0, comment);
+				line = line.trim();
+				if (line.length() == 0) continue;
+
+				String[] tokens = line.split("\\s+");
+				Job job = new Job();
+				job.name = tokens[0];
+				job.circuit = resolve(dir, tokens[0]);
+				job.load = defaultLoad;
+				for (int i = 1; i < tokens.length; i++) {
+					String token = tokens[i];
+					int eq = token.indexOf('=');
+					String key = eq < 0 ? token : token.substring(0, eq);
+					String value = eq < 0 ? "" : token.substring(eq + 1);
+					if (key.equals("load") && value.length() > 0) {
+						job.load = resolve(dir, value);
+					} else if (key.equals("halt") && value.length() > 0) {
+						job.halt = value;
+					} else if (key.equals("ticks")) {
+						try {
+							job.maxTicks = Long.parseLong(value);
+						} catch (NumberFormatException e) {
+							throw manifestError(manifest, lineNumber, token);
+						}
+					} else if (key.equals("timeout")) {
+						try {
+							job.timeout = Long.parseLong(value);
+						} catch (NumberFormatException e) {
+							throw manifestError(manifest, lineNumber, token);
+						}
+						if (job.timeout <= 0) throw manifestError(manifest, lineNumber, token);
+					} else if (key.equals("expect")) {
+						for (String pair : value.split(",")) {
+							int pairEq = pair.indexOf('=');
+							if (pairEq <= 0) throw manifestError(manifest, lineNumber, token);
+							job.expected.put(pair.substring(0, pairEq),
+									pair.substring(pairEq + 1));
+						}
+					} else {
+						throw manifestError(manifest, lineNumber, token);
+					}
+				}
+				jobs.add(job);
+			}
+		} finally {
+			in.close();
+		}
+		return jobs;
+	}
+
+	private static File resolve(File dir, String path) {
+		File f = new File(path);
+		return f.isAbsolute() ? f : new File(dir, path);
+	}
+
+	private static ManifestException manifestError(File manifest, int line,
+			String token) {
+		return new ManifestException(StringUtil.format(Strings.get("batchManifestError"),
+				manifest.getName(), "" + line, token));
+	}
+
+	private static Result runJob(Job job, AttributeOption simEngine,
+			Map<File,File> substitutions) {
+		Loader loader = new Loader(null);
+		LogisimFile file;
+		try {
+			file = loader.openLogisimFile(job.circuit, substitutions);
+		} catch (LoadFailedException e) {
+			return new Result(false, Strings.get("ttyLoadError", job.circuit.getName()));
+		}
+		if (simEngine != null) {
+			file.getOptions().getAttributeSet().setValue(Options.ATTR_SIM_ENGINE,
+					simEngine);
+		}
+
+		Project proj = new Project(file);
+		Circuit circuit = file.getMainCircuit();
+		HashMap<String,Instance> outputPins = new HashMap<String,Instance>();
+		for (Map.Entry<Instance,String> entry : Analyze.getPinLabels(circuit).entrySet()) {
+			if (!Pin.FACTORY.isInputPin(entry.getKey())) {
+				outputPins.put(entry.getValue(), entry.getKey());
+			}
+		}
+		String haltName = job.halt == null ? DEFAULT_HALT_PIN : job.halt;
+		Instance haltPin = outputPins.get(haltName);
+		if (haltPin == null && job.halt != null) {
+			return new Result(false, Strings.get("batchNoPinError", haltName));
+		}
+		for (String pinName : job.expected.keySet()) {
+			if (!outputPins.containsKey(pinName)) {
+				return new Result(false, Strings.get("batchNoPinError", pinName));
+			}
+		}
+		if (haltPin == null && job.maxTicks < 0) {
+			return new Result(false, Strings.get("batchNoHaltError"));
+		}
+
+		CircuitState circState = new CircuitState(proj, circuit);
+		circState.getPropagator().propagate();
+		if (job.load != null) {
+			try {
+				if (!TtyInterface.loadRam(circState, job.load)) {
+					return new Result(false, Strings.get("loadNoRamError"));
+				}
+			} catch (IOException e) {
+				return new Result(false, Strings.get("loadIoError") + ": " + e.toString());
+			}
+		}
+
+		Propagator prop = circState.getPropagator();
+		long maxTicks = job.maxTicks >= 0 ? job.maxTicks : DEFAULT_MAX_TICKS;
+		long ticks = 0;
+		long start = System.currentTimeMillis();
+		long deadline = start + 1000 * job.timeout;
+		boolean halted = false;
+		boolean timedOut = false;
+		while (true) {
+			if (haltPin != null) {
+				Value val = Pin.FACTORY.getValue(circState.getInstanceState(haltPin));
+				if (val.equals(Value.TRUE)) {
+					halted = true;
+					break;
+				}
+			}
+			if (prop.isOscillating()) {
+				Result ret = new Result(false, Strings.get("ttyHaltReasonOscillation"));
+				ret.ticks = ticks;
+				ret.elapse = System.currentTimeMillis() - start;
+				return ret;
+			}
+			if (ticks >= maxTicks) break;
+			// the clock is cheap to read next to a tick, but not free
+			if ((ticks & 0xff) == 0xff && System.currentTimeMillis() >= deadline) {
+				timedOut = true;
+				break;
+			}
+			ticks++;
+			prop.tick();
+			prop.propagate();
+		}
+
+		Result ret;
+		if (timedOut || (haltPin != null && !halted)) {
+			ret = new Result(false, Strings.get("batchTimeoutError", "" + ticks));
+		} else {
+			StringBuilder mismatches = new StringBuilder();
+			for (Map.Entry<String,String> entry : job.expected.entrySet()) {
+				Instance pin = outputPins.get(entry.getKey());
+				Value val = Pin.FACTORY.getValue(circState.getInstanceState(pin));
+				if (!matches(val, entry.getValue())) {
+					if (mismatches.length() > 0) mismatches.append(", ");
+					mismatches.append(StringUtil.format(Strings.get("batchMismatch"),
+							entry.getKey(), val.toString(), entry.getValue()));
+				}
+			}
+			if (mismatches.length() > 0) {
+				ret = new Result(false, mismatches.toString());
+			} else {
+				ret = new Result(true, null);
+			}
+		}
+		ret.ticks = ticks;
+		ret.elapse = System.currentTimeMillis() - start;
+		return ret;
+	}
+
+	private static boolean matches(Value val, String expected) {
+		String s = expected.toLowerCase();
+		long want;
+		try {
+			if (s.startsWith("0x")) {
+				want = Long.parseUnsignedLong(s.substring(2), 16);
+			} else if (s.startsWith("0b")) {
+				want = Long.parseUnsignedLong(s.substring(2), 2);
+			} else {
+				want = Long.parseLong(s);
+			}
+		} catch (NumberFormatException e) {
+			return val.toString().equals(expected);
+		}
+		if (!val.isFullyDefined() || val.getWidth() > 64) return false;
+		return val.toLongValue() == (want & val.getBitWidth().getLongMask());
+	}
+}
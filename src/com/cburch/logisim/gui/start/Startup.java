@@ -14,8 +14,10 @@ import java.io.File;
 import javax.swing.UIManager;
 
 import com.cburch.logisim.Main;
+import com.cburch.logisim.data.AttributeOption;
 import com.cburch.logisim.file.LoadFailedException;
 import com.cburch.logisim.file.Loader;
+import com.cburch.logisim.file.Options;
 import com.cburch.logisim.gui.main.Print;
 import com.cburch.logisim.gui.menu.LogisimMenuBar;
 import com.cburch.logisim.gui.menu.WindowManagers;
@@ -80,8 +82,12 @@ public class Startup {
 	private ArrayList<File> filesToOpen = new ArrayList<File>();
 	private boolean showSplash;
 	private File loadFile;
+	private File vcdFile = null;
 	private HashMap<File,File> substitutions = new HashMap<File,File>();
 	private int ttyFormat = 0;
+	private File batchFile = null;
+	private int batchThreads = 0;
+	private AttributeOption simEngine = null;
 	
 	// from other sources
 	private boolean initialized = false;
@@ -101,10 +107,26 @@ public class Startup {
 		return loadFile;
 	}
 	
+	File getVcdFile() {
+		return vcdFile;
+	}
+	
 	int getTtyFormat() {
 		return ttyFormat;
 	}
 	
+	File getBatchFile() {
+		return batchFile;
+	}
+	
+	int getBatchThreads() {
+		return batchThreads;
+	}
+	
+	AttributeOption getSimEngine() {
+		return simEngine;
+	}
+	
 	Map<File,File> getSubstitutions() {
 		return Collections.unmodifiableMap(substitutions);
 	}
@@ -112,7 +134,8 @@ public class Startup {
 	public void run() {
 		if (isTty) {
 			try {
-				TtyInterface.run(this);
+				if (batchFile != null) BatchRunner.run(this);
+				else TtyInterface.run(this);
 				return;
 			} catch (Throwable t) {
 				t.printStackTrace();
@@ -226,7 +249,7 @@ public class Startup {
 		boolean isTty = false;
 		boolean isClearPreferences = false;
 		for (int i = 0; i < args.length; i++) {
-			if (args[i].equals("-tty")) {
+			if (args[i].equals("-tty") || args[i].equals("-batch")) {
 				isTty = true;
 			} else if (args[i].equals("-clearprefs") || args[i].equals("-clearprops")) {
 				isClearPreferences = true;
@@ -315,6 +338,38 @@ public class Startup {
 					System.err.println(Strings.get("loadNeedsFileError")); //OK
 					return null;
 				}
+			} else if (arg.equals("-vcd")) {
+				i++;
+				if (i >= args.length) printUsage();
+				ret.vcdFile = new File(args[i]);
+			} else if (arg.equals("-batch")) {
+				i++;
+				if (i >= args.length) printUsage();
+				ret.batchFile = new File(args[i]);
+			} else if (arg.equals("-threads")) {
+				i++;
+				if (i >= args.length) printUsage();
+				try {
+					ret.batchThreads = Integer.parseInt(args[i]);
+				} catch (NumberFormatException e) {
+					ret.batchThreads = -1;
+				}
+				if (ret.batchThreads <= 0) {
+					System.err.println(Strings.get("argThreadsOptionError")); //OK
+					System.exit(-1);
+				}
+			} else if (arg.equals("-engine")) {
+				i++;
+				if (i >= args.length) printUsage();
+				String a = args[i];
+				if (a.equals("reference")) {
+					ret.simEngine = Options.SIM_ENGINE_REFERENCE;
+				} else if (a.equals("compiled")) {
+					ret.simEngine = Options.SIM_ENGINE_COMPILED;
+				} else {
+					System.err.println(Strings.get("argEngineOptionError")); //OK
+					System.exit(-1);
+				}
 			} else if (arg.equals("-empty")) {
 				if (ret.templFile != null || ret.templEmpty || ret.templPlain) {
 					System.err.println(Strings.get("argOneTemplateError")); //OK
@@ -384,7 +439,7 @@ public class Startup {
 				ret.filesToOpen.add(new File(arg));
 			}
 		}
-		if (ret.isTty && ret.filesToOpen.isEmpty()) {
+		if (ret.isTty && ret.filesToOpen.isEmpty() && ret.batchFile == null) {
 			System.err.println(Strings.get("ttyNeedsFileError")); //OK
 			return null;
 		}
@@ -392,6 +447,18 @@ public class Startup {
 			System.err.println(Strings.get("loadNeedsTtyError")); //OK
 			return null;
 		}
+		if (ret.vcdFile != null && (!ret.isTty || ret.batchFile != null)) {
+			System.err.println(Strings.get("vcdNeedsTtyError")); //OK
+			return null;
+		}
+		if (ret.simEngine != null && !ret.isTty) {
+			System.err.println(Strings.get("engineNeedsTtyError")); //OK
+			return null;
+		}
+		if (ret.batchThreads > 0 && ret.batchFile == null) {
+			System.err.println(Strings.get("threadsNeedsBatchError")); //OK
+			return null;
+		}
 		return ret;
 	}
 
@@ -400,8 +467,10 @@ public class Startup {
 		System.err.println(); //OK
 		System.err.println(Strings.get("argOptionHeader")); //OK
 		System.err.println("   " + Strings.get("argAccentsOption")); //OK
+		System.err.println("   " + Strings.get("argBatchOption")); //OK
 		System.err.println("   " + Strings.get("argClearOption")); //OK
 		System.err.println("   " + Strings.get("argEmptyOption")); //OK
+		System.err.println("   " + Strings.get("argEngineOption")); //OK
 		System.err.println("   " + Strings.get("argGatesOption")); //OK
 		System.err.println("   " + Strings.get("argHelpOption")); //OK
 		System.err.println("   " + Strings.get("argLoadOption")); //OK
@@ -410,7 +479,9 @@ public class Startup {
 		System.err.println("   " + Strings.get("argPlainOption")); //OK
 		System.err.println("   " + Strings.get("argSubOption")); //OK
 		System.err.println("   " + Strings.get("argTemplateOption")); //OK
+		System.err.println("   " + Strings.get("argThreadsOption")); //OK
 		System.err.println("   " + Strings.get("argTtyOption")); //OK
+		System.err.println("   " + Strings.get("argVcdOption")); //OK
 		System.err.println("   " + Strings.get("argVersionOption")); //OK
 		System.exit(-1);
 	}
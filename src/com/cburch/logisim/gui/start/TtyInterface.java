@@ -3,10 +3,14 @@
 
 package com.cburch.logisim.gui.start;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.Map;
 
@@ -20,8 +24,11 @@ import com.cburch.logisim.file.LoadFailedException;
 import com.cburch.logisim.file.Loader;
 import com.cburch.logisim.file.LogisimFile;
 import com.cburch.logisim.file.FileStatistics;
+import com.cburch.logisim.file.Options;
+import com.cburch.logisim.gui.log.VcdWriter;
 import com.cburch.logisim.instance.Instance;
 import com.cburch.logisim.instance.InstanceState;
+import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.io.Keyboard;
 import com.cburch.logisim.std.io.Tty;
@@ -68,13 +75,18 @@ public class TtyInterface {
 			format &= ~FORMAT_STATISTICS;
 			displayStatistics(file);
 		}
-		if (format == 0) { // no simulation remaining to perform, so just exit
+		if (format == 0 && args.getVcdFile() == null) { // no simulation remaining to perform, so just exit
 			System.exit(0);
 		}
 		
+		if (args.getSimEngine() != null) {
+			file.getOptions().getAttributeSet().setValue(Options.ATTR_SIM_ENGINE,
+					args.getSimEngine());
+		}
+		
 		Project proj = new Project(file);
 		Circuit circuit = file.getMainCircuit();
-		Map<Instance, String> pinNames = Analyze.getPinLabels(circuit);
+		final Map<Instance, String> pinNames = Analyze.getPinLabels(circuit);
 		ArrayList<Instance> outputPins = new ArrayList<Instance>();
 		Instance haltPin = null;
 		for (Map.Entry<Instance, String> entry : pinNames.entrySet()) {
@@ -104,8 +116,29 @@ public class TtyInterface {
 				System.exit(-1);
 			}
 		}
+		ArrayList<Instance> vcdPins = new ArrayList<Instance>();
+		VcdWriter vcd = null;
+		if (args.getVcdFile() != null) {
+			vcdPins.addAll(pinNames.keySet());
+			Collections.sort(vcdPins, new Comparator<Instance>() {
+				public int compare(Instance a, Instance b) {
+					return pinNames.get(a).compareTo(pinNames.get(b));
+				}
+			});
+			try {
+				vcd = new VcdWriter(new BufferedWriter(new FileWriter(args.getVcdFile()), 1 << 16));
+				for (Instance pin : vcdPins) {
+					vcd.addSignal(pinNames.get(pin), pin.getAttributeValue(StdAttr.WIDE_WIDTH).getWidth());
+				}
+				vcd.start(circuit.getName());
+			} catch (IOException e) {
+				System.err.println(Strings.get("vcdIoError") + ": " + e.toString()); //OK
+				System.exit(-1);
+			}
+		}
 		int ttyFormat = args.getTtyFormat();
-		int simCode = runSimulation(circState, outputPins, haltPin, ttyFormat);
+		int simCode = runSimulation(circState, outputPins, haltPin, ttyFormat,
+				vcd, vcdPins);
 		System.exit(simCode);
 	}
 	
@@ -149,7 +182,7 @@ public class TtyInterface {
 		return digits;
 	}
 	
-	private static boolean loadRam(CircuitState circState, File loadFile)
+	static boolean loadRam(CircuitState circState, File loadFile)
 			throws IOException {
 		if (loadFile == null) return false;
 		
@@ -192,7 +225,8 @@ public class TtyInterface {
 	}
 	
 	private static int runSimulation(CircuitState circState,
-			ArrayList<Instance> outputPins, Instance haltPin, int format) {
+			ArrayList<Instance> outputPins, Instance haltPin, int format,
+			VcdWriter vcd, ArrayList<Instance> vcdPins) {
 		boolean showTable = (format & FORMAT_TABLE) != 0;
 		boolean showSpeed = (format & FORMAT_SPEED) != 0;
 		boolean showTty = (format & FORMAT_TTY) != 0;
@@ -220,8 +254,21 @@ public class TtyInterface {
 		long start = System.currentTimeMillis();
 		boolean halted = false;
 		ArrayList<Value> prevOutputs = null;
+		Value[] vcdValues = new Value[vcdPins.size()];
 		Propagator prop = circState.getPropagator();
 		while (true) {
+			if (vcd != null) {
+				for (int i = 0; i < vcdValues.length; i++) {
+					InstanceState pinState = circState.getInstanceState(vcdPins.get(i));
+					vcdValues[i] = Pin.FACTORY.getValue(pinState);
+				}
+				try {
+					vcd.sample(prop.getTickCount(), vcdValues);
+				} catch (IOException e) {
+					System.err.println(Strings.get("vcdIoError") + ": " + e.toString()); //OK
+					vcd = null;
+				}
+			}
 			ArrayList<Value> curOutputs = new ArrayList<Value>();
 			for (Instance pin : outputPins) {
 				InstanceState pinState = circState.getInstanceState(pin);
@@ -258,6 +305,13 @@ public class TtyInterface {
 			prop.propagate();
 		}
 		long elapse = System.currentTimeMillis() - start;
+		if (vcd != null) {
+			try {
+				vcd.close();
+			} catch (IOException e) {
+				System.err.println(Strings.get("vcdIoError") + ": " + e.toString()); //OK
+			}
+		}
 		if (showTty) ensureLineTerminated();
 		if (showHalt || retCode != 0) {
 			if (retCode == 0) {
@@ -297,7 +351,12 @@ public class TtyInterface {
 	}
 	
 	private static void displaySpeed(long tickCount, long elapse) {
-		double hertz = (double) tickCount / elapse * 1000.0;
+		System.out.println(StringUtil.format(Strings.get("ttySpeedMsg"), //OK
+				formatHertz(tickCount, elapse), "" + tickCount, "" + elapse));
+	}
+
+	static String formatHertz(long tickCount, long elapse) {
+		double hertz = (double) tickCount / Math.max(elapse, 1) * 1000.0;
 		double precision;
 		if (hertz >= 100) precision = 1.0;
 		else if (hertz >= 10) precision = 0.1;
@@ -305,9 +364,7 @@ public class TtyInterface {
 		else if (hertz >= 0.01) precision = 0.0001;
 		else precision = 0.0000001;
 		hertz = (int) (hertz / precision) * precision;
-		String hertzStr = hertz == (int) hertz ? "" + (int) hertz : "" + hertz;
-		System.out.println(StringUtil.format(Strings.get("ttySpeedMsg"), //OK
-				hertzStr, "" + tickCount, "" + elapse));
+		return hertz == (int) hertz ? "" + (int) hertz : "" + hertz;
 	}
 
 	// It's possible to avoid using the separate thread using System.in.available(),
@@ -27,6 +27,7 @@ public class Instance {
 	}
 	
 	private InstanceComponent comp;
+	private volatile int endIdBase = -1;
 	
 	Instance(InstanceComponent comp) {
 		this.comp = comp;
@@ -36,6 +37,17 @@ public class Instance {
 		return comp;
 	}
 	
+	/** Returns the identifier that the circuit containing this instance
+	 * has given to its first end, or -1 if it is in no circuit. The
+	 * propagator uses it to identify the ends without any lookup. */
+	public int getEndIdBase() {
+		return endIdBase;
+	}
+	
+	public void setEndIdBase(int value) {
+		endIdBase = value;
+	}
+	
 	public InstanceFactory getFactory() {
 		return (InstanceFactory) comp.getFactory();
 	}
@@ -73,7 +73,7 @@ class InstanceStateImpl implements InstanceState {
 	
 	public void setPort(int portIndex, Value value, int delay) {
 		EndData end = component.getEnd(portIndex);
-		circuitState.setValue(end.getLocation(), value, component, delay);
+		circuitState.setValue(end.getLocation(), value, component, delay, portIndex);
 	}
 	
 	public InstanceData getData() {
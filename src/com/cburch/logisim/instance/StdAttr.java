@@ -10,6 +10,7 @@ import com.cburch.logisim.data.AttributeOption;
 import com.cburch.logisim.data.Attributes;
 import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Direction;
+import com.cburch.logisim.data.Value;
 
 public interface StdAttr {
 	public static final Attribute<Direction> FACING
@@ -17,6 +18,11 @@ public interface StdAttr {
 
 	public static final Attribute<BitWidth> WIDTH
 		= Attributes.forBitWidth("width", Strings.getter("stdDataWidthAttr"));
+	/** The width attribute of components that accept values wider than
+	 * 32 bits; it is saved under the same name as WIDTH. */
+	public static final Attribute<BitWidth> WIDE_WIDTH
+		= Attributes.forBitWidth("width", Strings.getter("stdDataWidthAttr"),
+			1, Value.MAX_WIDTH);
 
 	public static final AttributeOption TRIG_RISING
 		= new AttributeOption("rising", Strings.getter("stdTriggerRising"));
@@ -5,6 +5,7 @@ package com.cburch.logisim.std.arith;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.math.BigInteger;
 
 import com.cburch.logisim.data.*;
 import com.cburch.logisim.instance.*;
@@ -38,10 +39,10 @@ public class Adder extends InstanceFactory {
     public Adder() {
         super("Adder", Strings.getter("adderComponent"));
         setAttributes(
-                new Attribute[]{ StdAttr.WIDTH, SIGN_MODE },
+                new Attribute[]{ StdAttr.WIDE_WIDTH, SIGN_MODE },
                 new Object[]   { BitWidth.create(8), MODE_AUTO }
         );
-        setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+        setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH));
         setOffsetBounds(Bounds.create(-40, -20, 40, 40));
         setIconName("adder.gif");
     }
@@ -54,7 +55,7 @@ public class Adder extends InstanceFactory {
 
     @Override
     protected void instanceAttributeChanged(Instance instance, Attribute<?> attr) {
-        if (attr == SIGN_MODE || attr == StdAttr.WIDTH) {
+        if (attr == SIGN_MODE || attr == StdAttr.WIDE_WIDTH) {
             updatePorts(instance);         // añade/quita SIGN_SEL según modo
             instance.recomputeBounds();
             instance.fireInvalidated();    // limpia halos/zonas de conexión
@@ -66,7 +67,7 @@ public class Adder extends InstanceFactory {
     }
 
     private void updatePorts(Instance instance) {
-        BitWidth w = instance.getAttributeValue(StdAttr.WIDTH);
+        BitWidth w = instance.getAttributeValue(StdAttr.WIDE_WIDTH);
         boolean pinMode = pinModeEnabled(instance);
 
         Port in0   = new Port(-40, -10, Port.INPUT,  w);
@@ -95,7 +96,7 @@ public class Adder extends InstanceFactory {
     @Override
     public void propagate(InstanceState state) {
         // get attributes
-        BitWidth width = state.getAttributeValue(StdAttr.WIDTH);
+        BitWidth width = state.getAttributeValue(StdAttr.WIDE_WIDTH);
         AttributeOption modeOpt = state.getAttributeValue(SIGN_MODE);
 
         // compute outputs
@@ -128,9 +129,7 @@ public class Adder extends InstanceFactory {
 
         // AUTO: heurística por MSB(A) o MSB(B)
         int width = w.getWidth();
-        int ai = a.isFullyDefined() ? a.toIntValue() : 0;
-        int bi = b.isFullyDefined() ? b.toIntValue() : 0;
-        return msbSet(ai, width) || msbSet(bi, width);
+        return msbSet(a, width) || msbSet(b, width);
     }
 
     @Override
@@ -175,31 +174,26 @@ public class Adder extends InstanceFactory {
 
         // Camino rápido: totalmente definidos
         if (a.isFullyDefined() && b.isFullyDefined() && c_in.isFullyDefined()) {
-            int ai = a.toIntValue();
-            int bi = b.toIntValue();
-            int ci = c_in.toIntValue() & 1;
+            if (w > 64) return computeWideSum(width, a, b, c_in, signed);
 
             long mask = (w >= 64) ? -1L : ((1L << w) - 1L);
+            long av = a.toLongValue() & mask;
+            long bv = b.toLongValue() & mask;
+            int  ci = c_in.toIntValue() & 1;
+            long sum = av + bv + ci;
+            long out = sum & mask;
 
             if (!signed) {
                 // ===== Unsigned: carry-out real
-                long av = ((long) ai) & mask;
-                long bv = ((long) bi) & mask;
-                long sum = av + bv + ci;
-                int  out = (int) (sum & mask);
-                Value carry = (((sum >>> w) & 1L) != 0) ? Value.TRUE : Value.FALSE;
+                long carryBits = (w >= 64) ? ((av & bv) | ((av | bv) & ~sum)) >>> 63
+                                           : (sum >>> w);
+                Value carry = ((carryBits & 1L) != 0) ? Value.TRUE : Value.FALSE;
                 return new Value[]{ Value.createKnown(width, out), carry };
             } else {
-                // ===== Signed: overflow (two's complement)
-                long min = -(1L << (w - 1));
-                long max =  (1L << (w - 1)) - 1;
-
-                long av = signExtend(ai, w);
-                long bv = signExtend(bi, w);
-                long sum = av + bv + ci;
-
-                int  out = (int) (sum & mask);
-                boolean ovf = (sum < min) || (sum > max);
+                // ===== Signed: overflow (two's complement) si A y B tienen
+                // el mismo signo y el resultado no
+                long sign = 1L << (w - 1);
+                boolean ovf = ((av ^ out) & (bv ^ out) & sign) != 0;
                 Value ovfBit = ovf ? Value.TRUE : Value.FALSE;
                 return new Value[]{ Value.createKnown(width, out), ovfBit };
             }
@@ -232,17 +226,26 @@ public class Adder extends InstanceFactory {
         return new Value[]{ Value.create(bits), carry };
     }
 
-    /* ====================== helpers ====================== */
-    private static boolean msbSet(int val, int w) {
-        if (w <= 0) return false;
-        int bit = 1 << (w - 1);
-        return (val & bit) != 0;
+    // Más de 64 bits: la suma no cabe en un long
+    private static Value[] computeWideSum(BitWidth width, Value a, Value b, Value c_in, boolean signed) {
+        int w = width.getWidth();
+        BigInteger av = a.toBigInteger(false);
+        BigInteger bv = b.toBigInteger(false);
+        BigInteger sum = av.add(bv);
+        if (c_in == Value.TRUE) sum = sum.add(BigInteger.ONE);
+        if (!signed) {
+            Value carry = sum.testBit(w) ? Value.TRUE : Value.FALSE;
+            return new Value[]{ Value.createKnown(width, sum), carry };
+        } else {
+            boolean sa = av.testBit(w - 1);
+            boolean ovf = sa == bv.testBit(w - 1) && sa != sum.testBit(w - 1);
+            return new Value[]{ Value.createKnown(width, sum), ovf ? Value.TRUE : Value.FALSE };
+        }
     }
 
-    private static long signExtend(int val, int w) {
-        long mask = (w >= 64) ? -1L : ((1L << w) - 1L);
-        long u = ((long) val) & mask;
-        long sign = 1L << (w - 1);
-        return (u ^ sign) - sign;
+    /* ====================== helpers ====================== */
+    private static boolean msbSet(Value val, int w) {
+        if (w <= 0 || !val.isFullyDefined()) return false;
+        return val.get(w - 1) == Value.TRUE;
     }
 }
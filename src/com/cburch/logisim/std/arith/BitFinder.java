@@ -37,11 +37,11 @@ public class BitFinder extends InstanceFactory {
 	public BitFinder() {
 		super("BitFinder", Strings.getter("bitFinderComponent"));
 		setAttributes(new Attribute[] {
-				StdAttr.WIDTH, TYPE
+				StdAttr.WIDE_WIDTH, TYPE
 			}, new Object[] {
 				BitWidth.create(8), LOW_ONE
 			});
-		setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+		setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH));
 		setIconName("bitfindr.gif");
 	}
 	
@@ -58,7 +58,7 @@ public class BitFinder extends InstanceFactory {
 	
 	@Override
 	protected void instanceAttributeChanged(Instance instance, Attribute<?> attr) {
-		if (attr == StdAttr.WIDTH) {
+		if (attr == StdAttr.WIDE_WIDTH) {
 			configurePorts(instance);
 		} else if (attr == TYPE) {
 			instance.fireInvalidated();
@@ -66,7 +66,7 @@ public class BitFinder extends InstanceFactory {
 	}
 	
 	private void configurePorts(Instance instance) {
-		BitWidth inWidth = instance.getAttributeValue(StdAttr.WIDTH);
+		BitWidth inWidth = instance.getAttributeValue(StdAttr.WIDE_WIDTH);
 		int outWidth = computeOutputBits(inWidth.getWidth() - 1);
 
 		Port[] ps = new Port[3];
@@ -100,7 +100,7 @@ public class BitFinder extends InstanceFactory {
 
 	@Override
 	public void propagate(InstanceState state) {
-		int width = state.getAttributeValue(StdAttr.WIDTH).getWidth();
+		int width = state.getAttributeValue(StdAttr.WIDE_WIDTH).getWidth();
 		int outWidth = computeOutputBits(width - 1);
 		Object type = state.getAttributeValue(TYPE);
 
@@ -35,15 +35,15 @@ public class Comparator extends InstanceFactory {
 
 	public Comparator() {
 		super("Comparator", Strings.getter("comparatorComponent"));
-		setAttributes(new Attribute[] { StdAttr.WIDTH, MODE_ATTRIBUTE },
+		setAttributes(new Attribute[] { StdAttr.WIDE_WIDTH, MODE_ATTRIBUTE },
 				new Object[] { BitWidth.create(8), SIGNED_OPTION });
-		setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+		setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH));
 		setOffsetBounds(Bounds.create(-40, -20, 40, 40));
 		setIconName("comparator.gif");
 		
 		Port[] ps = new Port[5];
-		ps[IN0] = new Port(-40, -10, Port.INPUT,  StdAttr.WIDTH);
-		ps[IN1] = new Port(-40,  10, Port.INPUT,  StdAttr.WIDTH);
+		ps[IN0] = new Port(-40, -10, Port.INPUT,  StdAttr.WIDE_WIDTH);
+		ps[IN1] = new Port(-40,  10, Port.INPUT,  StdAttr.WIDE_WIDTH);
 		ps[GT]  = new Port(  0, -10, Port.OUTPUT, 1);
 		ps[EQ]  = new Port(  0,   0, Port.OUTPUT, 1);
 		ps[LT]  = new Port(  0,  10, Port.OUTPUT, 1);
@@ -58,7 +58,7 @@ public class Comparator extends InstanceFactory {
 	@Override
 	public void propagate(InstanceState state) {
 		// get attributes
-		BitWidth dataWidth = state.getAttributeValue(StdAttr.WIDTH);
+		BitWidth dataWidth = state.getAttributeValue(StdAttr.WIDE_WIDTH);
 
 		// compute outputs
 		Value gt = Value.FALSE;
@@ -5,6 +5,7 @@ package com.cburch.logisim.std.arith;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.math.BigInteger;
 
 import com.cburch.logisim.data.*;
 import com.cburch.logisim.instance.*;
@@ -48,9 +49,9 @@ public class Divider extends InstanceFactory {
     public Divider() {
         super("Divider", Strings.getter("dividerComponent"));
         setAttributes(
-                new Attribute[] { StdAttr.WIDTH, SIGN_MODE, DIV_MODE },
+                new Attribute[] { StdAttr.WIDE_WIDTH, SIGN_MODE, DIV_MODE },
                 new Object[]   { BitWidth.create(8), MODE_AUTO, DIV_TRUNC });
-        setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+        setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH));
         setOffsetBounds(Bounds.create(-40, -20, 40, 40));
         setIconName("divider.gif");
     }
@@ -63,7 +64,7 @@ public class Divider extends InstanceFactory {
 
     @Override
     protected void instanceAttributeChanged(Instance instance, Attribute<?> attr) {
-        if (attr == SIGN_MODE || attr == StdAttr.WIDTH) {
+        if (attr == SIGN_MODE || attr == StdAttr.WIDE_WIDTH) {
             updatePorts(instance);
             instance.recomputeBounds();
             instance.fireInvalidated();
@@ -77,7 +78,7 @@ public class Divider extends InstanceFactory {
     }
 
     private void updatePorts(Instance instance) {
-        BitWidth w = instance.getAttributeValue(StdAttr.WIDTH);
+        BitWidth w = instance.getAttributeValue(StdAttr.WIDE_WIDTH);
         boolean pinMode = pinModeEnabled(instance);
 
         Port in0   = new Port(-40, -10, Port.INPUT,  w);
@@ -104,7 +105,7 @@ public class Divider extends InstanceFactory {
     @Override
     public void propagate(InstanceState state) {
         // get attributes
-        BitWidth width = state.getAttributeValue(StdAttr.WIDTH);
+        BitWidth width = state.getAttributeValue(StdAttr.WIDE_WIDTH);
         AttributeOption signOpt = state.getAttributeValue(SIGN_MODE);
         AttributeOption divOpt  = state.getAttributeValue(DIV_MODE);
 
@@ -141,14 +142,11 @@ public class Divider extends InstanceFactory {
         // AUTO: heurística por MSB (si upper no conectado → 0)
         int widthBits = w.getWidth();
         boolean upperDisconnected = (upper == Value.NIL || upper.isUnknown());
-        int loI  = lo.isFullyDefined()  ? lo.toIntValue()  : 0;
-        int denI = den.isFullyDefined() ? den.toIntValue() : 0;
-        int upI  = upper.isFullyDefined()? upper.toIntValue() : 0;
 
         if (upperDisconnected) {
-            return msbSet(loI, widthBits) || msbSet(denI, widthBits);
+            return msbSet(lo, widthBits) || msbSet(den, widthBits);
         } else {
-            return msbSet(upI, widthBits) || msbSet(denI, widthBits);
+            return msbSet(upper, widthBits) || msbSet(den, widthBits);
         }
     }
 
@@ -208,6 +206,8 @@ public class Divider extends InstanceFactory {
             }
         }
 
+        if (w > 32) return computeWideResult(width, lo, den, upper, signed, divOpt);
+
         int loI    = lo.toIntValue();
         int upI    = upper.toIntValue();
         int denI   = den.toIntValue();
@@ -252,16 +252,37 @@ public class Divider extends InstanceFactory {
         };
     }
 
+    // Más de 32 bits: el dividendo de 2w bits no cabe en un long
+    private static Value[] computeWideResult(BitWidth width, Value lo, Value den, Value upper,
+                                             boolean signed, AttributeOption divOpt) {
+        int w = width.getWidth();
+        BigInteger num  = upper.toBigInteger(signed).shiftLeft(w).or(lo.toBigInteger(false));
+        BigInteger denB = den.toBigInteger(signed);
+        if (denB.signum() == 0) denB = BigInteger.ONE; // evita /0
+
+        BigInteger[] qr = num.divideAndRemainder(denB); // trunc hacia 0
+        BigInteger q0 = qr[0];
+        BigInteger r0 = qr[1];
+        if (divOpt == DIV_FLOOR && r0.signum() != 0 && num.signum() * denB.signum() < 0) {
+            r0 = r0.add(denB);
+            q0 = q0.subtract(BigInteger.ONE);
+        }
+
+        return new Value[]{
+                Value.createKnown(width, q0),
+                Value.createKnown(width, r0)
+        };
+    }
+
     /* ===================== helpers numéricos ===================== */
 
     private static long mask(int w) {
         return (w >= 63) ? -1L : ((1L << w) - 1L);
     }
 
-    private static boolean msbSet(int val, int w) {
-        if (w <= 0) return false;
-        int bit = 1 << (w - 1);
-        return (val & bit) != 0;
+    private static boolean msbSet(Value val, int w) {
+        if (w <= 0 || !val.isFullyDefined()) return false;
+        return val.get(w - 1) == Value.TRUE;
     }
 
     private static long signExtend(int val, int w) {
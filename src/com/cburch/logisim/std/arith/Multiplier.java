@@ -5,6 +5,7 @@ package com.cburch.logisim.std.arith;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.math.BigInteger;
 
 import com.cburch.logisim.data.*;
 import com.cburch.logisim.instance.*;
@@ -39,10 +40,10 @@ public class Multiplier extends InstanceFactory {
         super("Multiplier", Strings.getter("multiplierComponent"));
 
         setAttributes(
-                new Attribute[]{ StdAttr.WIDTH, SIGN_MODE },
+                new Attribute[]{ StdAttr.WIDE_WIDTH, SIGN_MODE },
                 new Object[]   { BitWidth.create(8), MODE_AUTO }
         );
-        setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+        setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH));
         setOffsetBounds(Bounds.create(-40, -20, 40, 40));
         setIconName("multiplier.gif");
     }
@@ -55,7 +56,7 @@ public class Multiplier extends InstanceFactory {
 
     @Override
     protected void instanceAttributeChanged(Instance instance, Attribute<?> attr) {
-        if (attr == SIGN_MODE || attr == StdAttr.WIDTH) {
+        if (attr == SIGN_MODE || attr == StdAttr.WIDE_WIDTH) {
             updatePorts(instance);
             instance.recomputeBounds();
             instance.fireInvalidated();
@@ -68,7 +69,7 @@ public class Multiplier extends InstanceFactory {
     }
 
     private void updatePorts(Instance instance) {
-        BitWidth w = instance.getAttributeValue(StdAttr.WIDTH);
+        BitWidth w = instance.getAttributeValue(StdAttr.WIDE_WIDTH);
         boolean pinMode = pinModeEnabled(instance);
 
         // posiciones en múltiplos de 10
@@ -96,7 +97,7 @@ public class Multiplier extends InstanceFactory {
     @Override
     public void propagate(InstanceState state) {
         // get attributes
-        BitWidth width = state.getAttributeValue(StdAttr.WIDTH);
+        BitWidth width = state.getAttributeValue(StdAttr.WIDE_WIDTH);
         AttributeOption modeOpt = state.getAttributeValue(SIGN_MODE);
 
         // compute outputs
@@ -133,9 +134,7 @@ public class Multiplier extends InstanceFactory {
         Value a = st.getPort(IN0);
         Value b = st.getPort(IN1);
         if (a.isFullyDefined() && b.isFullyDefined()) {
-            int ai = a.toIntValue();
-            int bi = b.toIntValue();
-            return msbSet(ai, w.getWidth()) || msbSet(bi, w.getWidth());
+            return msbSet(a, w.getWidth()) || msbSet(b, w.getWidth());
         }
         return false; // si no se puede decidir, usa unsigned
     }
@@ -184,6 +183,7 @@ public class Multiplier extends InstanceFactory {
         if (!(a.isFullyDefined() && b.isFullyDefined() && c_in.isFullyDefined())) {
             return computeProductUnknown(width, a, b, c_in);
         }
+        if (w > 32) return computeWideProduct(width, a, b, c_in, signed);
 
         // Interpretar entradas según el modo
         int ai = a.toIntValue();
@@ -207,30 +207,41 @@ public class Multiplier extends InstanceFactory {
         };
     }
 
+    // Más de 32 bits: el producto de 2w bits no cabe en un long
+    private static Value[] computeWideProduct(BitWidth width, Value a, Value b, Value c_in, boolean signed) {
+        int w = width.getWidth();
+        BigInteger prod = a.toBigInteger(signed).multiply(b.toBigInteger(signed))
+                .add(c_in.toBigInteger(signed));
+        return new Value[]{
+                Value.createKnown(width, prod),
+                Value.createKnown(width, prod.shiftRight(w))
+        };
+    }
+
     // Mantiene el comportamiento original para UNKNOWN/ERROR
     private static Value[] computeProductUnknown(BitWidth width, Value a, Value b, Value c_in) {
         int w = width.getWidth();
         Value[] avals = a.getAll();
         int aOk = findUnknown(avals);
         int aErr = findError(avals);
-        int ax = getKnown(avals);
+        long ax = getKnown(avals);
         Value[] bvals = b.getAll();
         int bOk = findUnknown(bvals);
         int bErr = findError(bvals);
-        int bx = getKnown(bvals);
+        long bx = getKnown(bvals);
         Value[] cvals = c_in.getAll();
         int cOk = findUnknown(cvals);
         int cErr = findError(cvals);
-        int cx = getKnown(cvals);
+        long cx = getKnown(cvals);
 
         int known = Math.min(Math.min(aOk, bOk), cOk);
         int error = Math.min(Math.min(aErr, bErr), cErr);
-        int ret = ax * bx + cx;
+        long ret = ax * bx + cx;
 
         Value[] bits = new Value[w];
         for (int i = 0; i < w; i++) {
             if (i < known) {
-                bits[i] = ((ret & (1 << i)) != 0 ? Value.TRUE : Value.FALSE);
+                bits[i] = (i < 64 && (ret & (1L << i)) != 0 ? Value.TRUE : Value.FALSE);
             } else if (i < error) {
                 bits[i] = Value.UNKNOWN;
             } else {
@@ -249,10 +260,9 @@ public class Multiplier extends InstanceFactory {
         return (w >= 63) ? -1L : ((1L << w) - 1L);
     }
 
-    private static boolean msbSet(int val, int w) {
-        if (w <= 0) return false;
-        int bit = 1 << (w - 1);
-        return (val & bit) != 0;
+    private static boolean msbSet(Value val, int w) {
+        if (w <= 0 || !val.isFullyDefined()) return false;
+        return val.get(w - 1) == Value.TRUE;
     }
 
     private static long unsigned(int val, int w) {
@@ -279,12 +289,12 @@ public class Multiplier extends InstanceFactory {
         return vals.length;
     }
 
-    private static int getKnown(Value[] vals) {
-        int ret = 0;
-        for (int i = 0; i < vals.length; i++) {
+    private static long getKnown(Value[] vals) {
+        long ret = 0;
+        for (int i = 0; i < vals.length && i < 64; i++) {
             int v = vals[i].toIntValue();
             if (v < 0) return ret;
-            ret |= v << i;
+            ret |= (long) v << i;
         }
         return ret;
     }
@@ -21,15 +21,15 @@ public class Negator extends InstanceFactory {
 
 	public Negator() {
 		super("Negator", Strings.getter("negatorComponent"));
-		setAttributes(new Attribute[] { StdAttr.WIDTH },
+		setAttributes(new Attribute[] { StdAttr.WIDE_WIDTH },
 					new Object[] { BitWidth.create(8) });
-		setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+		setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH));
 		setOffsetBounds(Bounds.create(-40, -20, 40, 40));
 		setIconName("negator.gif");
 		
 		Port[] ps = new Port[2];
-		ps[IN]  = new Port(-40,  0, Port.INPUT,  StdAttr.WIDTH);
-		ps[OUT] = new Port(  0,  0, Port.OUTPUT, StdAttr.WIDTH);
+		ps[IN]  = new Port(-40,  0, Port.INPUT,  StdAttr.WIDE_WIDTH);
+		ps[OUT] = new Port(  0,  0, Port.OUTPUT, StdAttr.WIDE_WIDTH);
 		ps[IN].setToolTip(Strings.getter("negatorInputTip"));
 		ps[OUT].setToolTip(Strings.getter("negatorOutputTip"));
 		setPorts(ps);
@@ -38,13 +38,17 @@ public class Negator extends InstanceFactory {
 	@Override
 	public void propagate(InstanceState state) {
 		// get attributes
-		BitWidth dataWidth = state.getAttributeValue(StdAttr.WIDTH);
+		BitWidth dataWidth = state.getAttributeValue(StdAttr.WIDE_WIDTH);
 
 		// compute outputs
 		Value in = state.getPort(IN);
 		Value out;
 		if (in.isFullyDefined()) {
-			out = Value.createKnown(in.getBitWidth(), -in.toIntValue());
+			if (in.getWidth() <= 64) {
+				out = Value.createKnown(in.getBitWidth(), -in.toLongValue());
+			} else {
+				out = Value.createKnown(in.getBitWidth(), in.toBigInteger(false).negate());
+			}
 		} else {
 			Value[] bits = in.getAll();
 			Value fill = Value.FALSE;
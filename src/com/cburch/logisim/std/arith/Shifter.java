@@ -45,11 +45,11 @@ public class Shifter extends InstanceFactory {
 	public Shifter() {
 		super("Shifter", Strings.getter("shifterComponent"));
 		setAttributes(new Attribute[] {
-				StdAttr.WIDTH, ATTR_SHIFT
+				StdAttr.WIDE_WIDTH, ATTR_SHIFT
 			}, new Object[] {
 				BitWidth.create(8), SHIFT_LOGICAL_LEFT
 			});
-		setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+		setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH));
 		setOffsetBounds(Bounds.create(-40, -20, 40, 40));
 		setIconName("shifter.gif");
 	}
@@ -62,13 +62,13 @@ public class Shifter extends InstanceFactory {
 	
 	@Override
 	protected void instanceAttributeChanged(Instance instance, Attribute<?> attr) {
-		if (attr == StdAttr.WIDTH) {
+		if (attr == StdAttr.WIDE_WIDTH) {
 			configurePorts(instance);
 		}
 	}
 	
 	private void configurePorts(Instance instance) {
-		BitWidth dataWid = instance.getAttributeValue(StdAttr.WIDTH);
+		BitWidth dataWid = instance.getAttributeValue(StdAttr.WIDE_WIDTH);
 		int data = dataWid == null ? 32 : dataWid.getWidth();
 		int shift = 1;
 		while ((1 << shift) < data) shift++; 
@@ -86,7 +86,7 @@ public class Shifter extends InstanceFactory {
 	@Override
 	public void propagate(InstanceState state) {
 		// compute output
-		BitWidth dataWidth = state.getAttributeValue(StdAttr.WIDTH);
+		BitWidth dataWidth = state.getAttributeValue(StdAttr.WIDE_WIDTH);
 		int bits = dataWidth == null ? 32 : dataWidth.getWidth();
 		Value vx = state.getPort(IN0);
 		Value vd = state.getPort(IN1);
@@ -96,14 +96,14 @@ public class Shifter extends InstanceFactory {
 			Object shift = state.getAttributeValue(ATTR_SHIFT);
 			if (d == 0) {
 				vy = vx;
-			} else if (vx.isFullyDefined()) {
-				int x = vx.toIntValue();
-				int y;
+			} else if (vx.isFullyDefined() && bits <= 64) {
+				long x = vx.toLongValue();
+				long y;
 				if (shift == SHIFT_LOGICAL_RIGHT) {
 					y = x >>> d;
 				} else if (shift == SHIFT_ARITHMETIC_RIGHT) {
 					if (d >= bits) d = bits - 1;
-					y = x >> d | ((x << (32 - bits)) >> (32 - bits + d));
+					y = x >> d | ((x << (64 - bits)) >> (64 - bits + d));
 				} else if (shift == SHIFT_ROLL_RIGHT) {
 					if (d >= bits) d -= bits;
 					y = (x >>> d) | (x << (bits - d));
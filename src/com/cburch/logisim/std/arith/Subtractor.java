@@ -36,10 +36,10 @@ public class Subtractor extends InstanceFactory {
     public Subtractor() {
         super("Subtractor", Strings.getter("subtractorComponent"));
         setAttributes(
-                new Attribute[] { StdAttr.WIDTH, SIGN_MODE },
+                new Attribute[] { StdAttr.WIDE_WIDTH, SIGN_MODE },
                 new Object[]  { BitWidth.create(8), MODE_AUTO }
         );
-        setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDTH));
+        setKeyConfigurator(new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH));
         setOffsetBounds(Bounds.create(-40, -20, 40, 40));
         setIconName("subtractor.gif");
     }
@@ -52,7 +52,7 @@ public class Subtractor extends InstanceFactory {
 
     @Override
     protected void instanceAttributeChanged(Instance instance, Attribute<?> attr) {
-        if (attr == SIGN_MODE || attr == StdAttr.WIDTH) {
+        if (attr == SIGN_MODE || attr == StdAttr.WIDE_WIDTH) {
             updatePorts(instance);
             instance.recomputeBounds();
             instance.fireInvalidated();
@@ -64,7 +64,7 @@ public class Subtractor extends InstanceFactory {
     }
 
     private void updatePorts(Instance instance) {
-        BitWidth w = instance.getAttributeValue(StdAttr.WIDTH);
+        BitWidth w = instance.getAttributeValue(StdAttr.WIDE_WIDTH);
         boolean pinMode = pinModeEnabled(instance);
 
         Port in0   = new Port(-40, -10, Port.INPUT,  w);
@@ -93,7 +93,7 @@ public class Subtractor extends InstanceFactory {
     @Override
     public void propagate(InstanceState state) {
         // get attributes
-        BitWidth width = state.getAttributeValue(StdAttr.WIDTH);
+        BitWidth width = state.getAttributeValue(StdAttr.WIDE_WIDTH);
         AttributeOption modeOpt = state.getAttributeValue(SIGN_MODE);
 
         // compute outputs
@@ -136,9 +136,7 @@ public class Subtractor extends InstanceFactory {
 
         // AUTO: signed si MSB(A) o MSB(B)
         int width = w.getWidth();
-        int ai = a.isFullyDefined() ? a.toIntValue() : 0;
-        int bi = b.isFullyDefined() ? b.toIntValue() : 0;
-        return msbSet(ai, width) || msbSet(bi, width);
+        return msbSet(a, width) || msbSet(b, width);
     }
 
     @Override
@@ -178,9 +176,8 @@ public class Subtractor extends InstanceFactory {
     }
 
     /* ===== Helpers ===== */
-    private static boolean msbSet(int val, int w) {
-        if (w <= 0) return false;
-        int bit = 1 << (w - 1);
-        return (val & bit) != 0;
+    private static boolean msbSet(Value val, int w) {
+        if (w <= 0 || !val.isFullyDefined()) return false;
+        return val.get(w - 1) == Value.TRUE;
     }
 }
@@ -4,12 +4,14 @@
 package com.cburch.logisim.std.memory;
 
 import java.util.Arrays;
+import java.util.BitSet;
 
 import com.cburch.hex.HexModel;
 import com.cburch.hex.HexModelListener;
+import com.cburch.logisim.gui.hex.MappedImage;
 import com.cburch.logisim.util.EventSourceWeakSupport;
 
-class MemContents implements Cloneable, HexModel {
+class MemContents implements Cloneable, HexModel, MappedImage.Target {
 	private static final int PAGE_SIZE_BITS = 12;
 	private static final int PAGE_SIZE = 1 << PAGE_SIZE_BITS;
 	private static final int PAGE_MASK = PAGE_SIZE - 1;
@@ -23,6 +25,8 @@ class MemContents implements Cloneable, HexModel {
 	private int addrBits;
 	private int mask;
 	private MemContentsSub.ContentsInterface[] pages;
+	private volatile MappedImage image = null;
+	private BitSet imagePages = null; // pages not yet read from the image
 	
 	private MemContents(int addrBits, int width) {
 		listeners = null;
@@ -72,12 +76,11 @@ class MemContents implements Cloneable, HexModel {
 		try {
 			MemContents ret = (MemContents) super.clone();
 			ret.listeners = null;
-			ret.pages = new MemContentsSub.ContentsInterface[this.pages.length];
+			ret.pages = this.pages.clone();
 			for (int i = 0; i < ret.pages.length; i++) {
-				if (this.pages[i] != null) {
-					ret.pages[i] = this.pages[i].clone();
-				}
+				if (ret.pages[i] != null) ret.pages[i].share();
 			}
+			if (imagePages != null) ret.imagePages = (BitSet) imagePages.clone();
 			return ret;
 		} catch (CloneNotSupportedException ex) { return this; }
 	}
@@ -88,11 +91,13 @@ class MemContents implements Cloneable, HexModel {
 	public int get(long addr) {
 		int page = (int) (addr >>> PAGE_SIZE_BITS);
 		int offs = (int) (addr & PAGE_MASK);
-		if (page < 0 || page >= pages.length || pages[page] == null) return 0;
+		if (page < 0 || page >= pages.length) return 0;
+		if (pages[page] == null && (image == null || !faultIn(page))) return 0;
 		return pages[page].get(offs) & mask;
 	}
 	
 	public boolean isClear() {
+		faultIn(0, pages.length - 1);
 		for (int i = 0; i < pages.length; i++) {
 			MemContentsSub.ContentsInterface page = pages[i];
 			if (page != null) {
@@ -107,13 +112,11 @@ class MemContents implements Cloneable, HexModel {
 	public void set(long addr, int value) {
 		int page = (int) (addr >>> PAGE_SIZE_BITS);
 		int offs = (int) (addr & PAGE_MASK);
+		if (image != null) faultIn(page);
 		int old = pages[page] == null ? 0 : pages[page].get(offs) & mask;
 		int val = value & mask;
 		if (old != val) {
-			if (pages[page] == null) {
-				pages[page] = MemContentsSub.createContents(PAGE_SIZE, width);
-			}
-			pages[page].set(offs, val);
+			writablePage(page).set(offs, val);
 			fireBytesChanged(addr, 1, new int[] { old });
 		}
 	}
@@ -125,14 +128,16 @@ class MemContents implements Cloneable, HexModel {
 		int startOffs = (int) (start & PAGE_MASK);
 		int pageEnd = (int) ((start + values.length - 1) >>> PAGE_SIZE_BITS);
 		int endOffs = (int) ((start + values.length - 1) & PAGE_MASK);
+		faultIn(pageStart, pageEnd);
 
 		if (pageStart == pageEnd) {
 			ensurePage(pageStart);
 			MemContentsSub.ContentsInterface page = pages[pageStart];
 			if (!page.matches(values, startOffs, mask)) {
 				int[] oldValues = page.get(startOffs, values.length);
+				page = writablePage(pageStart);
 				page.load(startOffs, values, mask);
-				if (page.isClear()) pages[pageStart] = null;
+				if (page.isClear()) releasePage(pageStart);
 				fireBytesChanged(start, values.length, oldValues);
 			}
 		} else {
@@ -147,8 +152,9 @@ class MemContents implements Cloneable, HexModel {
 				MemContentsSub.ContentsInterface page = pages[pageStart];
 				if (!page.matches(vals, startOffs, mask)) {
 					int[] oldValues = page.get(startOffs, vals.length);
+					page = writablePage(pageStart);
 					page.load(startOffs, vals, mask);
-					if (page.isClear()) pages[pageStart] = null;
+					if (page.isClear()) releasePage(pageStart);
 					fireBytesChanged(start, PAGE_SIZE - pageStart, oldValues);
 				}
 				nextOffs = vals.length;
@@ -171,8 +177,9 @@ class MemContents implements Cloneable, HexModel {
 					System.arraycopy(values, offs, vals, 0, PAGE_SIZE);
 					if (!page.matches(vals, startOffs, mask)) {
 						int[] oldValues = page.get(0, PAGE_SIZE);
+						page = writablePage(i);
 						page.load(0, vals, mask);
-						if (page.isClear()) pages[i] = null;
+						if (page.isClear()) releasePage(i);
 						fireBytesChanged((long) i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
 					}
 				}
@@ -184,8 +191,9 @@ class MemContents implements Cloneable, HexModel {
 				MemContentsSub.ContentsInterface page = pages[pageEnd];
 				if (!page.matches(vals, startOffs, mask)) {
 					int[] oldValues = page.get(0, endOffs + 1);
+					page = writablePage(pageEnd);
 					page.load(0, vals, mask);
-					if (page.isClear()) pages[pageEnd] = null;
+					if (page.isClear()) releasePage(pageEnd);
 					fireBytesChanged((long) pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
 				}
 			}
@@ -199,6 +207,7 @@ class MemContents implements Cloneable, HexModel {
 		int startOffs = (int) (start & PAGE_MASK);
 		int pageEnd = (int) ((start + len - 1) >>> PAGE_SIZE_BITS);
 		int endOffs = (int) ((start + len - 1) & PAGE_MASK);
+		faultIn(pageStart, pageEnd);
 		value &= mask;
 		
 		if (pageStart == pageEnd) {
@@ -208,8 +217,9 @@ class MemContents implements Cloneable, HexModel {
 			MemContentsSub.ContentsInterface page = pages[pageStart];
 			if (!page.matches(vals, startOffs, mask)) {
 				int[] oldValues = page.get(startOffs, (int) len);
+				page = writablePage(pageStart);
 				page.load(startOffs, vals, mask);
-				if (value == 0 && page.isClear()) pages[pageStart] = null;
+				if (value == 0 && page.isClear()) releasePage(pageStart);
 				fireBytesChanged(start, len, oldValues);
 			}
 		} else {
@@ -225,8 +235,9 @@ class MemContents implements Cloneable, HexModel {
 					MemContentsSub.ContentsInterface page = pages[pageStart];
 					if (!page.matches(vals, startOffs, mask)) {
 						int[] oldValues = page.get(startOffs, vals.length);
+						page = writablePage(pageStart);
 						page.load(startOffs, vals, mask);
-						if (value == 0 && page.isClear()) pages[pageStart] = null;
+						if (value == 0 && page.isClear()) releasePage(pageStart);
 						fireBytesChanged(start, PAGE_SIZE - pageStart, oldValues);
 					}
 				}
@@ -243,6 +254,7 @@ class MemContents implements Cloneable, HexModel {
 					MemContentsSub.ContentsInterface page = pages[i];
 					if (!page.matches(vals, 0, mask)) {
 						int[] oldValues = page.get(0, PAGE_SIZE);
+						page = writablePage(i);
 						page.load(0, vals, mask);
 						fireBytesChanged((long) i << PAGE_SIZE_BITS, PAGE_SIZE, oldValues);
 					}
@@ -254,12 +266,14 @@ class MemContents implements Cloneable, HexModel {
 					// nothing to do
 				} else {
 					ensurePage(pageEnd);
+					page = pages[pageEnd];
 					int[] vals = new int[endOffs + 1];
 					Arrays.fill(vals, value);
 					if (!page.matches(vals, 0, mask)) {
 						int[] oldValues = page.get(0, endOffs + 1);
+						page = writablePage(pageEnd);
 						page.load(0, vals, mask);
-						if (value == 0 && page.isClear()) pages[pageEnd] = null;
+						if (value == 0 && page.isClear()) releasePage(pageEnd);
 						fireBytesChanged((long) pageEnd << PAGE_SIZE_BITS, endOffs + 1, oldValues);
 					}
 				}
@@ -268,6 +282,7 @@ class MemContents implements Cloneable, HexModel {
 	}
 	
 	public void clear() {
+		faultIn(0, pages.length - 1);
 		for (int i = 0; i < pages.length; i++) {
 			if (pages[i] != null) {
 				if (pages[i] != null) clearPage(i);
@@ -285,13 +300,14 @@ class MemContents implements Cloneable, HexModel {
 			if (val != 0) changed = true;
 		}
 		if (changed) {
-			pages[index] = null;
+			releasePage(index);
 			fireBytesChanged(index << PAGE_SIZE_BITS, oldValues.length, oldValues);
 		}
 	}
 	
 	public void setDimensions(int addrBits, int width) {
 		if (addrBits == this.addrBits && width == this.width) return;
+		if (pages != null) faultIn(0, pages.length - 1);
 		this.addrBits = addrBits;
 		this.width = width;
 		this.mask = width == 32 ? 0xffffffff : ((1 << width) - 1);
@@ -311,6 +327,7 @@ class MemContents implements Cloneable, HexModel {
 					for (int j = 0; j < m; j++) {
 						pages[i].set(j, oldPages[i].get(j));
 					}
+					oldPages[i].release();
 				}
 			}
 		}
@@ -337,4 +354,68 @@ class MemContents implements Cloneable, HexModel {
 			pages[index] = MemContentsSub.createContents(PAGE_SIZE, width);
 		}
 	}
+
+	// Returns the page at the given index, ready to be modified: it is
+	// created if missing, and copied first if another clone shares it.
+	private MemContentsSub.ContentsInterface writablePage(int index) {
+		MemContentsSub.ContentsInterface page = pages[index];
+		if (page == null) {
+			page = MemContentsSub.createContents(PAGE_SIZE, width);
+			pages[index] = page;
+		} else {
+			page = page.forWriting();
+			pages[index] = page;
+		}
+		return page;
+	}
+
+	public void mapImage(MappedImage value) {
+		synchronized (this) {
+			for (int i = 0; i < pages.length; i++) {
+				if (pages[i] != null) releasePage(i);
+			}
+			long count = Math.min(value.getWordCount(), getLastOffset() + 1);
+			int n = (int) ((count + PAGE_SIZE - 1) >>> PAGE_SIZE_BITS);
+			if (n > 0) {
+				imagePages = new BitSet(n);
+				imagePages.set(0, n);
+				image = value;
+			} else {
+				imagePages = null;
+				image = null;
+			}
+		}
+		fireBytesChanged(getFirstOffset(), getLastOffset() + 1, null);
+	}
+
+	// Reads a page from the mapped image if it has not been read yet, and
+	// returns whether the page is now present.
+	private synchronized boolean faultIn(int index) {
+		if (imagePages != null && imagePages.get(index)) {
+			imagePages.clear(index);
+			long start = (long) index << PAGE_SIZE_BITS;
+			int[] vals = new int[(int) Math.min(PAGE_SIZE, image.getWordCount() - start)];
+			image.read(start, vals);
+			MemContentsSub.ContentsInterface page = MemContentsSub.createContents(PAGE_SIZE, width);
+			page.load(0, vals, mask);
+			if (!page.isClear()) pages[index] = page;
+			if (imagePages.isEmpty()) {
+				imagePages = null;
+				image = null;
+			}
+		}
+		return pages[index] != null;
+	}
+
+	private void faultIn(int pageStart, int pageEnd) {
+		if (image == null) return;
+		for (int i = Math.max(pageStart, 0); i <= pageEnd && i < pages.length; i++) {
+			faultIn(i);
+		}
+	}
+
+	private void releasePage(int index) {
+		pages[index].release();
+		pages[index] = null;
+	}
 }
@@ -26,18 +26,19 @@ import com.cburch.logisim.util.GraphicsUtil;
 
 public class BitSelector extends InstanceFactory {
 	public static final Attribute<BitWidth> GROUP_ATTR
-		= Attributes.forBitWidth("group", Strings.getter("bitSelectorGroupAttr"));
+		= Attributes.forBitWidth("group", Strings.getter("bitSelectorGroupAttr"),
+			1, Value.MAX_WIDTH);
 
 	public BitSelector() {
 		super("BitSelector", Strings.getter("bitSelectorComponent"));
 		setAttributes(new Attribute[] {
-				StdAttr.FACING, StdAttr.WIDTH, GROUP_ATTR
+				StdAttr.FACING, StdAttr.WIDE_WIDTH, GROUP_ATTR
 			}, new Object[] {
 				Direction.EAST, BitWidth.create(8), BitWidth.ONE
 			});
 		setKeyConfigurator(JoinedConfigurator.create(
 				new BitWidthConfigurator(GROUP_ATTR, 1, Value.MAX_WIDTH, 0),
-				new BitWidthConfigurator(StdAttr.WIDTH)));
+				new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH)));
 
 		setIconName("bitSelector.gif");
 		setFacingAttribute(StdAttr.FACING);
@@ -61,14 +62,14 @@ public class BitSelector extends InstanceFactory {
 		if (attr == StdAttr.FACING) {
 			instance.recomputeBounds();
 			updatePorts(instance);
-		} else if (attr == StdAttr.WIDTH || attr == GROUP_ATTR) {
+		} else if (attr == StdAttr.WIDE_WIDTH || attr == GROUP_ATTR) {
 			updatePorts(instance);
 		}
 	}
 
 	private void updatePorts(Instance instance) {
 		Direction facing = instance.getAttributeValue(StdAttr.FACING);
-		BitWidth data = instance.getAttributeValue(StdAttr.WIDTH);
+		BitWidth data = instance.getAttributeValue(StdAttr.WIDE_WIDTH);
 		BitWidth group = instance.getAttributeValue(GROUP_ATTR);
 		int groups = (data.getWidth() + group.getWidth() - 1) / group.getWidth() - 1;
 		int selectBits = 1;
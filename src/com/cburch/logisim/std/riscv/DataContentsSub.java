@@ -4,6 +4,7 @@
 package com.cburch.logisim.std.riscv;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class DataContentsSub {
 	private DataContentsSub() { }
@@ -15,14 +16,45 @@ class DataContentsSub {
 	}
 	
 	static abstract class ContentsInterface implements Cloneable {
+		// number of memories holding this page; a page with more than one
+		// is copied before it is modified
+		private AtomicInteger owners = new AtomicInteger(1);
+
 		@Override
 		public ContentsInterface clone() {
 			try {
-				return (ContentsInterface) super.clone();
+				ContentsInterface ret = (ContentsInterface) super.clone();
+				ret.owners = new AtomicInteger(1);
+				return ret;
 			} catch (CloneNotSupportedException e) {
 				return this;
 			}
 		}
+
+		void share() {
+			owners.incrementAndGet();
+		}
+
+		void release() {
+			owners.decrementAndGet();
+		}
+
+		/** Returns a page that its caller may modify in place of this one:
+		 * this page if the caller is its only owner, and otherwise a copy.
+		 * The caller's share of this page is given up only after the copy
+		 * is complete, so that no other owner can start modifying it in
+		 * place in the meantime; and if the other owners all let go of it
+		 * while it is copied, the caller keeps this page instead. */
+		ContentsInterface forWriting() {
+			if (owners.get() == 1) return this;
+			ContentsInterface copy = clone();
+			while (true) {
+				int n = owners.get();
+				if (n == 1) return this;
+				if (owners.compareAndSet(n, n - 1)) return copy;
+			}
+		}
+
 		abstract int getLength();
 		abstract int get(int addr);
 		abstract void set(int addr, int value);
@@ -201,7 +233,7 @@ class DataContentsSub {
 		void load(int start, int[] values, int mask) {
 			int n = Math.min(values.length, data.length - start);
 			for (int i = 0; i < n; i++) {
-				data[i] = values[i] & mask;
+				data[start + i] = values[i] & mask;
 			}
 		}
 	}
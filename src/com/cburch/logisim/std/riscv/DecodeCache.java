@@ -0,0 +1,73 @@
+package com.cburch.logisim.std.riscv;
+
+import com.cburch.hex.HexModel;
+import com.cburch.hex.HexModelListener;
+
+/**
+ * Holds the decoded instruction for each word of a processor's memory, so
+ * that fetching an instruction already decoded is an array lookup. Entries
+ * are decoded on first use and dropped whenever the memory changes.
+ */
+class DecodeCache implements HexModelListener {
+    private static final int PAGE_SIZE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SIZE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final DataContents contents;
+    private Instruction[][] pages;
+
+    DecodeCache(DataContents contents) {
+        this.contents = contents;
+        this.pages = new Instruction[pageCount()][];
+        contents.addHexModelListener(this);
+    }
+
+    Instruction get(long addr) {
+        int page = (int) (addr >>> PAGE_SIZE_BITS);
+        if (page < 0 || page >= pages.length) {
+            return Instruction.create(contents.get(addr));
+        }
+        Instruction[] entries = pages[page];
+        if (entries == null) {
+            entries = new Instruction[PAGE_SIZE];
+            pages[page] = entries;
+        }
+        int offs = (int) (addr & PAGE_MASK);
+        Instruction ret = entries[offs];
+        if (ret == null) {
+            ret = Instruction.create(contents.get(addr));
+            entries[offs] = ret;
+        }
+        return ret;
+    }
+
+    @Override
+    public void metainfoChanged(HexModel source) {
+        pages = new Instruction[pageCount()][];
+    }
+
+    @Override
+    public void bytesChanged(HexModel source, long start, long numBytes, int[] oldValues) {
+        long end = start + numBytes;
+        for (long addr = start; addr < end; ) {
+            int page = (int) (addr >>> PAGE_SIZE_BITS);
+            long pageEnd = ((long) page + 1) << PAGE_SIZE_BITS;
+            if (page >= 0 && page < pages.length && pages[page] != null) {
+                if (addr == (long) page << PAGE_SIZE_BITS && pageEnd <= end) {
+                    pages[page] = null;
+                } else {
+                    Instruction[] entries = pages[page];
+                    for (long a = addr, n = Math.min(end, pageEnd); a < n; a++) {
+                        entries[(int) (a & PAGE_MASK)] = null;
+                    }
+                }
+            }
+            addr = pageEnd;
+        }
+    }
+
+    private int pageCount() {
+        long words = contents.getLastOffset() + 1;
+        return (int) ((words + PAGE_SIZE - 1) >>> PAGE_SIZE_BITS);
+    }
+}
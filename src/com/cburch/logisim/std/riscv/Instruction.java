@@ -1,19 +1,36 @@
 package com.cburch.logisim.std.riscv;
 
 import com.cburch.logisim.data.Value;
+import com.cburch.logisim.util.Cache;
 
+/**
+ * A decoded instruction. Instructions are immutable, so the same object
+ * may be shared by every place the instruction word appears; use
+ * {@link #create(int)} to obtain them through a cache.
+ */
 public class Instruction {
-    int instruction;
-    int opcode,d,s1,s2,func3;
-    boolean imm, mulDiv,func7;
-    public Instruction(int inst){
-        setValues(inst);
+    private static final Cache cache = new Cache(10, 4);
+
+    public static Instruction create(int inst) {
+        Object cached = cache.get(inst);
+        if (cached != null) {
+            Instruction ret = (Instruction) cached;
+            if (ret.instruction == inst) return ret;
+        }
+        Instruction ret = new Instruction(inst);
+        cache.put(inst, ret);
+        return ret;
     }
-    public Instruction(Value inst){
-        instruction = inst.toIntValue();
-        setValues(instruction);
+
+    public static Instruction create(Value inst) {
+        return create(inst.toIntValue());
     }
-    private void setValues(int inst){
+
+    final int instruction;
+    final int opcode,d,s1,s2,func3;
+    final boolean imm, mulDiv,func7;
+    final int immediate;
+    public Instruction(int inst){
         instruction = inst;
         opcode=inst&0x7f;
         d=(inst>>7)&0x1f;
@@ -23,8 +40,27 @@ public class Instruction {
         s2=(inst>>20)&0x1f;
         imm=(opcode==0x13);
         mulDiv =((inst&0x7f)==0x33 && ((inst>>25)&1)==1);
+        immediate=decodeImm();
+    }
+    public Instruction(Value inst){
+        this(inst.toIntValue());
     }
     public int getImm() {
+        return immediate;
+    }
+
+    @Override
+    public int hashCode() {
+        return instruction;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Instruction
+            && ((Instruction) other).instruction == instruction;
+    }
+
+    private int decodeImm() {
         return switch (opcode) {
             case 0b1101111 -> getImmJ();
             // I-type
@@ -2,22 +2,25 @@ package com.cburch.logisim.std.riscv;
 
 import com.cburch.logisim.circuit.CircuitState;
 import com.cburch.logisim.data.*;
+import com.cburch.logisim.gui.hex.ElfFile;
 import com.cburch.logisim.gui.hex.HexFile;
 import com.cburch.logisim.gui.hex.HexFrame;
+import com.cburch.logisim.gui.hex.MappedImage;
 import com.cburch.logisim.gui.main.Frame;
 import com.cburch.logisim.instance.*;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.tools.MenuExtender;
+import com.cburch.logisim.tools.SetAttributeAction;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.NoSuchElementException;
-import java.util.Objects;
 import java.util.StringTokenizer;
 
 abstract class Processor extends InstanceFactory {
@@ -40,6 +43,11 @@ abstract class Processor extends InstanceFactory {
             "addrWidth", Strings.getter("processorAddrWidthAttr"), 2, 24);
     static final Attribute<Integer> MULTIPLIER =Attributes.forIntegerMultiplierRange(
             "multiplier", Strings.getter("processorMultiplierAttr"), 0, 12);
+    static final Attribute<AttributeOption> FAST_FORWARD
+            = Attributes.forOption("fastForward",Strings.getter("processorFastForward"),
+            new AttributeOption[] { ENABLE,DISABLE});
+    static final Attribute<Integer> FAST_BUDGET =Attributes.forIntegerMultiplierRange(
+            "fastBudget", Strings.getter("processorFastBudgetAttr"), 0, 24);
     static Attribute<DataContents> CONTENTS_ATTR = new ContentsAttribute();
 
     //Port address
@@ -93,6 +101,32 @@ abstract class Processor extends InstanceFactory {
     HexFrame getHexFrame(Project proj, Instance instance) {
         return ProcessorAttributes.getHexFrame(instance.getAttributeValue(CONTENTS_ATTR), proj);
     }
+    /**
+     * Loads the segments of an ELF program into the processor's memory,
+     * relative to the first address, and boots from its entry point. A
+     * simulation already running continues from the entry point too.
+     */
+    void loadElf(Project proj, Instance instance, CircuitState state, File file) throws IOException {
+        ElfFile elf = ElfFile.read(file);
+        int first = instance.getAttributeValue(FIRST_ADDR);
+        MappedImage image = MappedImage.open(elf, first & 0xFFFFFFFFL, 32);
+        DataContents contents = instance.getAttributeValue(CONTENTS_ATTR);
+        HexFile.open(contents, image);
+        SymbolTable symbols = new SymbolTable(elf);
+        ProcessorAttributes.setSymbols(contents, symbols);
+
+        int entry = (int) elf.getEntry();
+        ProcessorData data = (ProcessorData) instance.getData(state);
+        if (data != null) {
+            HexFile.open(data.contents, image);
+            data.symbols = symbols;
+            data.loadPC(entry);
+        }
+        SetAttributeAction act = new SetAttributeAction(state.getCircuit(),
+                Strings.getter("processorLoadElfAction"));
+        act.set(Instance.getComponentFor(instance), BOOT_ADDR, entry);
+        proj.doAction(act);
+    }
     ProcessorData getData(Instance instance, CircuitState state){
         ProcessorData data =(ProcessorData) instance.getData(state);
         if(data == null){
@@ -136,16 +170,21 @@ abstract class Processor extends InstanceFactory {
             propagateLow(state,data,last);
             return;
         }
-        for(int i=0;i<(data.ls_PC ? 1 : state.getAttributeValue(MULTIPLIER));i++){
+        int count=state.getAttributeValue(MULTIPLIER);
+        if(!data.ls_PC && state.getAttributeValue(FAST_FORWARD)==ENABLE){
+            int budget=state.getAttributeValue(FAST_BUDGET);
+            if(fastForward(state,data,budget)>=budget){return;}
+            count=1; //the instruction that ended the block runs normally
+        }
+        for(int i=0;i<(data.ls_PC ? 1 : count);i++){
             //get instruction
             if( addressInProcessor(state,data.programCount>>2)) {
                 int offset = state.getAttributeValue(FIRST_ADDR);
-                int res = data.contents.get((data.programCount - offset) >>> 2);
                 if (data.ls_PC) {
-                    data.loadPC(res);
+                    data.loadPC(data.contents.get((data.programCount - offset) >>> 2));
                     return;
                 } else {
-                    data.setInstruction(data.contents.get((data.programCount - offset) >>> 2));
+                    data.fetchInstruction((data.programCount - offset) >>> 2);
                 }
             }
             else{
@@ -164,6 +203,7 @@ abstract class Processor extends InstanceFactory {
         //if(!(data.lastClock == Value.FALSE && last == Value.TRUE)){return;}
         boolean falling=(data.lastClock == Value.FALSE && last == Value.TRUE);
         boolean rising =(data.lastClock == Value.TRUE && last == Value.FALSE);
+        if(falling && data.profile!=null){data.profile.countStall();}
         if(falling){
             switch (data.opcode) {
                 case 0b0:
@@ -207,7 +247,7 @@ abstract class Processor extends InstanceFactory {
                         break;
                     }
                     int bs=state.getPort(ADDR).toIntValue()&0b11;
-                    int v= selectByteData(data,bs,res.toIntValue());
+                    int v= selectByteData(data.instruction.func3,bs,res.toIntValue());
                     data.register.setValue(data.instruction.d, v);
                     break;
             }
@@ -237,11 +277,100 @@ abstract class Processor extends InstanceFactory {
         }
     }
 
+    /**
+     * Runs instructions from internal memory with the program counter in a
+     * local variable, until the budget is used up or it reaches an
+     * instruction it leaves to execute(): one accessing memory outside the
+     * processor, changing the interrupt state, or not among the base
+     * integer and multiply instructions. Returns the number retired.
+     */
+    private int fastForward(InstanceState state, ProcessorData data, int budget){
+        if(state.getAttributeValue(ENABLE_MEMORY)==DISABLE){return 0;}
+        int start=state.getAttributeValue(FIRST_ADDR);
+        int end=start+(1<<state.getAttributeValue(ADDR_ATTR).getWidth());
+        DecodeCache decoded=data.decoded;
+        DataContents contents=data.contents;
+        RegisterMem reg=data.register;
+        ProcessorProfile profile=data.profile;
+        int pc=data.programCount;
+        int n=0;
+        Instruction inst=data.instruction;
+        loop:
+        while(n<budget){
+            int word=pc>>2;
+            if(!(word>=start & word<end)){break;}
+            Instruction next=decoded.get((pc-start)>>>2);
+            int at=pc;
+            switch (next.opcode){
+                case 0b0110011: // R-type
+                    reg.setValue(next.d,alu(next,reg.getValue(next.s1),reg.getValue(next.s2)));
+                    pc+=4;
+                    break;
+                case 0b0010011: // I-type
+                    reg.setValue(next.d,alu(next,reg.getValue(next.s1),next.immediate));
+                    pc+=4;
+                    break;
+                case 0b1101111: //JAL
+                    reg.setValue(next.d,pc+4);
+                    pc+=next.immediate;
+                    break;
+                case 0b1100111: //JALR, rd is written before rs1 is read, as in execute()
+                    reg.setValue(next.d,pc+4);
+                    pc=(reg.getValue(next.s1)+next.immediate)&0xFFFFFFFE;
+                    break;
+                case 0b0000011: { // loads
+                    int address=reg.getValue(next.s1)+next.immediate;
+                    int addrWord=address>>2;
+                    if(!(addrWord>=start & addrWord<end)){break loop;}
+                    int res=contents.get((address-start)>>>2);
+                    reg.setValue(next.d,selectByteData(next.func3,(address-start)&0b11,res));
+                    pc+=4;
+                    break;
+                }
+                case 0b0100011: { // stores
+                    int address=reg.getValue(next.s1)+next.immediate;
+                    int addrWord=address>>2;
+                    if(!(addrWord>=start & addrWord<end)){break loop;}
+                    storeData(contents,start,address,next.func3,reg.getValue(next.s2));
+                    pc+=4;
+                    break;
+                }
+                case 0b1100011: // branches
+                    pc+=branchOffset(next.func3,reg.getValue(next.s1),reg.getValue(next.s2),next.immediate);
+                    break;
+                case 0b0110111: //LUI
+                    reg.setValue(next.d,next.immediate);
+                    pc+=4;
+                    break;
+                case 0b0010111: //AUIPC
+                    reg.setValue(next.d,pc+next.immediate);
+                    pc+=4;
+                    break;
+                default:
+                    break loop;
+            }
+            if(profile!=null){
+                profile.countInstruction(at,next);
+                if(next.opcode==0b0000011){profile.countLoad(true);}
+                else if(next.opcode==0b0100011){profile.countStore(true);}
+            }
+            inst=next;
+            n++;
+        }
+        data.programCount=pc;
+        data.instruction=inst;
+        data.opcode=inst.opcode;
+        data.retired+=n;
+        return n;
+    }
+
     private void execute(InstanceState state, ProcessorData data){
+        data.retired++;
+        if(data.profile!=null){data.profile.countInstruction(data.programCount,data.instruction);}
         data.opcode=data.instruction.opcode;
         switch (data.opcode){
             case 0b0110011: // ADD / SUB / SLL / SLT / SLTU / XOR / SRL / SRA / OR / AND / MUL / DIV
-                rType(data,data.getS1(),data.getS2());
+                data.register.setValue(data.instruction.d,alu(data.instruction,data.getS1(),data.getS2()));
                 data.stepPC(4);
                 break;
             case 0b1101111: //JAL
@@ -256,7 +385,7 @@ abstract class Processor extends InstanceFactory {
                 iTypeLoad(state,data);
                 break;
             case 0b0010011: // ADDI / SLTI / SLTIU / XORI / ORI / ANDI / SLLI / SRLI / SRAI
-                rType(data,data.getS1(),data.instruction.getImm());
+                data.register.setValue(data.instruction.d,alu(data.instruction,data.getS1(),data.instruction.getImm()));
                 data.stepPC(4);
                 break;
             case 0b0100011: //SB / SH / SW
@@ -300,8 +429,7 @@ abstract class Processor extends InstanceFactory {
         }
     }
 
-    private int selectByteData( ProcessorData data,int bs, int res){
-        int func3=data.instruction.func3;
+    private static int selectByteData(int func3,int bs, int res){
         switch (func3){
             case 0b000: // LB
                 res = (res>>(bs<<3))&0xFF;
@@ -323,8 +451,7 @@ abstract class Processor extends InstanceFactory {
         return res;
     }
 
-    private void rType(ProcessorData data, int rs1, int rs2) {
-        Instruction inst=data.instruction;
+    private static int alu(Instruction inst, int rs1, int rs2) {
         int r=0;
         if(inst.mulDiv){
             switch (inst.func3){
@@ -404,7 +531,7 @@ abstract class Processor extends InstanceFactory {
                     break;
             }
         }
-        data.register.setValue(inst.d, r);
+        return r;
     }
 
     private void iTypeLoad(InstanceState state, ProcessorData data) {
@@ -413,7 +540,8 @@ abstract class Processor extends InstanceFactory {
             int offset=state.getAttributeValue(FIRST_ADDR);
             int res=data.contents.get((address-offset)>>>2);
             int bs=(address-offset)&0b11;
-            res=selectByteData(data,bs,res);
+            res=selectByteData(data.instruction.func3,bs,res);
+            if(data.profile!=null){data.profile.countLoad(true);}
             if(data.ls_PC){
                 data.loadPC(res);
                 data.intr_enable=true;
@@ -422,6 +550,7 @@ abstract class Processor extends InstanceFactory {
             data.stepPC(4);
             return;
         }
+        if(data.profile!=null){data.profile.countLoad(false);}
         data.low=true;
         data.opcode=0b10;
     }
@@ -453,46 +582,50 @@ abstract class Processor extends InstanceFactory {
         if(addressInProcessor(state,address>>2)){
             int store=( data.ls_PC) ? data.intrProgramCount : data.getS2();
             int offset=state.getAttributeValue(FIRST_ADDR);
-            int old=data.contents.get((address-offset)>>2);
-            int func3=data.instruction.func3;
-            int bs=address&0b11;
-            if(func3==0b000){ //Store Byte
-                int mask=0xFFFF_FF00;
-                store&=0xFF;
-                store = switch (bs) {
-                    case 0b01 -> {
-                        mask = (mask << 8) | 0xFF;
-                        yield store << 8;
-                    }
-                    case 0b10 -> {
-                        mask = (mask << 16) | 0xFFFF;
-                        yield store << 16;
-                    }
-                    case 0b11 -> {
-                        mask = 0x00FFFFFF;
-                        yield store << 24;
-                    }
-                    default -> store;
-                };
-                store=(old&mask)|store;
-            }
-            else if(func3==0b001){ //Store Half
-                int mask=0xFFFF0000;
-                store&=0xFFFF;
-                if(bs==2){
-                    mask=0xFFFF;
-                    store=store<<16;
-                }
-                store|=(old&mask);
-            }
-            data.contents.set(address>>2, store);
+            storeData(data.contents,offset,address,data.instruction.func3,store);
+            if(data.profile!=null){data.profile.countStore(true);}
             data.stepPC(4);
             return;
 
         }
+        if(data.profile!=null){data.profile.countStore(false);}
         data.low=true;
         data.opcode=0b10;
     }
+    private static void storeData(DataContents contents, int offset, int address, int func3, int store) {
+        int old=contents.get((address-offset)>>2);
+        int bs=address&0b11;
+        if(func3==0b000){ //Store Byte
+            int mask=0xFFFF_FF00;
+            store&=0xFF;
+            store = switch (bs) {
+                case 0b01 -> {
+                    mask = (mask << 8) | 0xFF;
+                    yield store << 8;
+                }
+                case 0b10 -> {
+                    mask = (mask << 16) | 0xFFFF;
+                    yield store << 16;
+                }
+                case 0b11 -> {
+                    mask = 0x00FFFFFF;
+                    yield store << 24;
+                }
+                default -> store;
+            };
+            store=(old&mask)|store;
+        }
+        else if(func3==0b001){ //Store Half
+            int mask=0xFFFF0000;
+            store&=0xFFFF;
+            if(bs==2){
+                mask=0xFFFF;
+                store=store<<16;
+            }
+            store|=(old&mask);
+        }
+        contents.set(address>>2, store);
+    }
     private void sTypeLow(InstanceState state, ProcessorData data) {
         Value addr=Value.createKnown(b32,data.getS1() + data.instruction.getImm());
         int bs=addr.toIntValue()&0b11;
@@ -517,26 +650,25 @@ abstract class Processor extends InstanceFactory {
     }
 
     private void bType(ProcessorData data) {
-        int Imm = data.instruction.getImm();
-        switch(data.instruction.func3){
+        data.stepPC(branchOffset(data.instruction.func3,data.getS1(),data.getS2(),data.instruction.getImm()));
+    }
+
+    private static int branchOffset(int func3, int rs1, int rs2, int Imm) {
+        switch(func3){
             case 0b000: // BEQ
-                data.stepPC((Objects.equals(data.getS1(), data.getS2()))? Imm : 4);
-                break;
+                return (rs1 == rs2)? Imm : 4;
             case 0b001: // BNE
-                data.stepPC((Objects.equals(data.getS1(), data.getS2()))? 4 : Imm);
-                break;
+                return (rs1 == rs2)? 4 : Imm;
             case 0b100: // BLT
-                data.stepPC((data.getS1()< data.getS2())? Imm : 4);
-                break;
+                return (rs1 < rs2)? Imm : 4;
             case 0b101: // BGE
-                data.stepPC((data.getS1()>= data.getS2())? Imm : 4);
-                break;
+                return (rs1 >= rs2)? Imm : 4;
             case 0b110: //BLTU
-                data.stepPC((Integer.toUnsignedLong(data.getS1()) < Integer.toUnsignedLong(data.getS2()))? Imm : 4);
-                break;
+                return (Integer.toUnsignedLong(rs1) < Integer.toUnsignedLong(rs2))? Imm : 4;
             case 0b111: //BGEU
-                data.stepPC((Integer.toUnsignedLong(data.getS1()) >= Integer.toUnsignedLong(data.getS2()))? Imm : 4);
-                break;
+                return (Integer.toUnsignedLong(rs1) >= Integer.toUnsignedLong(rs2))? Imm : 4;
+            default:
+                return 0;
         }
     }
 
@@ -21,12 +21,16 @@ class ProcessorAttributes extends AbstractAttributeSet {
 					Processor.BOOT_ADDR,
 					Processor.INTR_ADDR,
 					Processor.ADDR_ATTR,
-					Processor.MULTIPLIER));
+					Processor.MULTIPLIER,
+					Processor.FAST_FORWARD,
+					Processor.FAST_BUDGET));
 	
 	private static final WeakHashMap<DataContents, ProcessorContentsListener> listenerRegistry
 		= new WeakHashMap<DataContents, ProcessorContentsListener>();
 	private static final WeakHashMap<DataContents,HexFrame> windowRegistry
 		= new WeakHashMap<DataContents,HexFrame>();
+	private static final WeakHashMap<DataContents,SymbolTable> symbolRegistry
+		= new WeakHashMap<DataContents,SymbolTable>();
 
 	static void register(DataContents value, Project proj) {
 		if (proj == null || listenerRegistry.containsKey(value)) return;
@@ -44,6 +48,16 @@ class ProcessorAttributes extends AbstractAttributeSet {
 			return ret;
 		}
 	}
+	static SymbolTable getSymbols(DataContents value) {
+		synchronized(symbolRegistry) {
+			return symbolRegistry.get(value);
+		}
+	}
+	static void setSymbols(DataContents value, SymbolTable symbols) {
+		synchronized(symbolRegistry) {
+			symbolRegistry.put(value, symbols);
+		}
+	}
 	private AttributeOption displayRegister =RV32IM.HIDE_REGISTER;
 	private AttributeOption enableMemory=Processor.ENABLE;
 	private Integer firstAddr=0;
@@ -52,6 +66,8 @@ class ProcessorAttributes extends AbstractAttributeSet {
 	private BitWidth addrBits=BitWidth.create(10);
 	private DataContents contents;
 	private Integer multiplier=1;
+	private AttributeOption fastForward=Processor.DISABLE;
+	private Integer fastBudget=1<<16;
 	ProcessorAttributes() {
 		contents = DataContents.create(addrBits.getWidth(),32);
 	}
@@ -78,6 +94,8 @@ class ProcessorAttributes extends AbstractAttributeSet {
 		d.addrBits = addrBits;
 		d.contents = contents.clone();
 		d.multiplier=multiplier;
+		d.fastForward=fastForward;
+		d.fastBudget=fastBudget;
 	}
 	
 	@Override
@@ -96,6 +114,8 @@ class ProcessorAttributes extends AbstractAttributeSet {
 		else if (attr ==Processor.ADDR_ATTR) return (V) addrBits;
 		else if (attr == Processor.CONTENTS_ATTR) return (V) contents;
 		else if (attr == Processor.MULTIPLIER) return (V) multiplier;
+		else if (attr == Processor.FAST_FORWARD) return (V) fastForward;
+		else if (attr == Processor.FAST_BUDGET) return (V) fastBudget;
 		return null;
 	}
 	
@@ -107,6 +127,8 @@ class ProcessorAttributes extends AbstractAttributeSet {
 		else if (attr == Processor.BOOT_ADDR) bootAddr = (Integer) value;
 		else if (attr == Processor.INTR_ADDR) intrAddr = (Integer) value;
 		else if (attr == Processor.MULTIPLIER) multiplier = (Integer) value;
+		else if (attr == Processor.FAST_FORWARD) fastForward = (AttributeOption) value;
+		else if (attr == Processor.FAST_BUDGET) fastBudget = (Integer) value;
 		else if (attr == Processor.ADDR_ATTR) {
 			addrBits = (BitWidth) value;
 			contents.setDimensions(addrBits.getWidth(), 32);
@@ -11,16 +11,20 @@ import com.cburch.logisim.util.StringUtil;
 import java.awt.*;
 
 public class ProcessorData implements InstanceData,Cloneable, HexModelListener {
-    public Integer programCount;
-    public Integer intrProgramCount;
+    public int programCount;
+    public int intrProgramCount;
     public Instruction instruction;
     public RegisterMem register;
-    public Integer opcode;
+    public int opcode;
     public Value lastClock;
-    public Boolean low;
-    public Boolean intr_enable;
-    public Boolean ls_PC;
+    public boolean low;
+    public boolean intr_enable;
+    public boolean ls_PC;
+    public long retired;
     DataContents contents;
+    DecodeCache decoded;
+    SymbolTable symbols;
+    ProcessorProfile profile;
     BitWidth BITWIDTH=BitWidth.create(32);
     private long curScroll = 0;
     private long cursorLoc = -1;
@@ -32,8 +36,10 @@ public class ProcessorData implements InstanceData,Cloneable, HexModelListener {
         this.contents = contents.clone();
         setBits(contents.getLogLength(), contents.getWidth());
         contents.addHexModelListener(this);
+        this.decoded = new DecodeCache(this.contents);
+        this.symbols = ProcessorAttributes.getSymbols(contents);
         programCount = boot;
-        instruction = new Instruction(Value.createKnown(BITWIDTH, 0));
+        instruction = Instruction.create(0);
         register = new RegisterMem();
         opcode = 0;
         lastClock = Value.UNKNOWN;
@@ -42,19 +48,30 @@ public class ProcessorData implements InstanceData,Cloneable, HexModelListener {
         ls_PC=false;
     }
     public void setInstruction(int inst) {
-        instruction=new Instruction(inst);
+        instruction=Instruction.create(inst);
     }
     public void setInstruction(Value inst) {
-        instruction=new Instruction(inst);
+        instruction=Instruction.create(inst);
     }
-    public void stepPC(Integer offset){
+    //instruction from internal memory, already decoded
+    public void fetchInstruction(long addr) {
+        instruction=decoded.get(addr);
+    }
+    public void stepPC(int offset){
         programCount+=offset;
     }
-    public void stepPCS1(Integer offset){
+    public void stepPCS1(int offset){
         programCount=(getS1()+offset)&0xFFFFFFFE;
     }
-    public Integer getS1() {return register.getValue(instruction.s1);}
-    public Integer getS2() {return register.getValue(instruction.s2);}
+    public int getS1() {return register.getValue(instruction.s1);}
+    public int getS2() {return register.getValue(instruction.s2);}
+    public long getRetiredCount() {return retired;}
+    //profiling costs a null check per instruction while disabled
+    public boolean isProfiling() {return profile!=null;}
+    public void setProfiling(boolean value) {
+        if(!value) profile=null;
+        else if(profile==null) profile=new ProcessorProfile();
+    }
     public DataContents getContents() {return contents;}
     @Override
     public ProcessorData clone() {
@@ -62,15 +79,18 @@ public class ProcessorData implements InstanceData,Cloneable, HexModelListener {
             ProcessorData ret= (ProcessorData) super.clone();
             ret.programCount=programCount;
             ret.intrProgramCount=intrProgramCount;
-            ret.instruction=new Instruction(instruction.instruction);
+            ret.instruction=instruction;
             ret.register=register.clone();
             ret.opcode=opcode;
             ret.lastClock=lastClock;
             ret.low=low;
             ret.intr_enable=intr_enable;
             ret.ls_PC=ls_PC;
+            ret.retired=retired;
+            ret.profile=profile==null ? null : profile.clone();
             ret.contents=contents.clone();
             ret.contents.addHexModelListener(ret);
+            ret.decoded=new DecodeCache(ret.contents);
             return ret;
         } catch (CloneNotSupportedException e) { return null; }
     }
@@ -133,6 +153,13 @@ public class ProcessorData implements InstanceData,Cloneable, HexModelListener {
             }
         }
         boxY+=boxH+30;
+        String symbol = symbols == null ? null : symbols.describe(programCount);
+        if (symbol != null) {
+            g.setColor(Color.DARK_GRAY);
+            GraphicsUtil.drawText(g, symbol, boxX+boxW/2, boxY-14,
+                    GraphicsUtil.H_CENTER, GraphicsUtil.V_CENTER);
+            g.setColor(Color.BLACK);
+        }
         g.drawRect(boxX, boxY, boxW/3, boxH/8);
         g.drawLine(boxX+28, boxY,boxX+28, boxY+boxH/8);
         g.setColor(Color.GRAY);
@@ -143,6 +170,17 @@ public class ProcessorData implements InstanceData,Cloneable, HexModelListener {
         GraphicsUtil.drawText(g, StringUtil.toHexString(32, instruction.instruction),
                 boxX+boxW/6+14, boxY+ENTRY_HEIGHT/2,
                 GraphicsUtil.H_CENTER, GraphicsUtil.V_CENTER);
+        int retX=leftX+boxW/3+8;
+        g.drawRect(retX, boxY, boxW/3-12, boxH/8);
+        g.drawLine(retX+28, boxY,retX+28, boxY+boxH/8);
+        g.setColor(Color.GRAY);
+        GraphicsUtil.drawText(g, ("RET"),
+                retX+14, boxY+ENTRY_HEIGHT/2,
+                GraphicsUtil.H_CENTER, GraphicsUtil.H_CENTER);
+        g.setColor(Color.BLACK);
+        GraphicsUtil.drawText(g, Long.toString(retired),
+                retX+(boxW/3-12)/2+14, boxY+ENTRY_HEIGHT/2,
+                GraphicsUtil.H_CENTER, GraphicsUtil.V_CENTER);
         boxX=leftX+2*boxW/3;
         g.drawRect(boxX, boxY, boxW/3, boxH/8);
         g.drawLine(boxX+28, boxY,boxX+28, boxY+boxH/8);
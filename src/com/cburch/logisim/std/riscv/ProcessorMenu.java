@@ -10,6 +10,10 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
 
 class ProcessorMenu implements ActionListener, MenuExtender {
     private final Processor factory;
@@ -19,6 +23,10 @@ class ProcessorMenu implements ActionListener, MenuExtender {
     private CircuitState circState;
     private JMenuItem edit;
     private JMenuItem clear;
+    private JMenuItem loadElf;
+    private JCheckBoxMenuItem profile;
+    private JMenuItem showProfile;
+    private JMenuItem exportProfile;
     ProcessorMenu(Processor factory, Instance instance) {
         this.factory = factory;
         this.instance = instance;
@@ -35,10 +43,22 @@ class ProcessorMenu implements ActionListener, MenuExtender {
         boolean enabled= circState!=null;
         edit = createItem(enabled, Strings.get("processorEditMenuItem"));
         clear = createItem(enabled,Strings.get("processorClearMenuItem"));
+        loadElf = createItem(enabled,Strings.get("processorLoadElfMenuItem"));
+        ProcessorData data = enabled ? (ProcessorData) instance.getData(circState) : null;
+        boolean profiling = data != null && data.isProfiling();
+        profile = new JCheckBoxMenuItem(Strings.get("processorProfileMenuItem"), profiling);
+        profile.setEnabled(enabled);
+        profile.addActionListener(this);
+        showProfile = createItem(profiling,Strings.get("processorShowProfileMenuItem"));
+        exportProfile = createItem(profiling,Strings.get("processorExportProfileMenuItem"));
 
         menu.addSeparator();
         menu.add(edit);
         menu.add(clear);
+        menu.add(loadElf);
+        menu.add(profile);
+        menu.add(showProfile);
+        menu.add(exportProfile);
     }
 
     private JMenuItem createItem(boolean enabled, String label) {
@@ -51,6 +71,10 @@ class ProcessorMenu implements ActionListener, MenuExtender {
         Object src = evt.getSource();
         if (src == edit) doEdit();
         else if (src == clear) doClear();
+        else if (src == loadElf) doLoadElf();
+        else if (src == profile) doProfile();
+        else if (src == showProfile) doShowProfile();
+        else if (src == exportProfile) doExportProfile();
     }
 
     private void doEdit() {
@@ -75,4 +99,49 @@ class ProcessorMenu implements ActionListener, MenuExtender {
             factory.clearContentAttributes(instance);
         }
     }
+
+    private void doLoadElf() {
+        JFileChooser chooser = proj.createChooser();
+        chooser.setDialogTitle(Strings.get("processorLoadElfDialogTitle"));
+        int choice = chooser.showOpenDialog(frame);
+        if (choice == JFileChooser.APPROVE_OPTION) {
+            File f = chooser.getSelectedFile();
+            try {
+                factory.loadElf(proj, instance, circState, f);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(frame, e.getMessage(),
+                        Strings.get("processorLoadElfErrorTitle"), JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+
+    private void doProfile() {
+        ProcessorData s = factory.getData(instance, circState);
+        s.setProfiling(profile.isSelected());
+    }
+
+    private void doShowProfile() {
+        ProcessorData s = factory.getData(instance, circState);
+        ProfileDialog dlog = new ProfileDialog(frame, s, this::doExportProfile);
+        dlog.setLocationRelativeTo(frame);
+        dlog.setVisible(true);
+    }
+
+    private void doExportProfile() {
+        ProcessorData s = factory.getData(instance, circState);
+        ProcessorProfile p = s.profile;
+        if (p == null) return;
+        JFileChooser chooser = proj.createChooser();
+        chooser.setDialogTitle(Strings.get("processorExportProfileDialogTitle"));
+        int choice = chooser.showSaveDialog(frame);
+        if (choice == JFileChooser.APPROVE_OPTION) {
+            File f = chooser.getSelectedFile();
+            try (Writer out = new FileWriter(f)) {
+                p.writeCsv(out, s.symbols);
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(frame, e.getMessage(),
+                        Strings.get("processorExportProfileErrorTitle"), JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
 }
@@ -0,0 +1,189 @@
+package com.cburch.logisim.std.riscv;
+
+import com.cburch.logisim.util.StringUtil;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts where a processor spends its time while profiling is enabled:
+ * how often each program counter is executed, the mix of opcodes and
+ * func3 fields retired, the loads and stores served by the internal memory
+ * or by the external bus, and the cycles stalled waiting for the bus.
+ * Hit counters are kept in pages of a primitive array allocated as the
+ * program reaches them.
+ */
+class ProcessorProfile implements Cloneable {
+    private static final int PAGE_SIZE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SIZE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int OPCODES = 128;
+
+    static class PcCount {
+        private final int pc;
+        private final long hits;
+
+        PcCount(int pc, long hits) {
+            this.pc = pc;
+            this.hits = hits;
+        }
+
+        int getPc() { return pc; }
+        long getHits() { return hits; }
+    }
+
+    private long[][] hits = new long[1 << (30 - PAGE_SIZE_BITS)][];
+    private long[] opcodes = new long[OPCODES];
+    private long[] func3s = new long[OPCODES * 8];
+    private long instructions;
+    private long internalLoads;
+    private long externalLoads;
+    private long internalStores;
+    private long externalStores;
+    private long stallCycles;
+
+    void countInstruction(int pc, Instruction inst) {
+        int word = pc >>> 2;
+        long[] page = hits[word >>> PAGE_SIZE_BITS];
+        if (page == null) {
+            page = new long[PAGE_SIZE];
+            hits[word >>> PAGE_SIZE_BITS] = page;
+        }
+        page[word & PAGE_MASK]++;
+        opcodes[inst.opcode]++;
+        func3s[(inst.opcode << 3) | inst.func3]++;
+        instructions++;
+    }
+
+    void countLoad(boolean internal) {
+        if (internal) internalLoads++;
+        else externalLoads++;
+    }
+
+    void countStore(boolean internal) {
+        if (internal) internalStores++;
+        else externalStores++;
+    }
+
+    void countStall() {
+        stallCycles++;
+    }
+
+    void reset() {
+        hits = new long[hits.length][];
+        opcodes = new long[OPCODES];
+        func3s = new long[OPCODES * 8];
+        instructions = 0;
+        internalLoads = 0;
+        externalLoads = 0;
+        internalStores = 0;
+        externalStores = 0;
+        stallCycles = 0;
+    }
+
+    long getInstructionCount() { return instructions; }
+    long getInternalLoads() { return internalLoads; }
+    long getExternalLoads() { return externalLoads; }
+    long getInternalStores() { return internalStores; }
+    long getExternalStores() { return externalStores; }
+    long getStallCycles() { return stallCycles; }
+
+    long getOpcodeCount(int opcode) {
+        return opcodes[opcode];
+    }
+
+    long getFunc3Count(int opcode, int func3) {
+        return func3s[(opcode << 3) | func3];
+    }
+
+    /** Returns the program counters executed at least once, in address
+     * order. */
+    List<PcCount> getPcCounts() {
+        ArrayList<PcCount> ret = new ArrayList<>();
+        for (int p = 0; p < hits.length; p++) {
+            long[] page = hits[p];
+            if (page == null) continue;
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                if (page[i] != 0) {
+                    ret.add(new PcCount(((p << PAGE_SIZE_BITS) | i) << 2, page[i]));
+                }
+            }
+        }
+        return ret;
+    }
+
+    /** Returns the name of an opcode's instruction group. */
+    static String getOpcodeName(int opcode) {
+        switch (opcode) {
+            case 0b0110011: return "OP";
+            case 0b0010011: return "OP-IMM";
+            case 0b0000011: return "LOAD";
+            case 0b0100011: return "STORE";
+            case 0b1100011: return "BRANCH";
+            case 0b1101111: return "JAL";
+            case 0b1100111: return "JALR";
+            case 0b0110111: return "LUI";
+            case 0b0010111: return "AUIPC";
+            case 0b1110011: return "SYSTEM";
+            case 0b1000000: return "EI";
+            case 0b1000001: return "DI";
+            case 0b1000010: return "MRET";
+            default: return "0x" + Integer.toHexString(opcode);
+        }
+    }
+
+    /**
+     * Writes the profile as comma-separated values, one counter per line:
+     * the totals first, then the opcode and func3 mix, then the hits of
+     * each program counter labelled with its symbol, if known.
+     */
+    void writeCsv(Writer out, SymbolTable symbols) throws IOException {
+        out.write("kind,key,name,count\n");
+        writeRow(out, "total", "instructions", "", instructions);
+        writeRow(out, "total", "loads", "internal", internalLoads);
+        writeRow(out, "total", "loads", "external", externalLoads);
+        writeRow(out, "total", "stores", "internal", internalStores);
+        writeRow(out, "total", "stores", "external", externalStores);
+        writeRow(out, "total", "stalls", "", stallCycles);
+        for (int op = 0; op < OPCODES; op++) {
+            if (opcodes[op] == 0) continue;
+            String key = "0x" + StringUtil.toHexString(7, op);
+            writeRow(out, "opcode", key, getOpcodeName(op), opcodes[op]);
+            for (int f = 0; f < 8; f++) {
+                long n = getFunc3Count(op, f);
+                if (n != 0) writeRow(out, "func3", key + "/" + f, getOpcodeName(op), n);
+            }
+        }
+        for (PcCount count : getPcCounts()) {
+            String name = symbols == null ? null : symbols.describe(count.getPc());
+            writeRow(out, "pc", "0x" + StringUtil.toHexString(32, count.getPc()),
+                    name == null ? "" : name, count.getHits());
+        }
+    }
+
+    private static void writeRow(Writer out, String kind, String key,
+            String name, long count) throws IOException {
+        out.write(kind + "," + key + "," + quote(name) + "," + count + "\n");
+    }
+
+    private static String quote(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0) return s;
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public ProcessorProfile clone() {
+        try {
+            ProcessorProfile ret = (ProcessorProfile) super.clone();
+            ret.hits = new long[hits.length][];
+            for (int p = 0; p < hits.length; p++) {
+                if (hits[p] != null) ret.hits[p] = hits[p].clone();
+            }
+            ret.opcodes = opcodes.clone();
+            ret.func3s = func3s.clone();
+            return ret;
+        } catch (CloneNotSupportedException e) { return null; }
+    }
+}
@@ -0,0 +1,197 @@
+package com.cburch.logisim.std.riscv;
+
+import com.cburch.logisim.util.StringUtil;
+import com.cburch.logisim.util.TableSorter;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows the profile of a processor: its totals, the hits of each program
+ * counter and the instruction mix, in tables sorted by clicking on their
+ * headers. The profile is read again when the dialog is refreshed.
+ */
+class ProfileDialog extends JDialog implements ActionListener {
+    private static class PcTableModel extends AbstractTableModel {
+        private List<ProcessorProfile.PcCount> counts = new ArrayList<>();
+        private SymbolTable symbols;
+        private long total;
+
+        void setProfile(ProcessorProfile profile, SymbolTable symbols) {
+            this.counts = profile.getPcCounts();
+            this.symbols = symbols;
+            this.total = profile.getInstructionCount();
+            fireTableDataChanged();
+        }
+
+        public int getColumnCount() { return 4; }
+
+        public int getRowCount() { return counts.size(); }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 2: return Long.class;
+                case 3: return Double.class;
+                default: return String.class;
+            }
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            switch (column) {
+                case 0: return Strings.get("processorProfilePcColumn");
+                case 1: return Strings.get("processorProfileSymbolColumn");
+                case 2: return Strings.get("processorProfileCountColumn");
+                case 3: return Strings.get("processorProfileShareColumn");
+                default: return "??";
+            }
+        }
+
+        public Object getValueAt(int row, int column) {
+            ProcessorProfile.PcCount count = counts.get(row);
+            switch (column) {
+                case 0: return StringUtil.toHexString(32, count.getPc());
+                case 1:
+                    String name = symbols == null ? null : symbols.describe(count.getPc());
+                    return name == null ? "" : name;
+                case 2: return count.getHits();
+                case 3: return share(count.getHits(), total);
+                default: return "";
+            }
+        }
+    }
+
+    private static class MixTableModel extends AbstractTableModel {
+        private final ArrayList<int[]> keys = new ArrayList<>();
+        private ProcessorProfile profile;
+
+        void setProfile(ProcessorProfile profile) {
+            this.profile = profile;
+            keys.clear();
+            for (int op = 0; op < 128; op++) {
+                if (profile.getOpcodeCount(op) == 0) continue;
+                for (int f = 0; f < 8; f++) {
+                    if (profile.getFunc3Count(op, f) != 0) keys.add(new int[] { op, f });
+                }
+            }
+            fireTableDataChanged();
+        }
+
+        public int getColumnCount() { return 5; }
+
+        public int getRowCount() { return keys.size(); }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 0: return String.class;
+                case 1: return Integer.class;
+                case 4: return Double.class;
+                default: return Long.class;
+            }
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            switch (column) {
+                case 0: return Strings.get("processorProfileOpcodeColumn");
+                case 1: return Strings.get("processorProfileFunc3Column");
+                case 2: return Strings.get("processorProfileCountColumn");
+                case 3: return Strings.get("processorProfileOpcodeCountColumn");
+                case 4: return Strings.get("processorProfileShareColumn");
+                default: return "??";
+            }
+        }
+
+        public Object getValueAt(int row, int column) {
+            int[] key = keys.get(row);
+            long n = profile.getFunc3Count(key[0], key[1]);
+            switch (column) {
+                case 0: return ProcessorProfile.getOpcodeName(key[0]);
+                case 1: return key[1];
+                case 2: return n;
+                case 3: return profile.getOpcodeCount(key[0]);
+                case 4: return share(n, profile.getInstructionCount());
+                default: return "";
+            }
+        }
+    }
+
+    private static Double share(long n, long total) {
+        return total == 0 ? 0.0 : Math.round(10000.0 * n / total) / 100.0;
+    }
+
+    private final ProcessorData data;
+    private final PcTableModel pcModel = new PcTableModel();
+    private final MixTableModel mixModel = new MixTableModel();
+    private final JLabel summary = new JLabel();
+    private final JButton refresh = new JButton(Strings.get("processorProfileRefreshButton"));
+    private final JButton reset = new JButton(Strings.get("processorProfileResetButton"));
+    private final JButton export = new JButton(Strings.get("processorProfileExportButton"));
+    private final JButton close = new JButton(Strings.get("processorProfileCloseButton"));
+    private final Runnable exporter;
+
+    ProfileDialog(Frame parent, ProcessorData data, Runnable exporter) {
+        super(parent, false);
+        this.data = data;
+        this.exporter = exporter;
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setTitle(Strings.get("processorProfileTitle"));
+
+        JTable pcTable = new JTable();
+        pcTable.setModel(new TableSorter(pcModel, pcTable.getTableHeader()));
+        JTable mixTable = new JTable();
+        mixTable.setModel(new TableSorter(mixModel, mixTable.getTableHeader()));
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab(Strings.get("processorProfilePcTab"), new JScrollPane(pcTable));
+        tabs.addTab(Strings.get("processorProfileMixTab"), new JScrollPane(mixTable));
+
+        JPanel buttonPanel = new JPanel();
+        for (JButton button : new JButton[] { refresh, reset, export, close }) {
+            button.addActionListener(this);
+            buttonPanel.add(button);
+        }
+
+        summary.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        Container contents = getContentPane();
+        contents.setLayout(new BorderLayout());
+        contents.add(summary, BorderLayout.PAGE_START);
+        contents.add(tabs, BorderLayout.CENTER);
+        contents.add(buttonPanel, BorderLayout.PAGE_END);
+        refresh();
+        pack();
+        setSize(Math.min(getWidth(), 750), Math.min(getHeight(), 550));
+    }
+
+    void refresh() {
+        ProcessorProfile profile = data.profile;
+        if (profile == null) profile = new ProcessorProfile();
+        summary.setText(StringUtil.format(Strings.get("processorProfileSummary"),
+                "" + profile.getInstructionCount(),
+                profile.getInternalLoads() + "/" + profile.getExternalLoads(),
+                profile.getInternalStores() + "/" + profile.getExternalStores())
+                + "  " + Strings.get("processorProfileStalls", "" + profile.getStallCycles()));
+        pcModel.setProfile(profile, data.symbols);
+        mixModel.setProfile(profile);
+    }
+
+    public void actionPerformed(ActionEvent e) {
+        Object src = e.getSource();
+        if (src == refresh) {
+            refresh();
+        } else if (src == reset) {
+            if (data.profile != null) data.profile.reset();
+            refresh();
+        } else if (src == export) {
+            exporter.run();
+        } else if (src == close) {
+            dispose();
+        }
+    }
+}
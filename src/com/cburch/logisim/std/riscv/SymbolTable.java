@@ -0,0 +1,51 @@
+package com.cburch.logisim.std.riscv;
+
+import com.cburch.logisim.gui.hex.ElfFile;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The symbols of a program loaded from an ELF file, used to label
+ * addresses as <code>symbol+offset</code>.
+ */
+class SymbolTable {
+    private final int[] addresses;
+    private final String[] names;
+
+    SymbolTable(ElfFile elf) {
+        List<ElfFile.Symbol> symbols = new ArrayList<>(elf.getSymbols());
+        symbols.sort(Comparator.comparingLong(ElfFile.Symbol::getValue));
+        addresses = new int[symbols.size()];
+        names = new String[symbols.size()];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = (int) symbols.get(i).getValue();
+            names[i] = symbols.get(i).getName();
+        }
+    }
+
+    int size() {
+        return addresses.length;
+    }
+
+    /** Returns the label of an address, or null if it precedes every
+     * symbol. */
+    String describe(int addr) {
+        int lo = 0;
+        int hi = addresses.length - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (Integer.compareUnsigned(addresses[mid], addr) <= 0) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (found < 0) return null;
+        int offset = addr - addresses[found];
+        return offset == 0 ? names[found] : names[found] + "+0x" + Integer.toHexString(offset);
+    }
+}
@@ -70,7 +70,7 @@ public class Pin extends InstanceFactory {
 		super("Pin", Strings.getter("pinComponent"));
 		setFacingAttribute(StdAttr.FACING);
 		setKeyConfigurator(JoinedConfigurator.create(
-			new BitWidthConfigurator(StdAttr.WIDTH),
+			new BitWidthConfigurator(StdAttr.WIDE_WIDTH, 1, Value.MAX_WIDTH),
 			new DirectionConfigurator(ATTR_LABEL_LOC, KeyEvent.ALT_DOWN_MASK)));
 		setInstanceLogger(PinLogger.class);
 		setInstancePoker(PinPoker.class);
@@ -84,7 +84,7 @@ public class Pin extends InstanceFactory {
 	@Override
 	public Bounds getOffsetBounds(AttributeSet attrs) {
 		Direction facing = attrs.getValue(StdAttr.FACING);
-		BitWidth width = attrs.getValue(StdAttr.WIDTH);
+		BitWidth width = attrs.getValue(StdAttr.WIDE_WIDTH);
 		return Probe.getOffsetBounds(facing, width, RadixOption.RADIX_2);
 	}
 	
@@ -94,7 +94,7 @@ public class Pin extends InstanceFactory {
 	@Override
 	public void paintIcon(InstancePainter painter) {
 		paintIconBase(painter);
-		BitWidth w = painter.getAttributeValue(StdAttr.WIDTH);
+		BitWidth w = painter.getAttributeValue(StdAttr.WIDE_WIDTH);
 		if (!w.equals(BitWidth.ONE)) {
 			Graphics g = painter.getGraphics();
 			g.setColor(ICON_WIDTH_COLOR);
@@ -151,7 +151,7 @@ public class Pin extends InstanceFactory {
 		GraphicsUtil.switchToWidth(g, 2);
 		boolean output = attrs.isOutput();
 		if (output) {
-			BitWidth width = attrs.getValue(StdAttr.WIDTH);
+			BitWidth width = attrs.getValue(StdAttr.WIDE_WIDTH);
 			if (width == BitWidth.ONE) {
 				g.drawOval(x + bds.getX() + 1, y + bds.getY() + 1,
 					bds.getWidth() - 1, bds.getHeight() - 1);
@@ -228,7 +228,7 @@ public class Pin extends InstanceFactory {
 	protected void instanceAttributeChanged(Instance instance, Attribute<?> attr) {
 		if (attr == ATTR_TYPE) {
 			configurePorts(instance);
-		} else if (attr == StdAttr.WIDTH || attr == StdAttr.FACING
+		} else if (attr == StdAttr.WIDE_WIDTH || attr == StdAttr.FACING
 				|| attr == Pin.ATTR_LABEL_LOC) {
 			instance.recomputeBounds();
 			PinAttributes attrs = (PinAttributes) instance.getAttributeSet();
@@ -241,7 +241,7 @@ public class Pin extends InstanceFactory {
 	private void configurePorts(Instance instance) {
 		PinAttributes attrs = (PinAttributes) instance.getAttributeSet();
 		String endType = attrs.isOutput() ? Port.INPUT : Port.OUTPUT;
-		Port port = new Port(0, 0, endType, StdAttr.WIDTH);
+		Port port = new Port(0, 0, endType, StdAttr.WIDE_WIDTH);
 		if (attrs.isOutput()) {
 			port.setToolTip(Strings.getter("pinOutputToolTip"));
 		} else {
@@ -445,7 +445,7 @@ public class Pin extends InstanceFactory {
 		}
 	
 		private int getBit(InstanceState state, MouseEvent e) {
-			BitWidth width = state.getAttributeValue(StdAttr.WIDTH);
+			BitWidth width = state.getAttributeValue(StdAttr.WIDE_WIDTH);
 			if (width.getWidth() == 1) {
 				return 0;
 			} else {
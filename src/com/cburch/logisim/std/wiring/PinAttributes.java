@@ -16,7 +16,7 @@ class PinAttributes extends ProbeAttributes {
 
 	private static final List<Attribute<?>> ATTRIBUTES
 		= Arrays.asList(new Attribute<?>[] {
-			StdAttr.FACING, Pin.ATTR_TYPE, StdAttr.WIDTH, Pin.ATTR_TRISTATE,
+			StdAttr.FACING, Pin.ATTR_TYPE, StdAttr.WIDE_WIDTH, Pin.ATTR_TRISTATE,
 			Pin.ATTR_PULL, StdAttr.LABEL, Pin.ATTR_LABEL_LOC, StdAttr.LABEL_FONT
 		});
 
@@ -35,7 +35,7 @@ class PinAttributes extends ProbeAttributes {
 	@Override
 	@SuppressWarnings("unchecked")
 	public <V> V getValue(Attribute<V> attr) {
-		if (attr == StdAttr.WIDTH) return (V) width;
+		if (attr == StdAttr.WIDE_WIDTH) return (V) width;
 		if (attr == Pin.ATTR_TRISTATE) return (V) Boolean.valueOf(threeState);
 		if (attr == Pin.ATTR_TYPE) return (V) Boolean.valueOf(type == EndData.OUTPUT_ONLY);
 		if (attr == Pin.ATTR_PULL) return (V) pull;
@@ -52,7 +52,7 @@ class PinAttributes extends ProbeAttributes {
 
 	@Override
 	public <V> void setValue(Attribute<V> attr, V value) {
-		if (attr == StdAttr.WIDTH) {
+		if (attr == StdAttr.WIDE_WIDTH) {
 			width = (BitWidth) value;
 		} else if (attr == Pin.ATTR_TRISTATE) {
 			threeState = ((Boolean) value).booleanValue();
@@ -310,6 +310,18 @@ public class Probe extends InstanceFactory {
 				ret = Bounds.create(-40, 0, 80, 80); break;
 			}
 		}
+		if (ret == null && len > 32) { // one more row for each eight bits
+			int ht = 20 * ((len + 7) / 8);
+			if (dir == Direction.EAST) {
+				ret = Bounds.create(-80, -ht / 2, 80, ht);
+			} else if (dir == Direction.WEST) {
+				ret = Bounds.create(0, -ht / 2, 80, ht);
+			} else if (dir == Direction.SOUTH) {
+				ret = Bounds.create(-40, -ht, 80, ht);
+			} else if (dir == Direction.NORTH) {
+				ret = Bounds.create(-40, 0, 80, ht);
+			}
+		}
 		if (ret == null) {
 			ret = Bounds.create(0, -10, 20, 20); // should never happen
 		}
@@ -19,7 +19,7 @@ public class BitWidthConfigurator extends NumericConfigurator<BitWidth> {
 	}
 	
 	public BitWidthConfigurator(Attribute<BitWidth> attr) {
-		super(attr, 1, Value.MAX_WIDTH, InputEvent.ALT_DOWN_MASK);
+		super(attr, 1, Value.MAX_INT_WIDTH, InputEvent.ALT_DOWN_MASK);
 	}
 	
 	@Override
@@ -3,43 +3,123 @@
 
 package com.cburch.logisim.util;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Allows immutable objects to be cached in memory in order to reduce
  * the creation of duplicate objects.
+ *
+ * <p>The cache is set-associative: an object's hash code selects a set of
+ * several entries, and a new object replaces the oldest entry of its set.
+ * The cache may be used by several threads at once without locking. Since
+ * the cached objects are immutable, a thread can at worst miss an object
+ * that another thread has just added, or evict one that another thread is
+ * about to look up.</p>
  */
 public class Cache {
+	private static final int MAX_LOG_SIZE = 20;
+
+	private int ways;
 	private int mask;
 	private Object[] data;
-	
+	private LongAdder hits = new LongAdder();
+	private LongAdder misses = new LongAdder();
+
 	public Cache() {
 		this(8);
 	}
+
 	public Cache(int logSize) {
-		if (logSize > 12) logSize = 12;
-		
-		data = new Object[1 << logSize];
-		mask = data.length - 1;
+		this(logSize, 1);
+	}
+
+	/** Creates a cache holding <code>2<sup>logSize</sup></code> objects, in
+	 * sets of <code>ways</code> objects each. */
+	public Cache(int logSize, int ways) {
+		if (logSize < 0) {
+			throw new IllegalArgumentException("negative logSize " + logSize);
+		}
+		if (logSize > MAX_LOG_SIZE) logSize = MAX_LOG_SIZE;
+		if (ways < 1) ways = 1;
+		int size = 1 << logSize;
+		if (ways > size) ways = size;
+
+		this.ways = ways;
+		this.data = new Object[size - size % ways];
+		this.mask = Integer.highestOneBit(data.length / ways) - 1;
 	}
-	
+
+	/** Returns a cached object with the given hash code, or null if there
+	 * is none. The caller should verify that the object is the one it
+	 * wants, and report the outcome through <code>recordLookup</code>,
+	 * since this method cannot tell a hit from a hash collision. */
 	public Object get(int hashCode) {
-		return data[hashCode & mask];
+		Object[] data = this.data;
+		int base = indexOf(hashCode);
+		for (int i = 0; i < ways; i++) {
+			Object ret = data[base + i];
+			if (ret == null) break;
+			if (ret.hashCode() == hashCode) return ret;
+		}
+		return null;
+	}
+
+	/** Counts a lookup made through <code>get(int)</code>, once the caller
+	 * knows whether it found the object it wanted. */
+	public void recordLookup(boolean hit) {
+		if (hit) hits.increment();
+		else misses.increment();
 	}
-	
+
 	public void put(int hashCode, Object value) {
 		if (value != null) {
-			data[hashCode & mask] = value;
+			Object[] data = this.data;
+			int base = indexOf(hashCode);
+			for (int i = base + ways - 1; i > base; i--) {
+				data[i] = data[i - 1];
+			}
+			data[base] = value;
 		}
 	}
-	
+
 	public Object get(Object value) {
 		if (value == null) return null;
-		int code = value.hashCode() & mask;
-		Object ret = data[code];
-		if (ret != null && ret.equals(value)) {
-			return ret;
-		} else {
-			data[code] = value;
-			return value;
+		int code = value.hashCode();
+		Object[] data = this.data;
+		int base = indexOf(code);
+		for (int i = 0; i < ways; i++) {
+			Object ret = data[base + i];
+			if (ret == null) break;
+			if (ret.hashCode() == code && ret.equals(value)) {
+				hits.increment();
+				return ret;
+			}
 		}
+		misses.increment();
+		put(code, value);
+		return value;
+	}
+
+	/** Returns the number of objects that the cache can hold. */
+	public int getSize() {
+		return (mask + 1) * ways;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public void resetCounts() {
+		hits.reset();
+		misses.reset();
+	}
+
+	private int indexOf(int hashCode) {
+		int h = hashCode ^ (hashCode >>> 16);
+		return (h & mask) * ways;
 	}
 }
@@ -1,13 +1,14 @@
 package com.cburch.logisim.verilog.comp;
 
+import com.cburch.logisim.verilog.comp.impl.VerilogCell;
 import com.cburch.logisim.verilog.comp.impl.VerilogModuleBuilder;
 import com.cburch.logisim.verilog.comp.impl.VerilogModuleImpl;
 import com.cburch.logisim.verilog.file.jsonhdlr.YosysJsonNetlist;
 import com.cburch.logisim.verilog.file.jsonhdlr.YosysModuleDTO;
 
 import java.util.*;
+import java.util.function.Consumer;
 
-// TODO: implementar con eventual manejo de logisim
 public final class VerilogDesignBuilder {
     private final VerilogModuleBuilder moduleBuilder;
 
@@ -27,8 +28,9 @@ public final class VerilogDesignBuilder {
         // 1) Armar grafo módulo → submódulos referenciados
         Map<String, Set<String>> deps = computeModuleDeps(netlist);
 
-        // 2) Orden topológico (Kahn)
+        // 2) Orden topológico (Kahn), con los submódulos antes que quienes los usan
         List<String> order = topoOrder(deps);
+        Collections.reverse(order);
 
         // 3) Construir en ese orden
         Map<String, VerilogModuleImpl> out = new LinkedHashMap<>();
@@ -84,4 +86,78 @@ public final class VerilogDesignBuilder {
     }
 
     public VerilogModuleBuilder moduleBuilder() { return moduleBuilder; }
+
+    /** Tipos de las celdas que instancian otro módulo (de usuario, $paramod, externos). */
+    public static Set<String> submoduleTypes(VerilogModuleImpl mod) {
+        Set<String> out = new LinkedHashSet<>();
+        for (VerilogCell c : mod.cells()) {
+            if (c.type().isModuleInst()) out.add(c.type().typeId());
+        }
+        out.remove(mod.name());
+        return out;
+    }
+
+    /**
+     * Reordena los módulos que llegan de a uno (p. ej. desde JsonSynthFile.stream)
+     * para entregar cada uno después de los submódulos que instancia. Sólo retiene
+     * los que esperan a un submódulo todavía no entregado; finish() entrega el
+     * resto (submódulos que no están en el archivo, o ciclos) en orden de Kahn.
+     */
+    public static final class DependencyOrder implements Consumer<VerilogModuleImpl> {
+        private final Consumer<VerilogModuleImpl> sink;
+        private final Set<String> delivered = new HashSet<>();
+        // retenidos, en orden de llegada, con los submódulos que les faltan
+        private final Map<String, VerilogModuleImpl> waiting = new LinkedHashMap<>();
+        private final Map<String, Set<String>> missing = new HashMap<>();
+
+        public DependencyOrder(Consumer<VerilogModuleImpl> sink) {
+            this.sink = Objects.requireNonNull(sink);
+        }
+
+        @Override
+        public void accept(VerilogModuleImpl mod) {
+            Set<String> deps = submoduleTypes(mod);
+            deps.removeAll(delivered);
+            if (deps.isEmpty()) {
+                deliver(mod);
+            } else {
+                waiting.put(mod.name(), mod);
+                missing.put(mod.name(), deps);
+            }
+        }
+
+        /** Entrega los retenidos; los submódulos que nunca llegaron se tratan como externos. */
+        public void finish() {
+            while (!waiting.isEmpty()) {
+                String next = null;
+                for (String m : waiting.keySet()) {
+                    if (Collections.disjoint(missing.get(m), waiting.keySet())) { next = m; break; }
+                }
+                if (next == null) next = waiting.keySet().iterator().next(); // ciclo
+                missing.remove(next);
+                deliver(waiting.remove(next));
+            }
+        }
+
+        private void deliver(VerilogModuleImpl first) {
+            Deque<VerilogModuleImpl> ready = new ArrayDeque<>();
+            ready.add(first);
+            while (!ready.isEmpty()) {
+                VerilogModuleImpl mod = ready.poll();
+                sink.accept(mod);
+                delivered.add(mod.name());
+
+                // libera a los que sólo esperaban a éste
+                for (Iterator<Map.Entry<String, VerilogModuleImpl>> it = waiting.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, VerilogModuleImpl> e = it.next();
+                    Set<String> deps = missing.get(e.getKey());
+                    if (deps.remove(mod.name()) && deps.isEmpty()) {
+                        missing.remove(e.getKey());
+                        it.remove();
+                        ready.add(e.getValue());
+                    }
+                }
+            }
+        }
+    }
 }
@@ -6,6 +6,7 @@ public final class ModulePort {
     public static final int CONST_0 = -1;
     public static final int CONST_1 = -2;
     public static final int CONST_X = -3;
+    public static final int CONST_Z = -4;
 
     private final String name;     // puedes intern() si hay muchos iguales
     private final Direction dir;
@@ -1,6 +1,8 @@
 package com.cburch.logisim.verilog.comp.impl;
 
 import com.cburch.logisim.verilog.comp.CellFactoryRegistry;
+import com.cburch.logisim.verilog.comp.auxiliary.ModulePort;
+import com.cburch.logisim.verilog.comp.auxiliary.netconn.Direction;
 import com.cburch.logisim.verilog.file.jsonhdlr.YosysModuleDTO;
 import com.cburch.logisim.verilog.layout.MemoryIndex;
 import com.cburch.logisim.verilog.layout.ModuleNetIndex;
@@ -8,7 +10,8 @@ import com.cburch.logisim.verilog.layout.ModuleNetIndex;
 import java.util.*;
 
 /**
-* Builds VerilogModuleImpl from a YosysModuleDTO.
+* Builds VerilogModuleImpl from a YosysModuleDTO, or incrementally from a
+* streaming reader through beginModule/addPort/addCell.
 * Does not wire anything here; only sets up ports + cells.
 * The indexes (nets/memories) are built on-demand with helpers.
 */
@@ -47,6 +50,52 @@ public final class VerilogModuleBuilder {
         return mod;
     }
 
+    /** Empieza un módulo vacío, al que se agregan puertos y celdas a medida que se leen. */
+    public VerilogModuleImpl beginModule(String name) {
+        return new VerilogModuleImpl(name);
+    }
+
+    /**
+     * Agrega un puerto del módulo.
+     *
+     * @param bits nets del puerto (LSB primero); las constantes son ModulePort.CONST_*
+     */
+    public void addPort(VerilogModuleImpl mod, String name, Direction dir, int[] bits) {
+        mod.addModulePort(new ModulePort(name, dir, bits));
+    }
+
+    /**
+     * Crea una celda (vía factories) y la agrega al módulo.
+     *
+     * @param connections bits de cada puerto, codificados como en {@link #addPort}
+     */
+    public void addCell(VerilogModuleImpl mod, String name, String typeId,
+                        Map<String,String> parameters,
+                        Map<String,Object> attributes,
+                        Map<String,String> portDirections,
+                        Map<String,int[]> connections) {
+        Map<String,List<Object>> conns = new LinkedHashMap<>();
+        connections.forEach((port, bits) -> conns.put(port, bitList(bits)));
+        mod.addCell(registry.createCell(name, typeId, parameters, attributes, portDirections, conns));
+    }
+
+    /** Vista de un int[] de bits como la lista (Integer | "0"/"1"/"x"/"z") que esperan las factories. */
+    private static List<Object> bitList(int[] bits) {
+        return new AbstractList<>() {
+            @Override public Object get(int i) {
+                int b = bits[i];
+                return switch (b) {
+                    case ModulePort.CONST_0 -> "0";
+                    case ModulePort.CONST_1 -> "1";
+                    case ModulePort.CONST_X -> "x";
+                    case ModulePort.CONST_Z -> "z";
+                    default -> b;
+                };
+            }
+            @Override public int size() { return bits.length; }
+        };
+    }
+
     /** Índice de nets LAZY para cablear/exportar y luego descartar.
      *
      * @param mod Módulo a indexar
@@ -3,6 +3,7 @@ package com.cburch.logisim.verilog.comp.impl;
 import com.cburch.logisim.verilog.comp.auxiliary.ModulePort;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
@@ -23,9 +24,9 @@ public final class VerilogModuleImpl implements VerilogModule {
 
     @Override public String name() { return name; }
 
-    @Override public List<ModulePort> ports() { return List.copyOf(ports); }
+    @Override public List<ModulePort> ports() { return Collections.unmodifiableList(ports); }
 
-    @Override public List<VerilogCell> cells() { return List.copyOf(cells); }
+    @Override public List<VerilogCell> cells() { return Collections.unmodifiableList(cells); }
 
     @Override public void addCell(VerilogCell cell) {
         cells.add(cell);
@@ -1,10 +1,14 @@
 package com.cburch.logisim.verilog.file;
 
+import com.cburch.logisim.verilog.comp.impl.VerilogModuleBuilder;
+import com.cburch.logisim.verilog.comp.impl.VerilogModuleImpl;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.function.Consumer;
 
 /**
  * Helper class for loading and validating JSON synthesis files.
@@ -56,4 +60,27 @@ public class JsonSynthFile {
 
         return content;
     }
+
+    /**
+     * Reads a Yosys JSON file module by module, without holding the whole
+     * file in memory, validating that it was created by Yosys.
+     *
+     * @param file JSON file to read.
+     * @param builder Builder receiving the ports and cells of each module.
+     * @param sink Receives each module once it has been read.
+     * @throws IOException If the file does not exist, is not readable, is not
+     * valid JSON, or was not created by Yosys.
+     */
+    public static void stream(File file, VerilogModuleBuilder builder,
+                              Consumer<VerilogModuleImpl> sink) throws IOException {
+        if (file == null || !file.exists() || !file.canRead()) {
+            throw new IOException(Strings.get("jsonNullFileError", file == null ? "null" : file.getAbsolutePath()));
+        }
+
+        try {
+            new YosysJsonStreamReader(builder).read(file, sink);
+        } catch (JsonProcessingException ex) {
+            throw new IOException(Strings.get("jsonParseError", file.getAbsolutePath()), ex);
+        }
+    }
 }
@@ -0,0 +1,215 @@
+package com.cburch.logisim.verilog.file;
+
+import com.cburch.logisim.verilog.comp.auxiliary.ModulePort;
+import com.cburch.logisim.verilog.comp.auxiliary.netconn.Direction;
+import com.cburch.logisim.verilog.comp.impl.VerilogModuleBuilder;
+import com.cburch.logisim.verilog.comp.impl.VerilogModuleImpl;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads a Yosys JSON dump token by token, handing each module to a sink as
+ * soon as it has been read. Ports and cells go straight into a
+ * {@link VerilogModuleBuilder}, with their bits decoded into {@code int[]}
+ * net arrays, so only the module being read is held in memory, never the
+ * whole file. Net names and memories are skipped; the importer rebuilds
+ * both from the cells.
+ */
+public final class YosysJsonStreamReader {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final VerilogModuleBuilder builder;
+    private int[] bitBuffer = new int[64];
+
+    public YosysJsonStreamReader(VerilogModuleBuilder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Reads every module of a file in order.
+     *
+     * @param file Yosys JSON file.
+     * @param sink Receives each module once its ports and cells are built.
+     * @throws IOException If the file cannot be read, is not valid JSON
+     * (a {@link com.fasterxml.jackson.core.JsonProcessingException}), or was
+     * not written by Yosys.
+     */
+    public void read(File file, Consumer<VerilogModuleImpl> sink) throws IOException {
+        try (JsonParser p = FACTORY.createParser(file)) {
+            expect(p, p.nextToken(), JsonToken.START_OBJECT);
+            boolean fromYosys = false;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.getCurrentName();
+                JsonToken value = p.nextToken();
+                if (field.equals("creator") && value == JsonToken.VALUE_STRING) {
+                    if (!p.getText().startsWith("Yosys")) {
+                        throw new IOException(Strings.get("nonYosysError"));
+                    }
+                    fromYosys = true;
+                } else if (field.equals("modules") && value == JsonToken.START_OBJECT) {
+                    // Yosys writes the creator first; anything else is not its dump
+                    if (!fromYosys) {
+                        throw new IOException(Strings.get("jsonContentError", "creator"));
+                    }
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = p.getCurrentName();
+                        if (p.nextToken() == JsonToken.START_OBJECT) {
+                            sink.accept(readModule(p, name));
+                        } else {
+                            p.skipChildren();
+                        }
+                    }
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (!fromYosys) {
+                throw new IOException(Strings.get("jsonContentError", "creator"));
+            }
+        }
+    }
+
+    private VerilogModuleImpl readModule(JsonParser p, String name) throws IOException {
+        VerilogModuleImpl mod = builder.beginModule(name);
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            if (field.equals("ports") && value == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String portName = p.getCurrentName();
+                    expect(p, p.nextToken(), JsonToken.START_OBJECT);
+                    readPort(p, mod, portName);
+                }
+            } else if (field.equals("cells") && value == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String cellName = p.getCurrentName();
+                    expect(p, p.nextToken(), JsonToken.START_OBJECT);
+                    readCell(p, mod, cellName);
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return mod;
+    }
+
+    private void readPort(JsonParser p, VerilogModuleImpl mod, String name) throws IOException {
+        Direction dir = Direction.UNKNOWN;
+        int[] bits = new int[0];
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            if (field.equals("direction") && value == JsonToken.VALUE_STRING) {
+                dir = Direction.fromJson(p.getText());
+            } else if (field.equals("bits") && value == JsonToken.START_ARRAY) {
+                bits = readBits(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        builder.addPort(mod, name, dir, bits);
+    }
+
+    private void readCell(JsonParser p, VerilogModuleImpl mod, String name) throws IOException {
+        String typeId = "<unknown>";
+        Map<String, String> parameters = Map.of();
+        Map<String, Object> attributes = Map.of();
+        Map<String, String> portDirections = Map.of();
+        Map<String, int[]> connections = Map.of();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            if (value != JsonToken.START_OBJECT) {
+                if (field.equals("type") && value == JsonToken.VALUE_STRING) typeId = p.getText();
+                else p.skipChildren();
+                continue;
+            }
+            switch (field) {
+                case "parameters" -> parameters = readStringMap(p);
+                case "attributes" -> attributes = readObjectMap(p);
+                case "port_directions" -> portDirections = readStringMap(p);
+                case "connections" -> connections = readConnections(p);
+                default -> p.skipChildren();
+            }
+        }
+        builder.addCell(mod, name, typeId, parameters, attributes, portDirections, connections);
+    }
+
+    private static Map<String, String> readStringMap(JsonParser p) throws IOException {
+        Map<String, String> out = new LinkedHashMap<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String key = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            out.put(key, value.isScalarValue() ? p.getValueAsString("") : "");
+            p.skipChildren();
+        }
+        return out;
+    }
+
+    private static Map<String, Object> readObjectMap(JsonParser p) throws IOException {
+        Map<String, Object> out = new LinkedHashMap<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String key = p.getCurrentName();
+            JsonToken value = p.nextToken();
+            Object val;
+            if (value.isNumeric()) val = p.getNumberValue();
+            else if (value.isBoolean()) val = p.getBooleanValue();
+            else val = value.isScalarValue() ? p.getValueAsString("") : "";
+            out.put(key, val);
+            p.skipChildren();
+        }
+        return out;
+    }
+
+    private Map<String, int[]> readConnections(JsonParser p) throws IOException {
+        Map<String, int[]> out = new LinkedHashMap<>();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String port = p.getCurrentName();
+            if (p.nextToken() == JsonToken.START_ARRAY) {
+                out.put(port, readBits(p));
+            } else {
+                p.skipChildren();
+                out.put(port, new int[0]);
+            }
+        }
+        return out;
+    }
+
+    /** Reads a bit list (net numbers or "0"/"1"/"x"/"z") up to its end. */
+    private int[] readBits(JsonParser p) throws IOException {
+        int n = 0;
+        JsonToken t;
+        while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (n == bitBuffer.length) bitBuffer = Arrays.copyOf(bitBuffer, 2 * n);
+            if (t == JsonToken.VALUE_NUMBER_INT) {
+                bitBuffer[n++] = p.getIntValue();
+            } else if (t == JsonToken.VALUE_STRING) {
+                bitBuffer[n++] = switch (p.getText()) {
+                    case "0" -> ModulePort.CONST_0;
+                    case "1" -> ModulePort.CONST_1;
+                    case "x", "X" -> ModulePort.CONST_X;
+                    case "z", "Z" -> ModulePort.CONST_Z;
+                    default -> throw new JsonParseException(p, "Unknown bit token: " + p.getText());
+                };
+            } else {
+                throw new JsonParseException(p, "Unexpected token in bit list: " + t);
+            }
+        }
+        return Arrays.copyOf(bitBuffer, n);
+    }
+
+    private static void expect(JsonParser p, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(p, "Expected " + expected + " but found " + actual);
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.cburch.logisim.verilog.file.importer;
 
 import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.circuit.CircuitException;
-import com.cburch.logisim.circuit.CircuitMutation;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentFactory;
 import com.cburch.logisim.data.AttributeSet;
@@ -14,28 +13,33 @@ import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.verilog.comp.CellFactoryRegistry;
+import com.cburch.logisim.verilog.comp.VerilogDesignBuilder;
 import com.cburch.logisim.verilog.comp.auxiliary.*;
 import com.cburch.logisim.verilog.comp.auxiliary.netconn.Direction;
 import com.cburch.logisim.verilog.comp.impl.VerilogCell;
 import com.cburch.logisim.verilog.comp.impl.VerilogModuleBuilder;
 import com.cburch.logisim.verilog.comp.impl.VerilogModuleImpl;
-import com.cburch.logisim.verilog.file.jsonhdlr.YosysJsonNetlist;
-import com.cburch.logisim.verilog.file.jsonhdlr.YosysModuleDTO;
 import com.cburch.logisim.verilog.layout.LayoutUtils;
 import com.cburch.logisim.verilog.layout.MemoryIndex;
 import com.cburch.logisim.verilog.layout.ModuleNetIndex;
 import com.cburch.logisim.verilog.layout.auxiliary.DefaultNodeSizer;
 import com.cburch.logisim.verilog.layout.auxiliary.NodeSizer;
 import com.cburch.logisim.verilog.layout.builder.LayoutBuilder;
+import com.cburch.logisim.verilog.layout.builder.LayoutCache;
 import com.cburch.logisim.verilog.layout.builder.LayoutRunner;
 import com.cburch.logisim.verilog.std.ComponentAdapterRegistry;
+import com.cburch.logisim.verilog.std.ImportBatch;
+import com.cburch.logisim.verilog.std.ModuleCircuits;
 import com.cburch.logisim.verilog.std.Strings;
 import com.cburch.logisim.verilog.std.adapters.wordlvl.*;
-import com.fasterxml.jackson.databind.JsonNode;
 import org.eclipse.elk.graph.ElkNode;
 
 import java.awt.Graphics;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public final class VerilogJsonImporter {
@@ -51,12 +55,21 @@ public final class VerilogJsonImporter {
             .register(memoryAdapter)
             ;
     NodeSizer sizer = new DefaultNodeSizer(adapter);
+    private final LayoutCache layoutCache = LayoutCache.atDefaultLocation();
 
     private static final int GRID  = 10;
     private static final int MIN_X = 100;
     private static final int MIN_Y = 100;
     private static final int PAD_X = 100; // separación horizontal respecto a las celdas
 
+    /** Módulo ya leído cuyo layout corre (o ya corrió) en el pool. */
+    private record PendingModule(VerilogModuleImpl mod,
+                                 MemoryIndex memIndex,
+                                 Map<VerilogCell, VerilogCell> cellAlias,
+                                 ModuleNetIndex netIndex,
+                                 LayoutBuilder.Result elk,
+                                 Future<?> layout) {}
+
     public VerilogJsonImporter(CellFactoryRegistry registry) {
         this.registry = registry;
         this.builder = new VerilogModuleBuilder(registry);
@@ -64,47 +77,117 @@ public final class VerilogJsonImporter {
 
     public void importInto(Project proj) {
         System.out.println("Importing JSON Verilog...");
-        JsonNode root = proj.getLogisimFile().getLoader().JSONImportChooser(proj.getFrame());
-        if (root == null) {
+        Canvas canvas = proj.getFrame().getCanvas();
+        Graphics g = canvas.getGraphics(); // si es null, los adapters usan fallback
+        int[] totalCells = { 0 };
+
+        // Cada módulo va a su propio circuito, después de sus submódulos, que
+        // se usan como subcircuitos. Los layouts corren en paralelo mientras se
+        // sigue leyendo; a lo sumo `threads` módulos esperan su turno
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "VerilogLayout");
+            t.setDaemon(true);
+            return t;
+        });
+        ArrayDeque<PendingModule> inFlight = new ArrayDeque<>();
+        Circuit original = proj.getCurrentCircuit(); // cada módulo lo cambia mientras se instancia
+        VerilogDesignBuilder.DependencyOrder order = new VerilogDesignBuilder.DependencyOrder(mod -> {
+            // el sizer mide los subcircuitos, así que los submódulos se instancian antes
+            Set<String> subs = VerilogDesignBuilder.submoduleTypes(mod);
+            while (inFlight.stream().anyMatch(pm -> subs.contains(pm.mod().name()))) {
+                totalCells[0] += importModule(proj, canvas, g, inFlight.poll());
+            }
+            inFlight.add(prepareModule(proj, mod, pool));
+            if (inFlight.size() > threads) {
+                totalCells[0] += importModule(proj, canvas, g, inFlight.poll());
+            }
+        });
+        boolean read;
+        try {
+            read = proj.getLogisimFile().getLoader().JSONImportChooser(proj.getFrame(), builder, order);
+            order.finish();
+            while (!inFlight.isEmpty()) {
+                totalCells[0] += importModule(proj, canvas, g, inFlight.poll());
+            }
+        } finally {
+            pool.shutdownNow();
+            if (original != null) proj.setCurrentCircuit(original);
+        }
+        if (!read) {
             System.out.println("Import cancelled.");
             return;
         }
 
-        // Registro de netlist y canvas
-        YosysJsonNetlist netlist = YosysJsonNetlist.from(root);
-        Canvas canvas = proj.getFrame().getCanvas();
-        Graphics g = canvas.getGraphics(); // si es null, los adapters usan fallback
+        System.out.println("Total de celdas procesadas: " + totalCells[0]);
+        System.out.println("Done.");
+    }
 
-        int totalCells = 0;
+    /** Indexa un módulo, arma su grafo ELK y deja el layout corriendo en el pool. */
+    private PendingModule prepareModule(Project proj, VerilogModuleImpl mod, ExecutorService pool) {
+        System.out.println("== Módulo: " + mod.name() + " ==");
+        printModulePorts(mod);
 
-        // Recorremos módulos del netlist
-        for (YosysModuleDTO dto : (Iterable<YosysModuleDTO>) netlist.modules()::iterator) {
-            // Construcción del módulo
-            VerilogModuleImpl mod = builder.buildModule(dto);
+        // Netlist + memorias
+        ModuleNetIndex netIndex = builder.buildNetIndex(mod);
+        printNets(mod, netIndex);
 
-            System.out.println("== Módulo: " + mod.name() + " ==");
-            printModulePorts(mod);
+        MemoryIndex memIndex = builder.buildMemoryIndex(mod);
+        printMemories(memIndex);
 
-            // Netlist + memorias
-            ModuleNetIndex netIndex = builder.buildNetIndex(mod);
-            printNets(mod, netIndex);
+        // ===== 1) Construir alias de celdas ($memrd/$memwr/$meminit → representante) =====
+        Map<VerilogCell, VerilogCell> cellAlias = buildMemoryCellAlias(mod, memIndex);
 
-            MemoryIndex memIndex = builder.buildMemoryIndex(mod);
-            memoryAdapter.beginModule(memIndex, mod); // contexto de memorias
-            printMemories(memIndex);
+        // ===== 2) Layout con alias (no crea nodos para los “alias”) =====
+        // El grafo se arma aquí (el sizer consulta al proyecto); sólo ELK va al pool
+        LayoutBuilder.Result elk = LayoutBuilder.build(proj, mod, netIndex, sizer, cellAlias);
+        Future<?> layout = pool.submit(() -> layoutModule(elk.root));
+        System.out.println();
+        return new PendingModule(mod, memIndex, cellAlias, netIndex, elk, layout);
+    }
 
-            // ===== 1) Construir alias de celdas ($memrd/$memwr/$meminit → representante) =====
-            Map<VerilogCell, VerilogCell> cellAlias = buildMemoryCellAlias(mod, memIndex);
+    /** Corre ELK sobre el grafo, salvo que el caché ya tenga su resultado. */
+    private void layoutModule(ElkNode root) {
+        String key = LayoutCache.keyOf(root);
+        if (layoutCache.load(key, root)) return;
 
-            // ===== 2) Layout con alias (no crea nodos para los “alias”) =====
-            LayoutBuilder.Result elk = LayoutBuilder.build(proj, mod, netIndex, sizer, cellAlias);
-            LayoutRunner.run(elk.root);
+        LayoutRunner.run(root);
+        // Aplicar el layout al módulo (y clamping a coordenadas positivas)
+        LayoutUtils.applyLayoutAndClamp(root, MIN_X, MIN_Y);
+        layoutCache.store(key, root);
+    }
+
+    /** Espera el layout de un módulo y lo instancia en su circuito; devuelve cuántas celdas creó. */
+    private int importModule(Project proj, Canvas canvas, Graphics g, PendingModule pm) {
+        VerilogModuleImpl mod = pm.mod();
+        try {
+            pm.layout().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Layout interrumpido en '" + mod.name() + "'", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló el layout de '" + mod.name() + "'", e.getCause());
+        }
 
-            // Aplicar el layout al módulo (y clamping a coordenadas positivas)
-            LayoutUtils.applyLayoutAndClamp(elk.root, MIN_X, MIN_Y);
+        int cells = 0;
+        System.out.println("== Instanciando: " + mod.name() + " ==");
+        ModuleNetIndex netIndex = pm.netIndex();
+        Map<VerilogCell, VerilogCell> cellAlias = pm.cellAlias();
+        LayoutBuilder.Result elk = pm.elk();
+        memoryAdapter.beginModule(pm.memIndex(), mod); // contexto de memorias
+
+        // Los adapters agregan al circuito actual del canvas
+        Circuit circ = ModuleCircuits.findOrCreate(proj, mod.name());
+        proj.setCurrentCircuit(circ);
+
+        // Pins y celdas del módulo van en una sola acción (un lock, un undo)
+        try (ImportBatch batch = ImportBatch.open(proj, circ, g)) {
+            // reimportación: el módulo reemplaza lo que tenía, y sus instancias lo ven
+            // (el circuito es siempre uno creado por el importador)
+            if (!circ.getNonWires().isEmpty() || !circ.getWires().isEmpty()) batch.replaceContents();
 
             // Puertos top
-            addModulePortsToCircuitSeparated(proj, canvas.getCircuit(), mod, elk, netIndex, g);
+            addModulePortsToCircuitSeparated(batch, mod, elk, netIndex, g);
 
             // ===== 3) Instanciar solo celdas no-aliased (i.e., representantes o celdas “normales”) =====
             for (int i = 0; i < mod.cells().size(); i++) {
@@ -125,14 +208,14 @@ public final class VerilogJsonImporter {
                     y = snap((int) Math.round(n.getY()));
                 }
                 adapter.create(canvas, g, cell, Location.create(x, y));
-                totalCells++;
+                cells++;
             }
 
-            System.out.println();
+            batch.commit(Strings.getter("importModuleAction", mod.name()));
         }
 
-        System.out.println("Total de celdas procesadas: " + totalCells);
-        System.out.println("Done.");
+        System.out.println();
+        return cells;
     }
 
     /* ===================== Helpers ===================== */
@@ -177,8 +260,7 @@ public final class VerilogJsonImporter {
 
     private static int snap(int v){ return (v/GRID)*GRID; }
 
-    private void addModulePortsToCircuitSeparated(Project proj,
-                                                  Circuit circuit,
+    private void addModulePortsToCircuitSeparated(ImportBatch batch,
                                                   VerilogModuleImpl mod,
                                                   LayoutBuilder.Result elk,
                                                   ModuleNetIndex netIdx,
@@ -226,11 +308,11 @@ public final class VerilogJsonImporter {
 
             // Para cada net del módulo, si contiene un endpoint top de este puerto, añade
             for (int netId : netIdx.netIds()) {
-                List<Integer> refs = netIdx.endpointsOf(netId);
-                if (refs == null || refs.isEmpty()) continue;
+                long[] refs = netIdx.endpointsOf(netId);
+                if (refs.length == 0) continue;
 
                 boolean touchesThisPort = false;
-                for (int ref : refs) {
+                for (long ref : refs) {
                     if (ModuleNetIndex.isTop(ref)) {
                         int pIdx = netIdx.resolveTopPortIdx(ref);
                         if (pIdx >= 0 && pIdx < mod.ports().size() && mod.ports().get(pIdx) == p) {
@@ -242,10 +324,10 @@ public final class VerilogJsonImporter {
                 if (!touchesThisPort) continue;
 
                 // Extrae Y de los endpoints internos de esta net
-                for (int ref : refs) {
+                for (long ref : refs) {
                     if (!ModuleNetIndex.isTop(ref)) {
                         int cellIdx = ModuleNetIndex.ownerIdx(ref);
-                        VerilogCell cell = mod.cells().get(cellIdx);
+                        VerilogCell cell = netIdx.cellAt(cellIdx);
                         ElkNode n = elk.cellNode.get(cell);
                         if (n != null) {
                             int y = snap((int)Math.round(n.getY() + n.getHeight()/2.0));
@@ -273,7 +355,7 @@ public final class VerilogJsonImporter {
             ComponentFactory pinFactory = Pin.FACTORY;
             AttributeSet attrs = pinFactory.createAttributeSet();
 
-            attrs.setValue(StdAttr.WIDTH, BitWidth.create(Math.max(1, p.width())));
+            attrs.setValue(StdAttr.WIDE_WIDTH, BitWidth.create(Math.max(1, p.width())));
             attrs.setValue(Pin.ATTR_TYPE, false); // INPUT
             attrs.setValue(Pin.ATTR_TRISTATE, false);
             attrs.setValue(StdAttr.FACING, com.cburch.logisim.data.Direction.EAST); // mira hacia el bloque
@@ -283,7 +365,7 @@ public final class VerilogJsonImporter {
             curInY += inStep;
 
             try {
-                addComponentSafe(proj, circuit, g, pinFactory, loc, attrs);
+                addComponentSafe(batch, g, pinFactory, loc, attrs);
             } catch (CircuitException e) {
                 throw new IllegalStateException("No se pudo añadir pin input '" + p.name() + "'", e);
             }
@@ -294,7 +376,7 @@ public final class VerilogJsonImporter {
             ComponentFactory pinFactory = Pin.FACTORY;
             AttributeSet attrs = pinFactory.createAttributeSet();
 
-            attrs.setValue(StdAttr.WIDTH, BitWidth.create(Math.max(1, p.width())));
+            attrs.setValue(StdAttr.WIDE_WIDTH, BitWidth.create(Math.max(1, p.width())));
             attrs.setValue(Pin.ATTR_TYPE, true); // OUTPUT
             attrs.setValue(Pin.ATTR_TRISTATE, false);
             attrs.setValue(StdAttr.FACING, com.cburch.logisim.data.Direction.WEST); // mira hacia el bloque
@@ -304,45 +386,30 @@ public final class VerilogJsonImporter {
             Location loc = Location.create(snap(xOutputs), y);
 
             try {
-                addComponentSafe(proj, circuit, g, pinFactory, loc, attrs);
+                addComponentSafe(batch, g, pinFactory, loc, attrs);
             } catch (CircuitException e) {
                 throw new IllegalStateException("No se pudo añadir pin output '" + p.name() + "'", e);
             }
         }
     }
 
-    private static Component addComponentSafe(Project proj,
-                                              Circuit circ,
+    private static Component addComponentSafe(ImportBatch batch,
                                               Graphics g,
                                               ComponentFactory factory,
                                               Location where,
                                               AttributeSet attrs) throws CircuitException {
-        Component comp = factory.createComponent(where, attrs);
-
-        if (circ.hasConflict(comp)) {
-            throw new CircuitException(Strings.get("exclusiveError"));
-        }
-
-        Bounds b = comp.getBounds(g);
+        Bounds b = factory.createComponent(where, attrs).getBounds(g);
         // clamp final por si acaso: si aún es negativo, corrige moviendo el location antes de fallar.
         int shiftX = 0, shiftY = 0;
         if (b.getX() < MIN_X) shiftX = MIN_X - b.getX();
         if (b.getY() < MIN_Y) shiftY = MIN_Y - b.getY();
         if (shiftX != 0 || shiftY != 0) {
-            // recrear el componente movido (porque Component no expone setLocation directo)
+            // mover el location (porque Component no expone setLocation directo)
             where = Location.create(where.getX() + snap(shiftX), where.getY() + snap(shiftY));
-            comp = factory.createComponent(where, attrs);
-            b = comp.getBounds(g);
-        }
-
-        if (b.getX() < 0 || b.getY() < 0) {
-            throw new CircuitException(Strings.get("negativeCoordError"));
         }
 
-        CircuitMutation m = new CircuitMutation(circ);
-        m.add(comp);
-        proj.doAction(m.toAction(Strings.getter("addComponentAction", factory.getDisplayGetter())));
-        return comp;
+        // el lote revisa conflictos y coordenadas negativas
+        return batch.add(factory, where, attrs);
     }
 
     /* =========================
@@ -384,20 +451,20 @@ public final class VerilogJsonImporter {
     private static void printNets(VerilogModuleImpl mod, ModuleNetIndex idx) {
         System.out.println("  Nets:");
         for (int netId : idx.netIds()) {
-            int[] refs = idx.endpointsOf(netId).stream().mapToInt(i -> i).toArray();
+            long[] refs = idx.endpointsOf(netId);
 
             var topStrs  = new ArrayList<String>();
             var cellStrs = new ArrayList<String>();
 
-            for (int ref : refs) {
+            for (long ref : refs) {
                 int bit = ModuleNetIndex.bitIdx(ref);
                 if (ModuleNetIndex.isTop(ref)) {
                     int portIdx = ModuleNetIndex.ownerIdx(ref);
-                    ModulePort p = mod.ports().get(portIdx);
+                    ModulePort p = idx.topPortAt(portIdx);
                     topStrs.add(p.name() + "[" + bit + "]");
                 } else {
                     int cellIdx = ModuleNetIndex.ownerIdx(ref);
-                    VerilogCell c = mod.cells().get(cellIdx);
+                    VerilogCell c = idx.cellAt(cellIdx);
                     cellStrs.add(c.name() + "[" + bit + "]");
                 }
             }
@@ -6,127 +6,187 @@ import com.cburch.logisim.verilog.comp.auxiliary.PortEndpoint;
 import com.cburch.logisim.verilog.comp.auxiliary.netconn.NetBit;
 
 import java.util.*;
-import java.util.function.Function;
 
+/**
+ * Índice net → endpoints de un módulo, en formato CSR: las refs de todas las
+ * nets van en un único long[] y netStart[i]..netStart[i+1] delimita las de la
+ * i-ésima net. Nada se boxea, así que escala a netlists aplanados grandes.
+ */
 public final class ModuleNetIndex {
-    // netId -> lista de refs compactos (int)
-    private final Map<Integer, List<Integer>> byNet = new LinkedHashMap<>();
+    // nets en orden de primera aparición y sus refs (CSR)
+    private final int[] netIds;
+    private final int[] netStart;
+    private final long[] refs;
+    // netId -> posición en netIds (o -1)
+    private final int[] netPos;
 
     // Guardamos referencias al modelo para poder resolver nombres/puertos
     private final List<VerilogCell> cells;
     private final List<ModulePort> modulePorts;
 
-    // ---- Codificación del ref (32 bits) ----
-    // bit31..30 = kind (0=cell, 1=top)
-    // bit29..16 = ownerIdx (hasta 16383)
-    // bit15.. 8 = portOrd (sólo para celdas; 0..255) / 0 para top
-    // bit 7.. 0 = bitIdx (0..255)
-    private static int encCell(int cellIdx, int portOrd, int bitIdx) {
-        return (0 << 30) | (cellIdx << 16) | ((portOrd & 0xFF) << 8) | (bitIdx & 0xFF);
+    // ordinal -> nombre de puerto, por celda
+    private final String[][] cellOrdToName;
+
+    // ---- Codificación del ref (64 bits) ----
+    // bit63      = kind (0=cell, 1=top)
+    // bit62..32  = ownerIdx (hasta 2^31-1)
+    // bit31..20  = portOrd (sólo para celdas; 0..4095) / 0 para top
+    // bit19.. 0  = bitIdx (0..1048575)
+    private static final int OWNER_SHIFT = 32;
+    private static final int ORD_SHIFT = 20;
+    private static final int ORD_MASK = 0xFFF;
+    private static final int BIT_MASK = 0xFFFFF;
+
+    private static long encCell(int cellIdx, int portOrd, int bitIdx) {
+        checkRange(portOrd, ORD_MASK, "port ordinal");
+        checkRange(bitIdx, BIT_MASK, "bit index");
+        return ((long) cellIdx << OWNER_SHIFT) | ((long) portOrd << ORD_SHIFT) | bitIdx;
     }
-    private static int encTop (int portIdx, int bitIdx) {
-        return (1 << 30) | (portIdx << 16) | (bitIdx & 0xFF);
+    private static long encTop (int portIdx, int bitIdx) {
+        checkRange(bitIdx, BIT_MASK, "bit index");
+        return Long.MIN_VALUE | ((long) portIdx << OWNER_SHIFT) | bitIdx;
+    }
+    private static void checkRange(int v, int max, String what) {
+        if (v > max) throw new IllegalArgumentException(what + " too large: " + v);
     }
 
-    public static boolean isTop  (int ref){ return ((ref >>> 30) & 0b11) == 1; }
-    public static int ownerIdx   (int ref){ return (ref >>> 16) & 0x3FFF; }
-    public static int portOrd    (int ref){ return (ref >>> 8)  & 0xFF; }   // válido para celdas
-    public static int bitIdx     (int ref){ return ref & 0xFF; }
-
-    // ---- LUTs por celda ----
-    // nombre de puerto -> ordinal (estable por celda)
-    private final List<Map<String,Integer>> cellPortOrd = new ArrayList<>();
-    // ordinal -> nombre de puerto
-    private final List<List<String>> cellOrdToName = new ArrayList<>();
-    // key (ord<<8 | bit) -> PortEndpoint
-    private final List<Map<Integer,PortEndpoint>> cellEpByKey = new ArrayList<>();
-
-    private static int key(int ord, int bit){ return ((ord & 0xFF) << 8) | (bit & 0xFF); }
+    public static boolean isTop  (long ref){ return ref < 0; }
+    public static int ownerIdx   (long ref){ return (int) (ref >>> OWNER_SHIFT) & Integer.MAX_VALUE; }
+    public static int portOrd    (long ref){ return (int) (ref >>> ORD_SHIFT) & ORD_MASK; }   // válido para celdas
+    public static int bitIdx     (long ref){ return (int) ref & BIT_MASK; }
 
     public ModuleNetIndex(List<VerilogCell> cells, List<ModulePort> modulePorts) {
         this.cells = Objects.requireNonNull(cells);
         this.modulePorts = Objects.requireNonNull(modulePorts);
+        this.cellOrdToName = new String[cells.size()][];
+
+        // 1) Contar refs por net (netPos crece según el mayor netId visto)
+        int[] pos = new int[64];
+        Arrays.fill(pos, -1);
+        int[] ids = new int[64];
+        int[] count = new int[64];
+        int nets = 0;
+        for (ModulePort p : modulePorts) {
+            for (int i = 0; i < p.width(); i++) {
+                int net = p.netIdAt(i);
+                if (net < 0) continue; // constantes (<0) no se indexan
+                if (net >= pos.length) pos = grow(pos, net, -1);
+                if (pos[net] < 0) {
+                    if (nets == ids.length) { ids = Arrays.copyOf(ids, 2 * nets); count = Arrays.copyOf(count, 2 * nets); }
+                    pos[net] = nets;
+                    ids[nets++] = net;
+                }
+                count[pos[net]]++;
+            }
+        }
+        for (VerilogCell c : cells) {
+            for (PortEndpoint ep : c.endpoints()) {
+                if (!(ep.getBitRef() instanceof NetBit nb)) continue;
+                int net = nb.getNetId();
+                if (net >= pos.length) pos = grow(pos, net, -1);
+                if (pos[net] < 0) {
+                    if (nets == ids.length) { ids = Arrays.copyOf(ids, 2 * nets); count = Arrays.copyOf(count, 2 * nets); }
+                    pos[net] = nets;
+                    ids[nets++] = net;
+                }
+                count[pos[net]]++;
+            }
+        }
+
+        // 2) Offsets (prefix sum)
+        this.netIds = Arrays.copyOf(ids, nets);
+        this.netPos = pos;
+        this.netStart = new int[nets + 1];
+        for (int i = 0; i < nets; i++) netStart[i + 1] = netStart[i] + count[i];
+        this.refs = new long[netStart[nets]];
+        int[] fill = Arrays.copyOf(netStart, nets);
 
-        // 1) Puertos del módulo (top)
+        // 3) Llenar refs: primero los puertos top, después las celdas
         for (int pIdx = 0; pIdx < modulePorts.size(); pIdx++) {
             ModulePort p = modulePorts.get(pIdx);
             for (int i = 0; i < p.width(); i++) {
                 int net = p.netIdAt(i);
-                if (net >= 0) add(net, encTop(pIdx, i)); // constantes (<0) no se indexan
+                if (net >= 0) refs[fill[pos[net]]++] = encTop(pIdx, i);
             }
         }
-
-        // 2) Celdas internas: construir LUTs y refs con portOrd embebido
+        List<String> names = new ArrayList<>();
         for (int cIdx = 0; cIdx < cells.size(); cIdx++) {
-            VerilogCell c = cells.get(cIdx);
+            names.clear();
+            for (PortEndpoint ep : cells.get(cIdx).endpoints()) {
+                if (!(ep.getBitRef() instanceof NetBit nb)) continue;
+                // ordinal incremental por nombre de puerto (pocos puertos por celda)
+                int ord = names.indexOf(ep.getPortName());
+                if (ord < 0) {
+                    ord = names.size();
+                    names.add(ep.getPortName());
+                }
+                refs[fill[pos[nb.getNetId()]]++] = encCell(cIdx, ord, ep.getBitIndex());
+            }
+            cellOrdToName[cIdx] = names.toArray(new String[0]);
+        }
+    }
 
-            Map<String,Integer> ordMap = new LinkedHashMap<>();
-            List<String> namesByOrd     = new ArrayList<>();
-            Map<Integer,PortEndpoint> epMap = new HashMap<>();
+    private static int[] grow(int[] a, int index, int fillValue) {
+        int n = a.length;
+        int[] ret = Arrays.copyOf(a, Math.max(index + 1, 2 * n));
+        Arrays.fill(ret, n, ret.length, fillValue);
+        return ret;
+    }
 
-            // asigna ordinal incremental por nombre de puerto
-            Function<String,Integer> ordOf = name -> ordMap.computeIfAbsent(name, n -> {
-                int ord = namesByOrd.size();
-                namesByOrd.add(n);
-                return ord;
-            });
+    // ---- API pública ----
 
-            for (PortEndpoint ep : c.endpoints()) {
-                var br = ep.getBitRef();
-                if (br instanceof NetBit nb) {
-                    int ord = ordOf.apply(ep.getPortName());
-                    int b   = ep.getBitIndex();
-                    epMap.put(key(ord, b), ep);
-                    add(nb.getNetId(), encCell(cIdx, ord, b));
-                }
-            }
+    /** Nets con al menos un endpoint, en orden de primera aparición. */
+    public int[] netIds() { return netIds; }
 
-            cellPortOrd.add(ordMap);
-            cellOrdToName.add(namesByOrd);
-            cellEpByKey.add(epMap);
-        }
+    /** Número de endpoints de una net (0 si no existe). */
+    public int endpointCount(int netId) {
+        int i = indexOf(netId);
+        return i < 0 ? 0 : netStart[i + 1] - netStart[i];
     }
 
-    private void add(int netId, int ref) {
-        byNet.computeIfAbsent(netId, k -> new ArrayList<>()).add(ref);
+    /** Refs de una net (copia del tramo CSR); vacío si no existe. */
+    public long[] endpointsOf(int netId) {
+        int i = indexOf(netId);
+        if (i < 0) return new long[0];
+        return Arrays.copyOfRange(refs, netStart[i], netStart[i + 1]);
     }
 
-    // ---- API pública existente ----
-    public Set<Integer> netIds() { return byNet.keySet(); }
-    public List<Integer> endpointsOf(int netId) {
-        return byNet.getOrDefault(netId, List.of());
+    private int indexOf(int netId) {
+        return netId >= 0 && netId < netPos.length ? netPos[netId] : -1;
     }
 
-    // ---- NUEVO: resoluciones para “bus edges” ----
+    // ---- Resoluciones para “bus edges” ----
 
     /** Devuelve el índice de puerto top directamente del ref. */
-    public int resolveTopPortIdx(int topRef) {
+    public int resolveTopPortIdx(long topRef) {
         if (!isTop(topRef)) throw new IllegalArgumentException("Ref no es top");
         return ownerIdx(topRef);
     }
 
     /** Devuelve el nombre de puerto de celda a partir del ref. */
-    public Optional<String> resolveCellPortName(int cellRef) {
+    public Optional<String> resolveCellPortName(long cellRef) {
         if (isTop(cellRef)) return Optional.empty();
-        int cIdx = ownerIdx(cellRef);
-        int ord  = portOrd(cellRef);
-        List<String> names = cellOrdToName.get(cIdx);
-        if (ord < 0 || ord >= names.size()) return Optional.empty();
-        return Optional.ofNullable(names.get(ord));
+        String[] names = cellOrdToName[ownerIdx(cellRef)];
+        int ord = portOrd(cellRef);
+        if (ord >= names.length) return Optional.empty();
+        return Optional.of(names[ord]);
     }
 
     /** Devuelve el PortEndpoint (dirección incluida) para un ref de celda. */
-    public Optional<PortEndpoint> resolveCellEndpoint(int cellRef) {
-        if (isTop(cellRef)) return Optional.empty();
-        int cIdx = ownerIdx(cellRef);
-        int ord  = portOrd(cellRef);
-        int bit  = bitIdx(cellRef);
-        PortEndpoint ep = cellEpByKey.get(cIdx).get(key(ord, bit));
-        return Optional.ofNullable(ep);
+    public Optional<PortEndpoint> resolveCellEndpoint(long cellRef) {
+        Optional<String> name = resolveCellPortName(cellRef);
+        if (name.isEmpty()) return Optional.empty();
+        int bit = bitIdx(cellRef);
+        for (PortEndpoint ep : cells.get(ownerIdx(cellRef)).endpoints()) {
+            if (ep.getBitIndex() == bit && ep.getBitRef() instanceof NetBit
+                    && ep.getPortName().equals(name.get())) {
+                return Optional.of(ep);
+            }
+        }
+        return Optional.empty();
     }
 
     /** Acceso al modelo (por si lo necesitas para layout/adapters). */
     public VerilogCell cellAt(int idx){ return cells.get(idx); }
     public ModulePort topPortAt(int idx){ return modulePorts.get(idx); }
 }
-
@@ -1,10 +1,9 @@
 package com.cburch.logisim.verilog.layout.auxiliary;
 
+import com.cburch.logisim.circuit.Circuit;
 import com.cburch.logisim.comp.ComponentFactory;
 import com.cburch.logisim.data.AttributeSet;
-import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Bounds;
-import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.proj.Project;
 import com.cburch.logisim.verilog.comp.auxiliary.ModulePort;
 import com.cburch.logisim.verilog.comp.auxiliary.SupportsFactoryLookup;
@@ -13,6 +12,8 @@ import com.cburch.logisim.verilog.comp.specs.CellParams;
 import com.cburch.logisim.verilog.comp.specs.GenericCellParams;
 import com.cburch.logisim.verilog.std.ComponentAdapter;
 import com.cburch.logisim.verilog.std.ComponentAdapterRegistry;
+import com.cburch.logisim.verilog.std.ModuleCircuits;
+import com.cburch.logisim.verilog.std.adapters.ComponentComposer;
 
 import java.awt.*;
 import java.util.HashMap;
@@ -30,8 +31,19 @@ public final class DefaultNodeSizer implements NodeSizer {
 
     @Override
     public Dimension sizeForCell(Project proj, VerilogCell cell) {
-        // Cache por typeId (suficientemente buena para la mayoría)
+        // Instancia de un módulo ya importado: el tamaño real de su subcircuito
+        // (no se cachea, porque el módulo puede reimportarse con otros pines)
         String key = cell.type().typeId();
+        if (cell.type().isModuleInst() && proj != null) {
+            Circuit sub = ModuleCircuits.resolve(proj.getLogisimFile(), key);
+            if (sub != null) {
+                ComponentFactory f = sub.getSubcircuitFactory();
+                Bounds b = probeBounds(f, f.createAttributeSet());
+                return new Dimension(b.getWidth(), b.getHeight());
+            }
+        }
+
+        // Cache por typeId (suficientemente buena para la mayoría)
         var cached = byTypeCache.get(key);
         if (cached != null) return cached;
 
@@ -46,10 +58,7 @@ public final class DefaultNodeSizer implements NodeSizer {
 
         // 2) preparar atributos (ancho si aplica)
         AttributeSet attrs = f.createAttributeSet();
-        try {
-            int w = Math.max(1, guessWidth(cell.params()));
-            attrs.setValue(StdAttr.WIDTH, BitWidth.create(w));
-        } catch (Exception ignore) {}
+        ComponentComposer.setWidth(attrs, guessWidth(cell.params()));
 
         // 3) consultar tamaño “real” via offset bounds
         Bounds b = probeBounds(f, attrs);
@@ -166,26 +166,27 @@ public final class LayoutBuilder {
         }
 
         // --- 3) Aristas agrupadas por bus (src,dst,baseLabel) ---
-        Map<PairKey, SortedSet<Integer>> busGroups = new HashMap<>();
+        // en orden de inserción: el grafo (y su clave en LayoutCache) no depende de los hashes de identidad
+        Map<PairKey, SortedSet<Integer>> busGroups = new LinkedHashMap<>();
 
         for (int netId : netIdx.netIds()) {
-            List<Integer> refs = netIdx.endpointsOf(netId);
-            if (refs == null || refs.size() < 2) continue;
+            long[] refs = netIdx.endpointsOf(netId);
+            if (refs.length < 2) continue;
 
             // Resolvemos cada endpoint a (nodo ELK, nombre de puerto, bit)
-            List<RefInfo> infos = new ArrayList<>(refs.size());
-            for (int ref : refs) {
+            List<RefInfo> infos = new ArrayList<>(refs.length);
+            for (long ref : refs) {
                 int bit = ModuleNetIndex.bitIdx(ref);
 
                 if (ModuleNetIndex.isTop(ref)) {
                     int pIdx = netIdx.resolveTopPortIdx(ref);
-                    ModulePort p = mod.ports().get(pIdx);
+                    ModulePort p = netIdx.topPortAt(pIdx);
                     ElkNode node = r.portNode.get(p);
                     String pname = p.name();
                     infos.add(new RefInfo(node, pname, bit));
                 } else {
                     int cIdx = ModuleNetIndex.ownerIdx(ref);
-                    VerilogCell owner = mod.cells().get(cIdx);
+                    VerilogCell owner = netIdx.cellAt(cIdx);
                     // Remapear al representante si es alias
                     VerilogCell repr = cellAlias.getOrDefault(owner, owner);
 
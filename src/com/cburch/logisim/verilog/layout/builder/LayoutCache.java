@@ -0,0 +1,182 @@
+package com.cburch.logisim.verilog.layout.builder;
+
+import org.eclipse.elk.graph.ElkConnectableShape;
+import org.eclipse.elk.graph.ElkEdge;
+import org.eclipse.elk.graph.ElkLabel;
+import org.eclipse.elk.graph.ElkNode;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caché en disco de layouts ELK ya calculados. La clave es un hash del grafo
+ * de entrada (tamaños y etiquetas de nodos, aristas y sus etiquetas), así que
+ * un módulo cuyas celdas, nets y dimensiones no cambiaron reutiliza las
+ * posiciones de la importación anterior sin volver a correr ELK.
+ * Sólo se guardan las posiciones de los hijos directos de la raíz.
+ * <p>
+ * El directorio tiene un tope de tamaño: al guardar, si se pasa, se borran
+ * los archivos usados hace más tiempo (cada carga actualiza la fecha de
+ * modificación del archivo, así que es un LRU por mtime).
+ */
+public final class LayoutCache {
+    // cambiarlo invalida todo lo guardado (opciones de ELK, clamping, formato)
+    private static final int VERSION = 1;
+    private static final int MAGIC = 0x4C59434B; // "LYCK"
+    private static final long DEFAULT_MAX_BYTES = 32L << 20;
+
+    private final File dir;
+    private final long maxBytes;
+
+    public LayoutCache(File dir) {
+        this(dir, DEFAULT_MAX_BYTES);
+    }
+
+    public LayoutCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    /** Caché por defecto, en ~/.logisim/layout-cache. */
+    public static LayoutCache atDefaultLocation() {
+        return new LayoutCache(new File(System.getProperty("user.home"), ".logisim/layout-cache"));
+    }
+
+    /** Hash del grafo tal como lo deja LayoutBuilder, antes del layout. */
+    public static String keyOf(ElkNode root) {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (DataOutputStream out = new DataOutputStream(
+                new DigestOutputStream(OutputStream.nullOutputStream(), md))) {
+            out.writeInt(VERSION);
+
+            Map<ElkNode, Integer> idx = new IdentityHashMap<>();
+            List<ElkNode> children = root.getChildren();
+            out.writeInt(children.size());
+            for (ElkNode n : children) {
+                idx.put(n, idx.size());
+                out.writeDouble(n.getWidth());
+                out.writeDouble(n.getHeight());
+                writeLabels(out, n.getLabels());
+            }
+
+            List<ElkEdge> edges = root.getContainedEdges();
+            out.writeInt(edges.size());
+            for (ElkEdge e : edges) {
+                writeEnds(out, e.getSources(), idx);
+                writeEnds(out, e.getTargets(), idx);
+                writeLabels(out, e.getLabels());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // no ocurre: no escribe a ningún lado
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    private static void writeLabels(DataOutputStream out, List<ElkLabel> labels) throws IOException {
+        out.writeInt(labels.size());
+        for (ElkLabel l : labels) {
+            byte[] text = String.valueOf(l.getText()).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+    }
+
+    private static void writeEnds(DataOutputStream out, List<ElkConnectableShape> ends,
+                                  Map<ElkNode, Integer> idx) throws IOException {
+        out.writeInt(ends.size());
+        for (ElkConnectableShape s : ends) {
+            Integer i = idx.get(s);
+            out.writeInt(i == null ? -1 : i);
+        }
+    }
+
+    /**
+     * Aplica a los hijos de root las posiciones guardadas bajo key.
+     * Devuelve false (sin tocar el grafo) si no hay nada usable.
+     */
+    public boolean load(String key, ElkNode root) {
+        File f = new File(dir, key);
+        if (!f.isFile()) return false;
+        List<ElkNode> children = root.getChildren();
+        double[] xy = new double[2 * children.size()];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            if (in.readInt() != MAGIC || in.readInt() != children.size()) return false;
+            for (int i = 0; i < xy.length; i++) xy[i] = in.readDouble();
+        } catch (IOException e) {
+            return false; // archivo truncado o ilegible: se recalcula
+        }
+        for (int i = 0; i < children.size(); i++) {
+            children.get(i).setLocation(xy[2 * i], xy[2 * i + 1]);
+        }
+        f.setLastModified(System.currentTimeMillis()); // recién usado: último en desalojarse
+        return true;
+    }
+
+    /** Guarda las posiciones de los hijos de root; los errores sólo se reportan. */
+    public void store(String key, ElkNode root) {
+        File tmp = null;
+        try {
+            Files.createDirectories(dir.toPath());
+            tmp = File.createTempFile(key, ".tmp", dir);
+            List<ElkNode> children = root.getChildren();
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(children.size());
+                for (ElkNode n : children) {
+                    out.writeDouble(n.getX());
+                    out.writeDouble(n.getY());
+                }
+            }
+            // el rename deja a los lectores concurrentes ver el archivo entero o nada
+            Files.move(tmp.toPath(), new File(dir, key).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+        } catch (IOException e) {
+            System.err.println("No se pudo guardar el layout en caché: " + e.getMessage());
+        } finally {
+            if (tmp != null) tmp.delete();
+        }
+        evict();
+    }
+
+    /** Borra los archivos menos usados hasta que el directorio quepa en maxBytes. */
+    private synchronized void evict() {
+        File[] files = dir.listFiles(File::isFile);
+        if (files == null) return;
+        long total = 0;
+        long[] mtime = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            total += files[i].length();
+            mtime[i] = files[i].lastModified(); // fijo: otro hilo puede tocarlo mientras se ordena
+        }
+        if (total <= maxBytes) return;
+
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingLong(i -> mtime[i]));
+        for (int i : order) {
+            if (total <= maxBytes) break;
+            long len = files[i].length();
+            if (files[i].delete()) total -= len;
+        }
+    }
+}
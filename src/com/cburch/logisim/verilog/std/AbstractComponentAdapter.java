@@ -27,6 +27,9 @@ public abstract class AbstractComponentAdapter implements ComponentAdapter {
                                      ComponentFactory factory,
                                      Location where,
                                      AttributeSet attrs) throws CircuitException {
+        ImportBatch batch = ImportBatch.active(circ);
+        if (batch != null) return batch.add(factory, where, attrs);
+
         Component comp = factory.createComponent(where, attrs);
 
         if (circ.hasConflict(comp)) {
@@ -0,0 +1,130 @@
+package com.cburch.logisim.verilog.std;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.circuit.CircuitException;
+import com.cburch.logisim.circuit.CircuitMutation;
+import com.cburch.logisim.circuit.Wire;
+import com.cburch.logisim.comp.Component;
+import com.cburch.logisim.comp.ComponentFactory;
+import com.cburch.logisim.comp.EndData;
+import com.cburch.logisim.data.AttributeSet;
+import com.cburch.logisim.data.Bounds;
+import com.cburch.logisim.data.Location;
+import com.cburch.logisim.proj.Project;
+import com.cburch.logisim.util.StringGetter;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Junta todos los componentes y cables que el importador agrega a un circuito
+ * y los aplica en una sola CircuitMutation: un lock, un evento de transacción,
+ * una reparación de cables y una sola acción deshacible. Mientras está abierto,
+ * los adapters y compositores que agregan a ese circuito encolan aquí en vez de
+ * ejecutar una acción por componente. Los conflictos se revisan contra un índice
+ * en memoria de los extremos exclusivos, que incluye a los pendientes.
+ */
+public final class ImportBatch implements AutoCloseable {
+    // sólo se importa desde el hilo de eventos
+    private static final Map<Circuit, ImportBatch> ACTIVE = new HashMap<>();
+
+    private final Project proj;
+    private final Circuit circ;
+    private final Graphics g;
+    private final List<Component> pending = new ArrayList<>();
+    private final Set<Location> exclusiveEnds = new HashSet<>();
+    private boolean replace = false;
+
+    private ImportBatch(Project proj, Circuit circ, Graphics g) {
+        this.proj = proj;
+        this.circ = circ;
+        this.g = g;
+        for (Component c : circ.getNonWires()) addEnds(c);
+    }
+
+    /** Abre un lote para un circuito; hasta cerrarlo, lo agregado a él queda pendiente. */
+    public static ImportBatch open(Project proj, Circuit circ, Graphics g) {
+        if (ACTIVE.containsKey(circ)) throw new IllegalStateException("batch already open: " + circ.getName());
+        ImportBatch ret = new ImportBatch(proj, circ, g);
+        ACTIVE.put(circ, ret);
+        return ret;
+    }
+
+    /** Devuelve el lote abierto para un circuito, o null si no hay. */
+    public static ImportBatch active(Circuit circ) {
+        return ACTIVE.get(circ);
+    }
+
+    /**
+     * Crea un componente y lo deja pendiente, verificando que no choque con
+     * otro extremo exclusivo y que no quede en coordenadas negativas.
+     */
+    public Component add(ComponentFactory factory, Location where, AttributeSet attrs) throws CircuitException {
+        Component comp = factory.createComponent(where, attrs);
+        if (hasConflict(comp)) {
+            throw new CircuitException(Strings.get("exclusiveError"));
+        }
+
+        Bounds b = comp.getBounds(g);
+        if (b.getX() < 0 || b.getY() < 0) {
+            throw new CircuitException(Strings.get("negativeCoordError"));
+        }
+
+        addEnds(comp);
+        pending.add(comp);
+        return comp;
+    }
+
+    public void addWire(Location p1, Location p2) {
+        pending.add(Wire.create(p1, p2));
+    }
+
+    public boolean hasConflict(Component comp) {
+        for (EndData end : comp.getEnds()) {
+            if (end != null && end.isExclusive() && exclusiveEnds.contains(end.getLocation())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addEnds(Component comp) {
+        for (EndData end : comp.getEnds()) {
+            if (end != null && end.isExclusive()) exclusiveEnds.add(end.getLocation());
+        }
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /** Hace que commit reemplace el contenido actual del circuito en vez de sumarse a él. */
+    public void replaceContents() {
+        replace = true;
+        exclusiveEnds.clear();
+        for (Component c : pending) addEnds(c);
+    }
+
+    /** Aplica todo lo pendiente como una sola acción. */
+    public void commit(StringGetter name) {
+        if (pending.isEmpty() && !replace) return;
+        CircuitMutation m = new CircuitMutation(circ);
+        if (replace) m.clear();
+        m.addAll(pending);
+        pending.clear();
+        replace = false;
+        proj.doAction(m.toAction(name));
+    }
+
+    /** Cierra el lote; lo que no se haya aplicado con commit se descarta. */
+    @Override
+    public void close() {
+        ACTIVE.remove(circ, this);
+        pending.clear();
+    }
+}
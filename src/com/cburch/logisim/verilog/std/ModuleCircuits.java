@@ -0,0 +1,53 @@
+package com.cburch.logisim.verilog.std;
+
+import com.cburch.logisim.circuit.Circuit;
+import com.cburch.logisim.file.LogisimFile;
+import com.cburch.logisim.file.LogisimFileActions;
+import com.cburch.logisim.proj.Project;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Recuerda qué circuitos creó el importador para cada módulo Verilog. Sólo
+ * éstos se reutilizan (y se les reemplaza el contenido) al reimportar: un
+ * circuito dibujado a mano que se llame como un módulo, o "main", no se toca,
+ * y el módulo va a un circuito nuevo con un nombre libre.
+ */
+public final class ModuleCircuits {
+    // sólo se importa desde el hilo de eventos; débil para no retener circuitos borrados
+    private static final Map<Circuit, String> IMPORTED = new WeakHashMap<>();
+
+    private ModuleCircuits() {}
+
+    /** El circuito que el importador creó para el módulo en este archivo, o null. */
+    public static Circuit find(LogisimFile file, String module) {
+        for (Circuit c : file.getCircuits()) {
+            if (module.equals(IMPORTED.get(c))) return c;
+        }
+        return null;
+    }
+
+    /**
+     * Circuito a instanciar para el módulo: el importado si lo hay, si no uno
+     * que ya se llame así (caja negra provista por el usuario), o null.
+     */
+    public static Circuit resolve(LogisimFile file, String module) {
+        Circuit circ = find(file, module);
+        return circ != null ? circ : file.getCircuit(module);
+    }
+
+    /** find, o un circuito nuevo para el módulo, con su nombre o uno libre derivado de él. */
+    public static Circuit findOrCreate(Project proj, String module) {
+        LogisimFile file = proj.getLogisimFile();
+        Circuit circ = find(file, module);
+        if (circ != null) return circ;
+
+        String name = module;
+        for (int i = 2; file.getCircuit(name) != null; i++) name = module + "_" + i;
+        circ = new Circuit(name);
+        proj.doAction(LogisimFileActions.addCircuit(circ));
+        IMPORTED.put(circ, module);
+        return circ;
+    }
+}
@@ -13,6 +13,9 @@ public class Strings {
     public static StringGetter getter(String key) {
         return source.getter(key);
     }
+    public static StringGetter getter(String key, String arg) {
+        return source.getter(key, arg);
+    }
     public static StringGetter getter(String key, StringGetter arg) {
         return source.getter(key, arg);
     }
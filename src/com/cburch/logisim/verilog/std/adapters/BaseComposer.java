@@ -9,11 +9,13 @@ import com.cburch.logisim.data.*;
 import com.cburch.logisim.instance.StdAttr;
 import com.cburch.logisim.std.wiring.Pin;
 import com.cburch.logisim.verilog.comp.impl.VerilogCell;
+import com.cburch.logisim.verilog.std.ImportBatch;
 import com.cburch.logisim.verilog.std.Strings;
 import com.cburch.logisim.verilog.std.macrocomponents.ComposeCtx;
 
 import static com.cburch.logisim.verilog.std.AbstractComponentAdapter.cleanCellName;
 import static com.cburch.logisim.verilog.std.adapters.ComponentComposer.setByNameParsed;
+import static com.cburch.logisim.verilog.std.adapters.ComponentComposer.setWidth;
 
 /** Base con helpers compartidos para todos los compositores. */
 public abstract class BaseComposer {
@@ -22,6 +24,9 @@ public abstract class BaseComposer {
                             Location loc,
                             AttributeSet attrs)
             throws CircuitException {
+        ImportBatch batch = ImportBatch.active(ctx.circ);
+        if (batch != null) return batch.add(f, loc, attrs);
+
         Component comp = f.createComponent(loc, attrs);
 
         if (ctx.circ.hasConflict(comp)) {
@@ -40,6 +45,12 @@ public abstract class BaseComposer {
     }
 
     protected void addWire(ComposeCtx ctx, Location p1, Location p2) throws CircuitException {
+        ImportBatch batch = ImportBatch.active(ctx.circ);
+        if (batch != null) {
+            batch.addWire(p1, p2);
+            return;
+        }
+
         Wire w = Wire.create(p1, p2);
 
         CircuitMutation m = new CircuitMutation(ctx.circ);
@@ -52,7 +63,7 @@ public abstract class BaseComposer {
         if (ctx.fx.pinF == null) throw new CircuitException("Pin factory not found (Wiring library)");
         AttributeSet a = ctx.fx.pinF.createAttributeSet();
         try { a.setValue(StdAttr.LABEL, name); } catch (Exception ignore) {}
-        try { a.setValue(StdAttr.WIDTH, BitWidth.create(Math.max(1, width))); } catch (Exception ignore) {}
+        setWidth(a, width);
         try { a.setValue(StdAttr.FACING, isOutput ? Direction.WEST : Direction.EAST); } catch (Exception ignore) {}
         try { a.setValue(Pin.ATTR_TRISTATE, false); } catch (Exception ignore) {}
         setByNameParsed(a, "output", Boolean.toString(isOutput));
@@ -11,10 +11,17 @@ import java.awt.*;
 public final class ComponentComposer {
     public static AttributeSet attrsWithWidthAndLabel(ComponentFactory f, int width, String label){
         AttributeSet a = f.createAttributeSet();
-        try { a.setValue(StdAttr.WIDTH, BitWidth.create(Math.max(1, width))); } catch (Exception ignore) {}
+        setWidth(a, width);
         try { a.setValue(StdAttr.LABEL, label); } catch (Exception ignore) {}
         return a;
     }
+    /** Fija el ancho sea cual sea el atributo "width" del factory (WIDTH o WIDE_WIDTH). */
+    @SuppressWarnings("unchecked")
+    public static void setWidth(AttributeSet as, int width) {
+        Attribute<?> attr = as.getAttribute(StdAttr.WIDTH.getName());
+        if (attr != StdAttr.WIDTH && attr != StdAttr.WIDE_WIDTH) return;
+        try { as.setValue((Attribute<BitWidth>) attr, BitWidth.create(Math.max(1, width))); } catch (Exception ignore) {}
+    }
     @SuppressWarnings({"rawtypes","unchecked"})
     public static void setByNameParsed(AttributeSet as, String key, String text) {
         for (Attribute attr : as.getAttributes()) {
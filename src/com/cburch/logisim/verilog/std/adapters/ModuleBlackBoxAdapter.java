@@ -7,8 +7,6 @@ import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.data.AttributeSet;
 import com.cburch.logisim.data.Direction;
 import com.cburch.logisim.data.Location;
-import com.cburch.logisim.file.LogisimFile;
-import com.cburch.logisim.file.LogisimFileActions;
 import com.cburch.logisim.gui.main.Canvas;
 import com.cburch.logisim.instance.InstanceFactory;
 import com.cburch.logisim.instance.StdAttr;
@@ -40,11 +38,9 @@ public final class ModuleBlackBoxAdapter extends AbstractComponentAdapter {
 
             String modName = safeName(cell.type().typeId());
 
-            Circuit newCirc = findCircuit(proj.getLogisimFile(), modName);
-            if (newCirc == null) {
-                newCirc = new Circuit(modName);
-                proj.doAction(LogisimFileActions.addCircuit(newCirc));
-            }
+            // el circuito ya importado del módulo; si no lo hay, uno del usuario con su nombre
+            Circuit newCirc = ModuleCircuits.resolve(proj.getLogisimFile(), modName);
+            if (newCirc == null) newCirc = ModuleCircuits.findOrCreate(proj, modName);
 
             if (newCirc == currentCirc) {
                 canvas.setErrorMessage(Strings.getter("circularError"));
@@ -79,12 +75,5 @@ public final class ModuleBlackBoxAdapter extends AbstractComponentAdapter {
     private static String safeName(String n) {
         return (n == null || n.isBlank()) ? "unnamed" : n;
     }
-
-    private static Circuit findCircuit(LogisimFile file, String name) {
-        for (Circuit c : file.getCircuits()) {
-            if (c.getName().equals(name)) return c;
-        }
-        return null;
-    }
 }
 
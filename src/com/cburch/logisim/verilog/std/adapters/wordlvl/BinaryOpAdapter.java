@@ -7,7 +7,6 @@ import com.cburch.logisim.circuit.CircuitException;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentFactory;
 import com.cburch.logisim.data.AttributeSet;
-import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Location;
 import com.cburch.logisim.gui.main.Canvas;
 import com.cburch.logisim.instance.StdAttr;
@@ -22,6 +21,7 @@ import com.cburch.logisim.verilog.comp.specs.GenericCellParams;
 import com.cburch.logisim.verilog.comp.specs.wordlvl.BinaryOp;
 import com.cburch.logisim.verilog.std.*;
 import com.cburch.logisim.verilog.std.adapters.MacroRegistry;
+import com.cburch.logisim.verilog.std.adapters.ComponentComposer;
 import com.cburch.logisim.verilog.std.adapters.ModuleBlackBoxAdapter;
 import com.cburch.logisim.verilog.std.macrocomponents.ComposeCtx;
 import com.cburch.logisim.verilog.std.macrocomponents.Factories;
@@ -76,9 +76,7 @@ public final class BinaryOpAdapter extends AbstractComponentAdapter
             AttributeSet attrs = factory.createAttributeSet();
 
             // Ancho de bus
-            try {
-                attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
-            } catch (Exception ignore) { /* algunos factories no exponen WIDTH */ }
+            ComponentComposer.setWidth(attrs, width); // algunos factories no exponen WIDTH
 
             // Etiqueta
             try {
@@ -7,7 +7,6 @@ import com.cburch.logisim.circuit.CircuitException;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentFactory;
 import com.cburch.logisim.data.AttributeSet;
-import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Location;
 import com.cburch.logisim.gui.main.Canvas;
 import com.cburch.logisim.instance.StdAttr;
@@ -21,6 +20,7 @@ import com.cburch.logisim.verilog.comp.specs.CellParams;
 import com.cburch.logisim.verilog.comp.specs.GenericCellParams;
 import com.cburch.logisim.verilog.comp.specs.wordlvl.MuxOp;
 import com.cburch.logisim.verilog.std.*;
+import com.cburch.logisim.verilog.std.adapters.ComponentComposer;
 import com.cburch.logisim.verilog.std.adapters.ModuleBlackBoxAdapter;
 
 import java.awt.Graphics;
@@ -59,10 +59,8 @@ public final class MuxOpAdapter extends AbstractComponentAdapter
 
             AttributeSet attrs = factory.createAttributeSet();
 
-            // Intentar fijar ancho de bus (cuando el factory expose StdAttr.WIDTH)
-            try {
-                attrs.setValue(StdAttr.WIDTH, BitWidth.create(width));
-            } catch (Exception ignore) { }
+            // Intentar fijar ancho de bus (cuando el factory expone "width")
+            ComponentComposer.setWidth(attrs, width);
 
             // Etiqueta visible
             try {
@@ -5,7 +5,6 @@ import com.cburch.logisim.circuit.CircuitException;
 import com.cburch.logisim.comp.Component;
 import com.cburch.logisim.comp.ComponentFactory;
 import com.cburch.logisim.data.AttributeSet;
-import com.cburch.logisim.data.BitWidth;
 import com.cburch.logisim.data.Location;
 import com.cburch.logisim.gui.main.Canvas;
 import com.cburch.logisim.instance.StdAttr;
@@ -20,6 +19,7 @@ import com.cburch.logisim.verilog.comp.specs.GenericCellParams;
 import com.cburch.logisim.verilog.comp.specs.wordlvl.UnaryOp;
 import com.cburch.logisim.verilog.std.*;
 import com.cburch.logisim.verilog.std.adapters.MacroRegistry;
+import com.cburch.logisim.verilog.std.adapters.ComponentComposer;
 import com.cburch.logisim.verilog.std.adapters.ModuleBlackBoxAdapter;
 import com.cburch.logisim.verilog.std.macrocomponents.ComposeCtx;
 import com.cburch.logisim.verilog.std.macrocomponents.Factories;
@@ -64,7 +64,7 @@ public final class UnaryOpAdapter extends AbstractComponentAdapter
 
             int width = guessUnaryWidth(cell.params());
             AttributeSet attrs = factory.createAttributeSet();
-            try { attrs.setValue(StdAttr.WIDTH, BitWidth.create(width)); } catch (Exception ignore) {}
+            ComponentComposer.setWidth(attrs, width);
             try { attrs.setValue(StdAttr.LABEL, cleanCellName(cell.name())); } catch (Exception ignore) {}
 
             Component comp = addComponent(proj, circ, g, factory, where, attrs);
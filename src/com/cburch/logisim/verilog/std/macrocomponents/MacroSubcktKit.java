@@ -9,7 +9,9 @@ import com.cburch.logisim.file.LogisimFile;
 import com.cburch.logisim.file.LogisimFileActions;
 import com.cburch.logisim.instance.InstanceFactory;
 import com.cburch.logisim.instance.StdAttr;
+import com.cburch.logisim.verilog.std.ImportBatch;
 import com.cburch.logisim.verilog.std.InstanceHandle;
+import com.cburch.logisim.verilog.std.Strings;
 import com.cburch.logisim.verilog.std.adapters.BaseComposer;
 
 import java.util.*;
@@ -52,9 +54,12 @@ public final class MacroSubcktKit extends BaseComposer {
             macro = new Circuit(macroName);
             ctx.proj.doAction(LogisimFileActions.addCircuit(macro));
 
-            // construir interior (pins incluidos) una sola vez
+            // construir interior (pins incluidos) una sola vez, en una sola acción
             ComposeCtx inner = new ComposeCtx(ctx.proj, macro, ctx.g, ctx.fx);
-            populateInternal.accept(inner, macro);
+            try (ImportBatch batch = ImportBatch.open(ctx.proj, macro, ctx.g)) {
+                populateInternal.accept(inner, macro);
+                batch.commit(Strings.getter("importModuleAction", macroName));
+            }
         }
 
         InstanceFactory fac = macro.getSubcircuitFactory();